@@ -0,0 +1,273 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.annotation.processing;
+
+import com.apehat.newyear.core.annotation.Plugin;
+import com.apehat.newyear.core.annotation.Starter;
+import com.apehat.newyear.core.scan.PluginIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generate the {@link PluginIndex} at build time, i.e. record the classes
+ * annotated {@link Plugin} (with their declared dependencies and starter
+ * constructor), and the concrete classes implemented
+ * {@link com.apehat.newyear.core.env.Plugin}, to {@link PluginIndex#LOCATION}.
+ * <p>
+ * The processor will be discovered by the compiler, if the newyear
+ * annotation module is on the annotation processor path.
+ * <p>
+ * An incremental build only compiles the changed types, so the entries of
+ * existing index will be merged: the entries of the compiled types be
+ * replaced, and the entries of the types, what cannot be found anymore, be
+ * dropped.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+@SupportedAnnotationTypes("*")
+public class PluginIndexProcessor extends AbstractProcessor {
+
+    private final List<PluginIndex.Entry> entries = new ArrayList<>();
+
+    /**
+     * The binary names of the types compiled in this run.
+     */
+    private final Set<String> compiled = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+
+        TypeElement envPlugin = processingEnv.getElementUtils()
+                .getTypeElement(com.apehat.newyear.core.env.Plugin.class.getCanonicalName());
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            record(type, envPlugin);
+        }
+        // the indexed types aren't claimed, other processors can also process them
+        return false;
+    }
+
+    private void record(TypeElement type, TypeElement envPlugin) {
+        compiled.add(binaryName(type));
+        if (type.getKind() == ElementKind.CLASS) {
+            AnnotationMirror plugin = findAnnotation(type, Plugin.class.getCanonicalName());
+            if (plugin != null) {
+                entries.add(new PluginIndex.Entry(PluginIndex.Kind.ANNOTATED, binaryName(type),
+                        dependencies(plugin), starterParameterTypes(type)));
+            }
+            // the plugin will be instantiated by it's public constructor
+            if (envPlugin != null && !type.getModifiers().contains(Modifier.ABSTRACT) && isPublic(type)
+                    && processingEnv.getTypeUtils().isAssignable(
+                    processingEnv.getTypeUtils().erasure(type.asType()),
+                    processingEnv.getTypeUtils().erasure(envPlugin.asType()))) {
+                entries.add(new PluginIndex.Entry(PluginIndex.Kind.IMPLEMENTATION, binaryName(type), null, null));
+            }
+        }
+        // the nested classes
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC) || nested.getKind() != ElementKind.CLASS) {
+                record(nested, envPlugin);
+            }
+        }
+    }
+
+    /**
+     * Determine whether the type is public, and all it's enclosing types are
+     * public.
+     */
+    private static boolean isPublic(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String[] dependencies(AnnotationMirror plugin) {
+        List<String> dependencies = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : plugin.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("dependencies")) {
+                @SuppressWarnings("unchecked") List<? extends AnnotationValue> values =
+                        (List<? extends AnnotationValue>) entry.getValue().getValue();
+                for (AnnotationValue value : values) {
+                    dependencies.add(typeName((TypeMirror) value.getValue()));
+                }
+            }
+        }
+        return dependencies.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the parameter types of the constructor annotated
+     * {@link Starter}, or the only constructor.
+     */
+    private String[] starterParameterTypes(TypeElement type) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        ExecutableElement starter = constructors.size() == 1 ? constructors.get(0) : null;
+        for (ExecutableElement constructor : constructors) {
+            if (findAnnotation(constructor, Starter.class.getCanonicalName()) != null) {
+                starter = constructor;
+                break;
+            }
+        }
+        if (starter == null) {
+            return null;
+        }
+        List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : starter.getParameters()) {
+            parameterTypes.add(typeName(parameter.asType()));
+        }
+        return parameterTypes.toArray(new String[0]);
+    }
+
+    private void write() {
+        List<PluginIndex.Entry> merged = readExisting();
+        merged.addAll(entries);
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", PluginIndex.LOCATION);
+            try (OutputStream out = resource.openOutputStream()) {
+                new PluginIndex(merged).write(out);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write " + PluginIndex.LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the entries of the index written by previous build, except the
+     * entries of the types compiled in this run, or cannot be found anymore.
+     */
+    private List<PluginIndex.Entry> readExisting() {
+        List<PluginIndex.Entry> existing = new ArrayList<>();
+        PluginIndex index;
+        try {
+            FileObject resource = processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", PluginIndex.LOCATION);
+            try (InputStream in = resource.openInputStream()) {
+                index = PluginIndex.read(in);
+            }
+        } catch (IOException e) {
+            // no previous index, or it's malformed, the index will be rebuilt
+            return existing;
+        }
+        for (PluginIndex.Entry entry : index.getEntries()) {
+            String className = entry.getClassName();
+            if (!compiled.contains(className) && processingEnv.getElementUtils()
+                    .getTypeElement(className.replace('$', '.')) != null) {
+                existing.add(entry);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Returns the name of the type, same as the name of {@link Class#getName()}.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) erasure).getComponentType());
+            case DECLARED:
+                return binaryName((TypeElement) ((DeclaredType) erasure).asElement());
+            default:
+                // primitive types
+                return erasure.toString();
+        }
+    }
+
+    private String descriptor(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) erasure).getComponentType());
+            case DECLARED:
+                return "L" + binaryName((TypeElement) ((DeclaredType) erasure).asElement()) + ";";
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.annotation.processing;
+
+import com.apehat.newyear.core.scan.PluginIndex;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class PluginIndexProcessorTest {
+
+    @Test
+    public void testGenerateIndex() throws Exception {
+        File output = Files.createTempDirectory("processor").toFile();
+        output.deleteOnExit();
+
+        JavaFileObject source = source("foo.Bar", "package foo;\n"
+                + "import com.apehat.newyear.core.env.*;\n"
+                + "@com.apehat.newyear.core.annotation.Plugin(dependencies = String.class)\n"
+                + "public class Bar implements Plugin {\n"
+                + "    public Bar(int a, String[] b) {}\n"
+                + "    public void launch(Class<?> entrance, CommandLineArgs args) {}\n"
+                + "    public Class<? extends Plugin>[] dependencies() { return null; }\n"
+                + "    public static abstract class Baz implements Plugin {}\n"
+                + "}\n");
+        assertTrue(compile(output, source));
+
+        PluginIndex index = PluginIndex.load(output.getPath());
+        assertNotNull(index);
+        List<PluginIndex.Entry> annotated = index.getEntries(PluginIndex.Kind.ANNOTATED);
+        assertEquals(1, annotated.size());
+        assertEquals("foo.Bar", annotated.get(0).getClassName());
+        assertArrayEquals(new String[]{"java.lang.String"}, annotated.get(0).getDependencies());
+        assertArrayEquals(new String[]{"int", "[Ljava.lang.String;"}, annotated.get(0).getStarterParameterTypes());
+
+        List<PluginIndex.Entry> implementations = index.getEntries(PluginIndex.Kind.IMPLEMENTATION);
+        assertEquals(1, implementations.size());
+        assertEquals("foo.Bar", implementations.get(0).getClassName());
+    }
+
+    @Test
+    public void testSkipNonPublicImplementation() throws Exception {
+        File output = Files.createTempDirectory("processor").toFile();
+        output.deleteOnExit();
+
+        assertTrue(compile(output, source("foo.Outer", "package foo;\n"
+                + "class Outer {\n"
+                + "    public static class Nested extends Impl {}\n"
+                + "}\n"
+                + "class Hidden extends Impl {}\n"
+                + "abstract class Impl implements com.apehat.newyear.core.env.Plugin {\n"
+                + "    public void launch(Class<?> entrance, com.apehat.newyear.core.env.CommandLineArgs args) {}\n"
+                + "    public Class<? extends com.apehat.newyear.core.env.Plugin>[] dependencies() { return null; }\n"
+                + "}\n")));
+
+        PluginIndex index = PluginIndex.load(output.getPath());
+        assertNotNull(index);
+        assertTrue(index.getEntries(PluginIndex.Kind.IMPLEMENTATION).isEmpty());
+    }
+
+    @Test
+    public void testMergeIncrementalBuild() throws Exception {
+        File output = Files.createTempDirectory("processor").toFile();
+        output.deleteOnExit();
+
+        assertTrue(compile(output, plugin("Bar"), plugin("Qux"), plugin("Gone")));
+        assertTrue(new File(output, "foo/Gone.class").delete());
+        // only Bar be changed, Qux is unchanged, Gone is removed
+        assertTrue(compile(output, source("foo.Bar", "package foo;\npublic class Bar {}\n")));
+
+        PluginIndex index = PluginIndex.load(output.getPath());
+        assertNotNull(index);
+        List<PluginIndex.Entry> implementations = index.getEntries(PluginIndex.Kind.IMPLEMENTATION);
+        assertEquals(1, implementations.size());
+        assertEquals("foo.Qux", implementations.get(0).getClassName());
+    }
+
+    private static JavaFileObject plugin(String simpleName) {
+        return source("foo." + simpleName, "package foo;\n"
+                + "import com.apehat.newyear.core.env.*;\n"
+                + "public class " + simpleName + " implements Plugin {\n"
+                + "    public void launch(Class<?> entrance, CommandLineArgs args) {}\n"
+                + "    public Class<? extends Plugin>[] dependencies() { return null; }\n"
+                + "}\n");
+    }
+
+    private static JavaFileObject source(String className, String content) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + ".java");
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    /**
+     * Compile the sources to the output directory, the output directory is
+     * on the class path, as the incremental build.
+     */
+    private static boolean compile(File output, JavaFileObject... sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = output.getPath() + File.pathSeparator + System.getProperty("java.class.path");
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-d", output.getPath(), "-classpath", classPath), null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new PluginIndexProcessor()));
+        return task.call();
+    }
+}
@@ -16,17 +16,20 @@
 
 package com.apehat.newyear.core.annotation;
 
+import com.apehat.newyear.core.scan.PluginIndex;
 import com.apehat.newyear.util.ClassUtils;
 import com.apehat.newyear.util.ResourceUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
@@ -49,11 +52,24 @@ public class PluginScanner {
 
         ArrayList<DefinitionPlugin> plugins = new ArrayList<>();
 
+        // read the indexes first, the locations had index needn't be scanned
+        List<String> indexedRoots = new ArrayList<>();
+        Enumeration<URL> indexes = clToUse.getResources(PluginIndex.LOCATION);
+        while (indexes.hasMoreElements()) {
+            URL url = indexes.nextElement();
+            String s = url.toString();
+            indexedRoots.add(s.substring(0, s.length() - PluginIndex.LOCATION.length()));
+            plugins.addAll(parseIndex(url, packageName, clToUse));
+        }
+
         Enumeration<URL> resources = clToUse.getResources(path);
         while (resources.hasMoreElements()) {
             URL url = resources.nextElement();
+            if (isIndexed(url, indexedRoots)) {
+                continue;
+            }
             if (ResourceUtils.isJarURL(url) || ResourceUtils.isFileURL(url)) {
-                parseJarFile(url, clToUse);
+                plugins.addAll(parseJarFile(url, clToUse));
             } else if (ResourceUtils.isFileURL(url)) {
                 // 是一个文件
                 String filePath = url.getPath();
@@ -68,6 +84,42 @@ public class PluginScanner {
         return plugins.toArray(new DefinitionPlugin[plugins.size()]);
     }
 
+    private static List<DefinitionPlugin> parseIndex(URL url, String packageName, ClassLoader loader)
+            throws IOException {
+        String prefix = clearPath(packageName).replace(ResourceUtils.PATH_SEPARATOR, ClassUtils.PACKAGE_SEPARATOR);
+        if (!prefix.isEmpty() && !prefix.endsWith(ClassUtils.PACKAGE_SEPARATOR)) {
+            prefix += ClassUtils.PACKAGE_SEPARATOR;
+        }
+
+        PluginIndex index;
+        URLConnection con = url.openConnection();
+        con.setUseCaches(false);
+        try (InputStream in = con.getInputStream()) {
+            index = PluginIndex.read(in);
+        }
+
+        ArrayList<DefinitionPlugin> plugins = new ArrayList<>();
+        for (PluginIndex.Entry entry : index.getEntries(PluginIndex.Kind.ANNOTATED)) {
+            if (entry.getClassName().startsWith(prefix)) {
+                DefinitionPlugin plugin = to(entry, loader);
+                if (plugin != null) {
+                    plugins.add(plugin);
+                }
+            }
+        }
+        return plugins;
+    }
+
+    private static boolean isIndexed(URL url, List<String> indexedRoots) {
+        String s = url.toString();
+        for (String root : indexedRoots) {
+            if (s.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static List<DefinitionPlugin> parseJarFile(URL url, ClassLoader loader) throws IOException {
         assert url != null;
 
@@ -138,38 +190,21 @@ public class PluginScanner {
     }
 
     private static DefinitionPlugin to(String className, ClassLoader loader) {
-        if (ClassUtils.isAvailable(className)) {
-            Class<?> aClass = ClassUtils.forName(className, loader);
-            if (aClass != null) {
-                Plugin annotation = aClass.getAnnotation(Plugin.class);
-                if (annotation != null) {
-                    // is a plugin, find plugin depends
-                    Class<?>[] dependencies = annotation.dependencies();
-                    Constructor<?>[] constructors = aClass.getConstructors();
-                    if (constructors.length != 1) {
-                        for (Constructor constructor : constructors) {
-                            // find starter
-                            Annotation starter = constructor.getAnnotation(Starter.class);
-                            if (starter != null) {
-                                Class[] parameterTypes = constructor.getParameterTypes();
-                                return new DefinitionPlugin() {
-                                    @Override
-                                    public Class<?> type() {
-                                        return aClass;
-                                    }
-
-                                    @Override
-                                    public Class<?>[] dependencies() {
-                                        return dependencies;
-                                    }
-
-                                    @Override
-                                    public Class<?>[] starterArgsType() {
-                                        return parameterTypes;
-                                    }
-                                };
-                            }
-                        }
+        Class<?> aClass = ClassUtils.forName(className, loader);
+        if (aClass != null) {
+            Plugin annotation = aClass.getAnnotation(Plugin.class);
+            if (annotation != null) {
+                // is a plugin, find plugin depends
+                Class<?>[] dependencies = annotation.dependencies();
+                Constructor<?>[] constructors = aClass.getConstructors();
+                if (constructors.length == 1) {
+                    return newDefinition(aClass, dependencies, constructors[0].getParameterTypes());
+                }
+                for (Constructor constructor : constructors) {
+                    // find starter
+                    Annotation starter = constructor.getAnnotation(Starter.class);
+                    if (starter != null) {
+                        return newDefinition(aClass, dependencies, constructor.getParameterTypes());
                     }
                 }
             }
@@ -177,6 +212,74 @@ public class PluginScanner {
         return null;
     }
 
+    private static DefinitionPlugin to(PluginIndex.Entry entry, ClassLoader loader) {
+        Class<?> aClass = resolve(entry.getClassName(), loader);
+        Class<?>[] dependencies = resolve(entry.getDependencies(), loader);
+        Class<?>[] parameterTypes = resolve(entry.getStarterParameterTypes(), loader);
+        if (aClass == null || dependencies == null || parameterTypes == null) {
+            return null;
+        }
+        return newDefinition(aClass, dependencies, parameterTypes);
+    }
+
+    private static Class<?>[] resolve(String[] names, ClassLoader loader) {
+        Class<?>[] classes = new Class<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            classes[i] = resolve(names[i], loader);
+            if (classes[i] == null) {
+                return null;
+            }
+        }
+        return classes;
+    }
+
+    private static Class<?> resolve(String name, ClassLoader loader) {
+        switch (name) {
+            case "boolean":
+                return boolean.class;
+            case "byte":
+                return byte.class;
+            case "char":
+                return char.class;
+            case "short":
+                return short.class;
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "float":
+                return float.class;
+            case "double":
+                return double.class;
+            default:
+                try {
+                    return Class.forName(name, false, loader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    return null;
+                }
+        }
+    }
+
+    private static DefinitionPlugin newDefinition(Class<?> aClass, Class<?>[] dependencies,
+                                                  Class<?>[] parameterTypes) {
+        return new DefinitionPlugin() {
+            @Override
+            public Class<?> type() {
+                return aClass;
+            }
+
+            @Override
+            public Class<?>[] dependencies() {
+                return dependencies;
+            }
+
+            @Override
+            public Class<?>[] starterArgsType() {
+                return parameterTypes;
+            }
+        };
+    }
+
     private static URL createURL(URL url, String name) throws MalformedURLException {
         if (ResourceUtils.isJarFileURL(url)) {
             URL jarURL = ResourceUtils.toJarURL(url);
@@ -55,7 +55,12 @@ public abstract class AbstractBootLoader implements PluginLoader {
     }
 
     @Override
-    public Plugin getPlugins() {
+    public Plugin[] getPlugins() {
+        return new Plugin[0];
+    }
+
+    @Override
+    public <T extends Plugin> T getPlugin(Class<T> pluginClass) {
         return null;
     }
 }
@@ -16,41 +16,44 @@
 
 package com.apehat.newyear.core.env;
 
-import com.apehat.newyear.util.ClassUtils;
-
-import java.io.IOException;
-import java.net.URL;
-import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Be used to boot all framework plugins.
+ * <p>
+ * The plugins be registered before booting, so the eager plugins can access
+ * the lazy plugins in launching. The deferred (lazy) plugins will be
+ * launched at the first access, by {@link #getPlugins()} or
+ * {@link #getPlugin(Class)}. Their dependencies will be launched before
+ * them. Each plugin will be launched only once, even if it be accessed
+ * concurrently. The eager plugins are launched by the boot, and be marked
+ * launched after their waves completed, see {@link #markLaunched(List)}.
+ * A deferred plugin, what depends on the eager plugins, will wait them be
+ * marked launched before launching.
  *
  * @author hanpengfei
  * @since 1.0
  */
 public final class BootPluginLoader implements PluginLoader {
 
-    private static final String BOOT_PACKAGE_NAME = "com.apehat.newyear";
-
-    private static final Set<Plugin> BOOT_PLUGINS = new HashSet<>();
-
-    public BootPluginLoader() {
-        ClassLoader clToUse = ClassUtils.getDefaultClassLoader();
-        if (clToUse == null) {
-            clToUse = getClass().getClassLoader();
-        }
+    /**
+     * The activations of plugins, in topological order.
+     */
+    private volatile List<Activation> activations = new ArrayList<>();
 
-        try {
-            Enumeration<URL> resources = clToUse.getResources(BOOT_PACKAGE_NAME);
-            while (resources.hasMoreElements()) {
-                URL url = resources.nextElement();
-            }
-        } catch (IOException e) {
-            throw new InitializationException();
-        }
-    }
+    /**
+     * Whether current thread is launching the eager plugins.
+     */
+    private final ThreadLocal<Boolean> booting = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
     @Override
     public PluginLoader getParent() {
@@ -67,8 +70,210 @@ public final class BootPluginLoader implements PluginLoader {
 
     }
 
+    /**
+     * Register the plugins of specified graph, before the graph launched.
+     * The plugins, what aren't deferred, are unlaunched until they be
+     * {@link #markLaunched(List) marked}.
+     *
+     * @param graph    the graph of plugins
+     * @param entrance the entrance class, to launch the deferred plugins
+     * @param args     the command line args, to launch the deferred plugins
+     */
+    void register(PluginGraph graph, Class<?> entrance, CommandLineArgs args) {
+        Objects.requireNonNull(graph, "Must specified graph.");
+
+        Map<Plugin, Activation> map = new IdentityHashMap<>();
+        List<Activation> list = new ArrayList<>(activations);
+        for (List<Plugin> wave : graph.getWaves()) {
+            for (Plugin plugin : wave) {
+                List<Plugin> dependencies = graph.getDependencies(plugin);
+                Activation[] resolved = new Activation[dependencies.size()];
+                for (int i = 0; i < resolved.length; i++) {
+                    // the dependencies always in previous waves
+                    resolved[i] = map.get(dependencies.get(i));
+                }
+                Activation activation = new Activation(plugin, resolved, entrance, args,
+                        graph.isDeferred(plugin));
+                map.put(plugin, activation);
+                list.add(activation);
+            }
+        }
+        activations = list;
+    }
+
+    /**
+     * Mark the eager plugins of a wave as launched. Be used as the listener
+     * of {@link PluginGraph#launch(Executor, Class, CommandLineArgs, BootTimeline, Consumer)}.
+     *
+     * @param plugins the launched plugins
+     */
+    void markLaunched(List<Plugin> plugins) {
+        Set<Plugin> launched = Collections.newSetFromMap(new IdentityHashMap<>());
+        launched.addAll(plugins);
+        for (Activation activation : activations) {
+            if (launched.contains(activation.plugin)) {
+                activation.launched = true;
+                activation.latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Abort the boot, after the eager plugins launch failure. The deferred
+     * plugins, what are waiting the unlaunched eager plugins, will be
+     * failed, rather than waiting forever.
+     */
+    void abort() {
+        for (Activation activation : activations) {
+            activation.latch.countDown();
+        }
+    }
+
+    /**
+     * Run specified task as a boot task, i.e. a task to launch the eager
+     * plugins. The boot task cannot wait the unlaunched eager plugins, as
+     * they will be marked launched after the wave of it completed.
+     *
+     * @param task the task to launch eager plugins
+     */
+    void boot(Runnable task) {
+        if (booting.get()) {
+            task.run();
+            return;
+        }
+        booting.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            booting.remove();
+        }
+    }
+
     @Override
-    public Plugin getPlugins() {
-        return null;
+    public Plugin[] getPlugins() {
+        List<Activation> activations = this.activations;
+        Plugin[] plugins = new Plugin[activations.size()];
+        for (int i = 0; i < plugins.length; i++) {
+            plugins[i] = activations.get(i).activate();
+        }
+        return plugins;
+    }
+
+    @Override
+    public <T extends Plugin> T getPlugin(Class<T> pluginClass) {
+        Objects.requireNonNull(pluginClass, "Must specified plugin class.");
+
+        Activation found = null;
+        for (Activation activation : activations) {
+            Class<?> aClass = activation.plugin.getClass();
+            if (aClass == pluginClass) {
+                found = activation;
+                break;
+            }
+            if (found == null && pluginClass.isAssignableFrom(aClass)) {
+                found = activation;
+            }
+        }
+        return found == null ? null : pluginClass.cast(found.activate());
+    }
+
+    /**
+     * Determine whether the plugin of specified class had been launched.
+     *
+     * @param pluginClass the class of plugin
+     * @return true, if the plugin had been launched
+     */
+    public boolean isLaunched(Class<? extends Plugin> pluginClass) {
+        for (Activation activation : activations) {
+            if (activation.plugin.getClass() == pluginClass) {
+                return activation.launched;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The activation of a plugin. The dependencies will be activated before
+     * the plugin, as the graph is acyclic, the locks always be acquired from
+     * dependents to dependencies, so they cannot be deadlocked.
+     * <p>
+     * Only the deferred plugin will be launched by activation, the eager
+     * plugin is launched by its wave, so activate it before marked launched
+     * (i.e. access it without declaring dependency) only returns it, rather
+     * than launching it twice. But a deferred plugin must wait its eager
+     * dependencies be marked launched, because it may be accessed by an
+     * eager plugin, what doesn't declare it, before its dependencies launched.
+     */
+    private final class Activation {
+
+        private final Plugin plugin;
+        private final Activation[] dependencies;
+        private final Class<?> entrance;
+        private final CommandLineArgs args;
+        private final boolean deferred;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile boolean launched;
+
+        private Activation(Plugin plugin, Activation[] dependencies, Class<?> entrance,
+                           CommandLineArgs args, boolean deferred) {
+            this.plugin = plugin;
+            this.dependencies = dependencies;
+            this.entrance = entrance;
+            this.args = args;
+            this.deferred = deferred;
+        }
+
+        private Plugin activate() {
+            if (deferred && !launched) {
+                synchronized (this) {
+                    if (!launched) {
+                        for (Activation dependency : dependencies) {
+                            if (dependency.deferred) {
+                                dependency.activate();
+                            } else {
+                                dependency.awaitLaunched(this);
+                            }
+                        }
+                        try {
+                            plugin.launch(entrance, args);
+                        } catch (RuntimeException | Error e) {
+                            throw new BootException("Launch plugin [" + plugin.getClass().getName()
+                                    + "] failure.", e);
+                        }
+                        launched = true;
+                    }
+                }
+            }
+            return plugin;
+        }
+
+        private void awaitLaunched(Activation dependent) {
+            if (launched) {
+                return;
+            }
+            // the waves are launching by current thread, so it cannot be
+            // marked launched until the accessor returned
+            if (booting.get()) {
+                throw new BootException("Cannot launch plugin [" + dependent.plugin.getClass().getName()
+                        + "] before its dependency [" + plugin.getClass().getName()
+                        + "] launched, the accessor must declare dependency on it.");
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (!launched) {
+                throw new BootException("Cannot launch plugin [" + dependent.plugin.getClass().getName()
+                        + "], its dependency [" + plugin.getClass().getName() + "] launch failure.");
+            }
+        }
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The snapshot of the resolved booting state, i.e. the plugin classes in
+ * dependency order, key by the fingerprint of class path. If the class path
+ * doesn't change, the booting can restore the plugins from the snapshot,
+ * without finding them again.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see com.apehat.newyear.core.scan.ClassPathFingerprint
+ */
+public final class BootSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(BootSnapshot.class);
+
+    private static final int MAGIC = 0x4E59424E;
+    private static final int VERSION = 1;
+
+    private final long fingerprint;
+
+    private final List<String> pluginClassNames;
+
+    /**
+     * Create a snapshot.
+     *
+     * @param fingerprint      the fingerprint of class path
+     * @param pluginClassNames the names of plugin classes, in dependency
+     *                         order
+     * @throws NullPointerException specified names is null
+     */
+    public BootSnapshot(long fingerprint, List<String> pluginClassNames) {
+        this.fingerprint = fingerprint;
+        this.pluginClassNames = Collections.unmodifiableList(new ArrayList<>(
+                Objects.requireNonNull(pluginClassNames, "Must specified plugin class names.")));
+    }
+
+    /**
+     * Load the snapshot from specified file.
+     *
+     * @param file the snapshot file
+     * @return the snapshot, or null if the file doesn't exist, or cannot be
+     * read
+     * @throws NullPointerException specified file is null
+     */
+    public static BootSnapshot load(Path file) {
+        Objects.requireNonNull(file, "Must specified snapshot file.");
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw new IOException("Unsupported boot snapshot format");
+            }
+            long fingerprint = data.readLong();
+            int count = data.readInt();
+            // each name takes 2 bytes at least
+            if (count < 0 || count > Files.size(file) / 2) {
+                throw new IOException("Invalid count [" + count + "] of boot snapshot");
+            }
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(data.readUTF());
+            }
+            return new BootSnapshot(fingerprint, names);
+        } catch (IOException e) {
+            // the snapshot will be rebuilt
+            logger.warn("Cannot read boot snapshot [{}]: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Save this snapshot to specified file atomically.
+     *
+     * @param file the snapshot file
+     * @throws IOException write file failure
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeLong(fingerprint);
+                data.writeInt(pluginClassNames.size());
+                for (String name : pluginClassNames) {
+                    data.writeUTF(name);
+                }
+                data.flush();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the names of plugin classes, in dependency order.
+     *
+     * @return the unmodifiable list of names
+     */
+    public List<String> getPluginClassNames() {
+        return pluginClassNames;
+    }
+
+    @Override
+    public String toString() {
+        return "BootSnapshot{fingerprint=" + Long.toHexString(fingerprint) + ", plugins=" + pluginClassNames + "}";
+    }
+}
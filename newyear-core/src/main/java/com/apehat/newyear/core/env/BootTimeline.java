@@ -0,0 +1,343 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timeline of booting, records the phases and the launch of each plugin
+ * in nanoseconds.
+ * <p>
+ * Each phase records it's duration, the counters what be added by the
+ * booting (e.g. the count of scanned classes), and the bytes allocated by
+ * current thread in it, if the JVM supports. The allocations of the worker
+ * threads (e.g. the parallel scanning) aren't included.
+ * <p>
+ * A record is only several {@link System#nanoTime()} calls and a small
+ * object, so it can be kept on in production.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class BootTimeline {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final long start = System.nanoTime();
+
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+
+    private final ConcurrentLinkedQueue<PluginLaunch> launches = new ConcurrentLinkedQueue<>();
+
+    private volatile long end;
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+                if (allocationBean.isThreadAllocatedMemorySupported()
+                        && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean;
+                }
+            }
+        } catch (LinkageError | RuntimeException ignore) {
+            // not a HotSpot JVM - the allocated bytes will not be recorded
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATION_BEAN == null ? -1 : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Begin a phase, the phase will be recorded, after it closed.
+     *
+     * @param name the name of phase
+     * @return the phase
+     * @throws NullPointerException specified name is null
+     */
+    public Phase begin(String name) {
+        return new Phase(Objects.requireNonNull(name, "Must specified phase name."));
+    }
+
+    /**
+     * Record the launch of a plugin.
+     *
+     * @param plugin the class of plugin
+     * @param begin  the nano time of launch began, relative to
+     *               {@link System#nanoTime()}
+     * @param nanos  the nanoseconds of launch
+     */
+    public void recordLaunch(Class<?> plugin, long begin, long nanos) {
+        launches.add(new PluginLaunch(plugin.getName(), Thread.currentThread().getName(), begin - start, nanos));
+    }
+
+    /**
+     * Mark the booting completed.
+     */
+    public void complete() {
+        end = System.nanoTime();
+    }
+
+    /**
+     * Returns the nanoseconds of booting, until {@link #complete()} or now.
+     *
+     * @return the nanoseconds of booting
+     */
+    public long getTotalNanos() {
+        long end = this.end;
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    public List<Phase> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<>(phases);
+        }
+    }
+
+    public List<PluginLaunch> getLaunches() {
+        return new ArrayList<>(launches);
+    }
+
+    /**
+     * Log this timeline as structured messages, a message per phase and per
+     * plugin.
+     *
+     * @param logger the logger
+     */
+    public void log(Logger logger) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info("boot.total nanos={}", getTotalNanos());
+        for (Phase phase : getPhases()) {
+            logger.info("boot.phase name={} offset={} nanos={} allocated={} counters={}",
+                    phase.name, phase.offset, phase.nanos, phase.allocated, phase.counters);
+        }
+        for (PluginLaunch launch : launches) {
+            logger.info("boot.plugin class={} thread={} offset={} nanos={}",
+                    launch.className, launch.threadName, launch.offset, launch.nanos);
+        }
+    }
+
+    /**
+     * Write this timeline as json to specified file.
+     *
+     * @param file the file to write
+     * @throws IOException write failure
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Returns this timeline as json.
+     *
+     * @return the json of this timeline
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"totalNanos\":").append(getTotalNanos()).append(",\"phases\":[");
+        List<Phase> phases = getPhases();
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"name\":");
+            quote(json, phase.name).append(",\"offsetNanos\":").append(phase.offset)
+                    .append(",\"nanos\":").append(phase.nanos)
+                    .append(",\"allocatedBytes\":").append(phase.allocated)
+                    .append(",\"counters\":{");
+            boolean first = true;
+            for (Map.Entry<String, Long> counter : phase.counters.entrySet()) {
+                json.append(first ? "" : ",");
+                quote(json, counter.getKey()).append(':').append(counter.getValue());
+                first = false;
+            }
+            json.append("}}");
+        }
+        json.append("],\"plugins\":[");
+        boolean first = true;
+        for (PluginLaunch launch : launches) {
+            json.append(first ? "" : ",").append("{\"class\":");
+            quote(json, launch.className).append(",\"thread\":");
+            quote(json, launch.threadName).append(",\"offsetNanos\":").append(launch.offset)
+                    .append(",\"nanos\":").append(launch.nanos).append('}');
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static StringBuilder quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return "BootTimeline{total=" + TimeUnit.NANOSECONDS.toMillis(getTotalNanos()) + "ms, phases="
+                + getPhases() + "}";
+    }
+
+    /**
+     * A phase of booting, it should be closed by the thread began it.
+     */
+    public final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long offset;
+        private final long allocatedAtBegin;
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+        private long nanos = -1;
+        private long allocated = -1;
+
+        private Phase(String name) {
+            this.name = name;
+            this.allocatedAtBegin = allocatedBytes();
+            this.offset = System.nanoTime() - start;
+        }
+
+        /**
+         * Add specified value to the counter of specified name.
+         *
+         * @param counter the name of counter
+         * @param value   the value to add
+         * @return this phase
+         */
+        public Phase count(String counter, long value) {
+            counters.merge(counter, value, Long::sum);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the nanoseconds of this phase.
+         *
+         * @return the nanoseconds, or -1 if this phase hasn't closed
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the bytes allocated by current thread in this phase.
+         *
+         * @return the allocated bytes, or -1 if unsupported
+         */
+        public long getAllocatedBytes() {
+            return allocated;
+        }
+
+        public Map<String, Long> getCounters() {
+            return Collections.unmodifiableMap(counters);
+        }
+
+        @Override
+        public void close() {
+            if (nanos < 0) {
+                nanos = System.nanoTime() - start - offset;
+                long allocatedAtEnd = allocatedBytes();
+                allocated = allocatedAtBegin < 0 || allocatedAtEnd < 0 ? -1 : allocatedAtEnd - allocatedAtBegin;
+                phases.add(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+        }
+    }
+
+    /**
+     * The launch of a plugin.
+     */
+    public static final class PluginLaunch {
+
+        private final String className;
+        private final String threadName;
+        private final long offset;
+        private final long nanos;
+
+        private PluginLaunch(String className, String threadName, long offset, long nanos) {
+            this.className = className;
+            this.threadName = threadName;
+            this.offset = offset;
+            this.nanos = nanos;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * Returns the nanoseconds from the booting began to the launch began.
+         *
+         * @return the offset in nanoseconds
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return className + "=" + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+        }
+    }
+}
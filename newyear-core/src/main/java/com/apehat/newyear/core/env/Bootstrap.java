@@ -16,16 +16,32 @@
 
 package com.apehat.newyear.core.env;
 
+import com.apehat.newyear.core.scan.ClassMetadata;
+import com.apehat.newyear.core.scan.ClassPathFingerprint;
+import com.apehat.newyear.core.scan.ClassPathScanner;
+import com.apehat.newyear.core.scan.PackageFilter;
+import com.apehat.newyear.core.scan.PluginIndex;
+import com.apehat.newyear.core.scan.ScanCache;
+import com.apehat.newyear.core.scan.ScanResult;
 import com.apehat.newyear.util.ClassUtils;
 import com.apehat.newyear.util.ReflectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author hanpengfei
@@ -33,13 +49,99 @@ import java.util.Set;
  */
 public final class Bootstrap {
 
+    /**
+     * The system property of the scan cache file. If it be set, the scanned
+     * jars will be cached to the file, and be rescanned only if they changed.
+     *
+     * @see ScanCache
+     */
+    public static final String SCAN_CACHE_PROPERTY = "newyear.scan.cache";
+
+    /**
+     * The system property of the count of threads to launch plugins. By
+     * default, it's the count of available processors, and 1 means launch
+     * all plugins on main thread.
+     *
+     * @see PluginGraph
+     */
+    public static final String BOOT_PARALLELISM_PROPERTY = "newyear.boot.parallelism";
+
+    /**
+     * The system property of the boot timeline file. If it be set, the
+     * timeline will be written to the file as json, after booted.
+     *
+     * @see BootTimeline
+     */
+    public static final String BOOT_TIMELINE_PROPERTY = "newyear.boot.timeline";
+
+    /**
+     * The system property of the packages to scan plugins, separated by
+     * comma. By default, all packages will be scanned.
+     *
+     * @see PluginScanner#setPluginScanPackages(String...)
+     */
+    public static final String SCAN_PACKAGES_PROPERTY = "newyear.scan.packages";
+
+    /**
+     * The system property of the packages to ignore, separated by comma.
+     *
+     * @see PluginScanner#setPluginScanIgnore(String...)
+     */
+    public static final String SCAN_IGNORE_PROPERTY = "newyear.scan.ignore";
+
+    /**
+     * The system property of the boot snapshot file. If it be set, the
+     * resolved plugins will be saved to the file, and be restored at next
+     * booting, if the class path (and the scan packages) doesn't change.
+     *
+     * @see BootSnapshot
+     */
+    public static final String BOOT_SNAPSHOT_PROPERTY = "newyear.boot.snapshot";
+
+    /**
+     * The system property of the AppCDS class list file. If it be set, the
+     * booting runs in training mode, the framework and plugin classes will
+     * be written to the file, after booted. The other loaded classes should
+     * be dumped by the JVM, with {@code -XX:DumpLoadedClassList}.
+     *
+     * @see ClassListRecorder
+     */
+    public static final String CDS_CLASS_LIST_PROPERTY = "newyear.cds.classlist";
+
     private static final Logger logger = LoggerFactory.getLogger(Bootstrap.class);
 
+    private static final BootPluginLoader PLUGIN_LOADER = new BootPluginLoader();
+
     private static boolean started = false;
 
     private Bootstrap() {
     }
 
+    /**
+     * Returns the loader of the booted plugins. The lazy plugins will be
+     * launched at the first access by the loader. The plugins be registered
+     * before launched, so the eager plugins can get the lazy plugins from
+     * the loader in launching.
+     *
+     * @return the loader of booted plugins
+     */
+    public static PluginLoader getPluginLoader() {
+        return PLUGIN_LOADER;
+    }
+
+    /**
+     * Determine whether the booting runs in training mode, i.e. the AppCDS
+     * class list will be recorded. The application should exit after
+     * booted, in training mode.
+     *
+     * @return true, if runs in training mode
+     * @see #CDS_CLASS_LIST_PROPERTY
+     */
+    public static boolean isTraining() {
+        String file = System.getProperty(CDS_CLASS_LIST_PROPERTY);
+        return file != null && !file.isEmpty();
+    }
+
     /**
      * Start framework with command line args.
      *
@@ -57,88 +159,284 @@ public final class Bootstrap {
     }
 
     private static void initialize(CommandLineArgs args) {
+        BootTimeline timeline = new BootTimeline();
+
         // find start entrance
         Class<?> entrance = getEntrance();
 
-        // scan plugins form global
-        Plugin[] plugins = getPlugins();
+        // restore plugins from snapshot, or scan plugins form global
+        String snapshotFile = System.getProperty(BOOT_SNAPSHOT_PROPERTY);
+        boolean snapshotEnabled = snapshotFile != null && !snapshotFile.isEmpty();
+        long fingerprint = 0;
+        Collection<String> classNames = null;
+        if (snapshotEnabled) {
+            try (BootTimeline.Phase phase = timeline.begin("restore")) {
+                fingerprint = ClassPathFingerprint.compute(ClassUtils.getClassPaths(),
+                        System.getProperty(SCAN_PACKAGES_PROPERTY), System.getProperty(SCAN_IGNORE_PROPERTY));
+                BootSnapshot snapshot = BootSnapshot.load(Paths.get(snapshotFile));
+                if (snapshot != null && snapshot.getFingerprint() == fingerprint) {
+                    classNames = snapshot.getPluginClassNames();
+                    phase.count("restoredPlugins", classNames.size());
+                }
+            } catch (IOException e) {
+                throw new InitializationException(e);
+            }
+        }
+        boolean restored = classNames != null;
+        if (!restored) {
+            classNames = findPlugins(timeline);
+        }
+
+        Plugin[] plugins = newPlugins(classNames, timeline);
+        List<String> resolved = new ArrayList<>(plugins.length);
         if (plugins.length > 0) {
-            Set<Plugin> unrunPlugin = new HashSet<>(Arrays.asList(plugins));
-            runPlugin(unrunPlugin, entrance, args);
+            PluginGraph graph;
+            try (BootTimeline.Phase phase = timeline.begin("resolve")) {
+                graph = new PluginGraph(plugins);
+                phase.count("waves", graph.getWaves().size());
+            }
+            for (List<Plugin> wave : graph.getWaves()) {
+                for (Plugin plugin : wave) {
+                    resolved.add(plugin.getClass().getName());
+                }
+            }
+            // register before launching, so the eager plugins can get the lazy plugins
+            PLUGIN_LOADER.register(graph, entrance, args);
+            try (BootTimeline.Phase phase = timeline.begin("launch")) {
+                runPlugins(graph, entrance, args, timeline);
+                for (Plugin plugin : plugins) {
+                    phase.count(graph.isDeferred(plugin) ? "deferredPlugins" : "plugins", 1);
+                }
+            }
         } else if (logger.isDebugEnabled()) {
             logger.debug("No type found.");
         }
 
+        if (snapshotEnabled && !restored) {
+            saveSnapshot(new BootSnapshot(fingerprint, resolved), snapshotFile);
+        }
+
         started = true;
+        timeline.complete();
+        reportTimeline(timeline);
+        if (isTraining()) {
+            writeClassList(plugins, System.getProperty(CDS_CLASS_LIST_PROPERTY));
+        }
 
         if (logger.isInfoEnabled()) {
             logger.info("New Year Application started successfully!");
         }
     }
 
-    private static Plugin[] getPlugins() {
-        Set<Class<? extends Plugin>> pluginClasses = new HashSet<>();
-        String[] paths = ClassUtils.getClassPaths();
-        for (String path : paths) {
-            try {
-                Class<?>[] classes = ClassUtils.getClassesInLocation(path);
-                for (Class<?> aClass : classes) {
-                    @SuppressWarnings("unchecked") Set<Class<?>> supers
-                            = (Set<Class<?>>) ClassUtils.getClasses(aClass);
-                    if (supers.contains(Plugin.class) && ClassUtils.canInstantiated(aClass)) {
-                        //noinspection unchecked
-                        pluginClasses.add((Class<? extends Plugin>) aClass);
-                    }
-                }
-            } catch (IOException e) {
-                throw new InitializationException(e);
-            }
+    private static Set<String> findPlugins(BootTimeline timeline) {
+        try (BootTimeline.Phase phase = timeline.begin("scan")) {
+            PluginScanner scanner = new DefaultPluginScanner()
+                    .setPluginScanPackages(getPackagesProperty(SCAN_PACKAGES_PROPERTY))
+                    .setPluginScanIgnore(getPackagesProperty(SCAN_IGNORE_PROPERTY));
+            return findPluginClassNames(ClassUtils.getClassPaths(), scanner.getPackageFilter(), phase);
+        }
+    }
+
+    private static Plugin[] newPlugins(Collection<String> classNames, BootTimeline timeline) {
+        try (BootTimeline.Phase phase = timeline.begin("instantiate")) {
+            Plugin[] plugins = newPlugins(classNames);
+            phase.count("plugins", plugins.length);
+            return plugins;
         }
+    }
 
+    private static Plugin[] newPlugins(Collection<String> classNames) {
         ArrayList<Plugin> plugins = new ArrayList<>();
-        for (Class<? extends Plugin> pluginClass : pluginClasses) {
-            if (ClassUtils.canInstantiated(pluginClass)) {
-                try {
-                    plugins.add(ClassUtils.newInstance(pluginClass));
-                } catch (NoSuchMethodException e) {
-                    throw new InitializationException(e);
+        for (String className : classNames) {
+            Class<?> aClass = ClassUtils.forName(className);
+            if (aClass == null || !Plugin.class.isAssignableFrom(aClass)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skip plugin [{}], because it cannot be loaded.", className);
                 }
+                continue;
+            }
+            // same as the scanned classes, the index may be written by other tools
+            int modifiers = aClass.getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || aClass.isInterface()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skip plugin [{}], because it isn't a public concrete class.", className);
+                }
+                continue;
+            }
+            try {
+                plugins.add(ClassUtils.newInstance(aClass.asSubclass(Plugin.class)));
+            } catch (NoSuchMethodException e) {
+                throw new InitializationException(e);
             }
         }
-
-        pluginClasses.clear();
         return plugins.toArray(new Plugin[plugins.size()]);
     }
 
-    private static void runPlugin(Set<Plugin> unrunPlugins, Class<?> entrance, CommandLineArgs args) {
-        assert unrunPlugins != null;
-
-        Set<Plugin> copy = new HashSet<>(unrunPlugins);
-
-        for (Plugin plugin : unrunPlugins) {
-            Class<?>[] dependencies = plugin.dependencies();
-            if (dependencies == null || dependencies.length == 0) {
-                plugin.launch(entrance, args);
-                copy.remove(plugin);
-            } else {
-                Set<Class<?>> depends = new HashSet<>(Arrays.asList(dependencies));
-                boolean dependsUnrun = false;
-                for (Plugin unrun : unrunPlugins) {
-                    Class<? extends Plugin> aClass = unrun.getClass();
-                    if (depends.contains(aClass)) {
-                        dependsUnrun = true;
-                        break;
+    /**
+     * Find the names of the public concrete plugin classes in specified locations.
+     * The plugin index of the location will be used, if it has. Otherwise,
+     * the location will be scanned, only the class files be read.
+     *
+     * @param locations the class path locations
+     * @param filter    the filter of packages
+     * @param phase     the phase to count the locations and classes
+     * @return the names of plugin classes
+     */
+    private static Set<String> findPluginClassNames(String[] locations, PackageFilter filter,
+                                                    BootTimeline.Phase phase) {
+        Set<String> classNames = new LinkedHashSet<>();
+        List<String> unindexed = new ArrayList<>();
+        try {
+            for (String location : locations) {
+                PluginIndex index = PluginIndex.load(location);
+                if (index == null) {
+                    unindexed.add(location);
+                } else {
+                    phase.count("indexedLocations", 1);
+                    for (PluginIndex.Entry entry : index.getEntries(PluginIndex.Kind.IMPLEMENTATION)) {
+                        String className = entry.getClassName();
+                        if (filter.accept(className.replace('.', '/') + ClassUtils.CLASS_EXTENSION)) {
+                            classNames.add(className);
+                        }
                     }
                 }
-                if (!dependsUnrun) {
-                    plugin.launch(entrance, args);
-                    copy.remove(plugin);
+            }
+
+            if (!unindexed.isEmpty()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Scan plugins from {} locations without index.", unindexed.size());
+                }
+                ScanCache cache = loadScanCache();
+                ScanResult result = new ClassPathScanner(ForkJoinPool.commonPool(), cache, filter)
+                        .scan(unindexed.toArray(new String[0]));
+                for (String location : result.getLocations()) {
+                    File file = new File(location);
+                    if (file.isDirectory()) {
+                        phase.count("scannedDirectories", 1);
+                    } else if (file.isFile()) {
+                        phase.count("scannedJars", 1);
+                    }
+                }
+                phase.count("scannedClasses", result.getClasses().size());
+                for (ClassMetadata metadata : result.getSubtypes(Plugin.class.getName())) {
+                    // the plugin must be instantiated by it's public constructor
+                    if (metadata.isConcrete() && metadata.isPublic()) {
+                        classNames.add(metadata.getClassName());
+                    }
                 }
+                saveScanCache(cache);
+            }
+        } catch (IOException e) {
+            throw new InitializationException(e);
+        }
+        return classNames;
+    }
+
+    private static String[] getPackagesProperty(String key) {
+        String value = System.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return new String[0];
+        }
+        List<String> packageNames = new ArrayList<>();
+        for (String packageName : value.split(",")) {
+            if (!packageName.trim().isEmpty()) {
+                packageNames.add(packageName.trim());
+            }
+        }
+        return packageNames.toArray(new String[0]);
+    }
+
+    private static ScanCache loadScanCache() {
+        String file = System.getProperty(SCAN_CACHE_PROPERTY);
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        return ScanCache.load(Paths.get(file));
+    }
+
+    private static void saveScanCache(ScanCache cache) {
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                // the next boot will scan again
+                logger.warn("Cannot save scan cache: {}", e.getMessage());
             }
         }
+    }
 
-        if (unrunPlugins.size() > 0) {
-            runPlugin(copy, entrance, args);
+    private static void runPlugins(PluginGraph graph, Class<?> entrance, CommandLineArgs args,
+                                   BootTimeline timeline) {
+        int width = 0;
+        for (List<Plugin> wave : graph.getWaves()) {
+            width = Math.max(width, wave.size());
+        }
+        int parallelism = Math.min(width, Integer.getInteger(BOOT_PARALLELISM_PROPERTY,
+                Runtime.getRuntime().availableProcessors()));
+        if (parallelism <= 1) {
+            launchPlugins(graph, Runnable::run, entrance, args, timeline);
+            return;
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "newyear-boot-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            launchPlugins(graph, executor, entrance, args, timeline);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void launchPlugins(PluginGraph graph, Executor executor, Class<?> entrance,
+                                      CommandLineArgs args, BootTimeline timeline) {
+        try {
+            PLUGIN_LOADER.boot(() -> graph.launch(task -> executor.execute(() -> PLUGIN_LOADER.boot(task)),
+                    entrance, args, timeline, PLUGIN_LOADER::markLaunched));
+        } catch (RuntimeException | Error e) {
+            // release the deferred plugins, what are waiting the failed wave
+            PLUGIN_LOADER.abort();
+            throw e;
+        }
+    }
+
+    private static void saveSnapshot(BootSnapshot snapshot, String file) {
+        try {
+            snapshot.save(Paths.get(file));
+        } catch (IOException e) {
+            // the next boot will resolve again
+            logger.warn("Cannot save boot snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static void writeClassList(Plugin[] plugins, String file) {
+        ClassListRecorder recorder = new ClassListRecorder();
+        recorder.record(Bootstrap.class);
+        for (Plugin plugin : plugins) {
+            recorder.record(plugin.getClass());
+        }
+        try {
+            recorder.write(Paths.get(file));
+            if (logger.isInfoEnabled()) {
+                logger.info("Recorded {} classes to [{}].", recorder.getClassNames().size(), file);
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot write class list: {}", e.getMessage());
+        }
+    }
+
+    private static void reportTimeline(BootTimeline timeline) {
+        timeline.log(logger);
+        String file = System.getProperty(BOOT_TIMELINE_PROPERTY);
+        if (file != null && !file.isEmpty()) {
+            try {
+                timeline.write(Paths.get(file));
+            } catch (IOException e) {
+                logger.warn("Cannot write boot timeline: {}", e.getMessage());
+            }
         }
     }
 
@@ -0,0 +1,113 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import com.apehat.newyear.util.TypeHierarchy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The recorder of the classes should be archived, what writes a class list
+ * in the format of the AppCDS tooling of JDK (i.e. the argument of
+ * {@code -XX:SharedClassListFile}), a internal class name per line.
+ * <p>
+ * The classes loaded in training run be dumped by the JVM itself, with
+ * {@code -XX:DumpLoadedClassList}. This recorder only writes the classes
+ * be recorded by {@link #record(Class)} explicitly (e.g. the plugins), they
+ * will be appended to the dumped list, before the archive be dumped.
+ * <p>
+ * The supertypes of each class be written before it, the classes cannot
+ * be archived (arrays, primitives, anonymous and lambda classes) will be
+ * skipped.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class ClassListRecorder {
+
+    private final Set<String> classNames = new LinkedHashSet<>();
+
+    /**
+     * Record specified class, and it's supertypes.
+     *
+     * @param aClass the class to record
+     * @throws NullPointerException specified class is null
+     */
+    public synchronized void record(Class<?> aClass) {
+        Objects.requireNonNull(aClass, "Must specified class.");
+        if (!isArchivable(aClass)) {
+            return;
+        }
+        TypeHierarchy hierarchy = TypeHierarchy.of(aClass);
+        List<Class<?>> superclasses = hierarchy.getSuperclasses();
+        for (int i = superclasses.size() - 1; i >= 0; i--) {
+            add(superclasses.get(i));
+        }
+        for (Class<?> anInterface : hierarchy.getInterfaces()) {
+            add(anInterface);
+        }
+        add(aClass);
+    }
+
+    private void add(Class<?> aClass) {
+        if (isArchivable(aClass)) {
+            classNames.add(aClass.getName().replace('.', '/'));
+        }
+    }
+
+    private static boolean isArchivable(Class<?> aClass) {
+        return !aClass.isArray() && !aClass.isPrimitive() && !aClass.isAnonymousClass()
+                && !aClass.isSynthetic() && !aClass.getName().contains("$$Lambda");
+    }
+
+    /**
+     * Returns the recorded class names, in internal form.
+     *
+     * @return the recorded class names
+     */
+    public synchronized List<String> getClassNames() {
+        return new ArrayList<>(classNames);
+    }
+
+    /**
+     * Write the class list to specified file.
+     *
+     * @param file the class list file
+     * @throws IOException write file failure
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String className : getClassNames()) {
+                writer.write(className);
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import com.apehat.newyear.core.scan.PackageFilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The default {@link PluginScanner}, the filter will be compiled at the
+ * first getting after changed.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class DefaultPluginScanner implements PluginScanner {
+
+    private static final String[] EMPTY = new String[0];
+
+    private String[] packageNames = EMPTY;
+
+    private String[] ignoredPackageNames = EMPTY;
+
+    private PackageFilter filter = PackageFilter.ALL;
+
+    private boolean changed = false;
+
+    @Override
+    public synchronized PluginScanner setPluginScanPackages(String... packageNames) {
+        this.packageNames = copy(packageNames);
+        this.changed = true;
+        return this;
+    }
+
+    @Override
+    public synchronized PluginScanner setPluginScanIgnore(String... ignoredPackageNames) {
+        this.ignoredPackageNames = copy(ignoredPackageNames);
+        this.changed = true;
+        return this;
+    }
+
+    @Override
+    public synchronized PackageFilter getPackageFilter() {
+        if (changed) {
+            filter = PackageFilter.of(packageNames, ignoredPackageNames);
+            changed = false;
+        }
+        return filter;
+    }
+
+    private static String[] copy(String[] names) {
+        Objects.requireNonNull(names, "Must specified package names.");
+        String[] copy = Arrays.copyOf(names, names.length);
+        for (String name : copy) {
+            Objects.requireNonNull(name, "Package name cannot be null.");
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultPluginScanner{packages=" + Arrays.toString(packageNames)
+                + ", ignored=" + Arrays.toString(ignoredPackageNames) + "}";
+    }
+}
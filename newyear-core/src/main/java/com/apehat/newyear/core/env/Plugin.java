@@ -25,4 +25,15 @@ public interface Plugin {
     void launch(Class<?> entrance, CommandLineArgs args);
 
     Class<? extends Plugin>[] dependencies();
+
+    /**
+     * Determine whether this plugin should be launched lazily. A lazy plugin
+     * will be registered at booting, but be launched at the first access by
+     * {@link PluginLoader}, or when a launching plugin depends on it.
+     *
+     * @return true, if this plugin should be launched lazily
+     */
+    default boolean isLazy() {
+        return false;
+    }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import com.apehat.newyear.validation.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * The dependency graph of plugins. The plugins be sorted topologically at
+ * constructing, and be grouped as waves, the plugins of a wave only depend
+ * on the plugins of previous waves, so they can be launched concurrently.
+ * <p>
+ * The dependencies, what aren't in the graph, will be ignored. If the
+ * dependencies have a cycle, a {@link BootException} will be thrown at
+ * constructing, before any plugin be launched.
+ * <p>
+ * The {@link Plugin#isLazy() lazy} plugins, what aren't depended by any
+ * eager plugin (directly or indirectly), are deferred. They will not be
+ * launched by {@link #launch(Executor, Class, CommandLineArgs)}.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class PluginGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginGraph.class);
+
+    private final List<List<Plugin>> waves;
+
+    /**
+     * The dependencies of each plugin, within this graph.
+     */
+    private final Map<Plugin, List<Plugin>> dependencies = new IdentityHashMap<>();
+
+    private final Set<Plugin> deferred = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Build the graph of specified plugins.
+     *
+     * @param plugins the plugins
+     * @throws NullPointerException specified plugins is null
+     * @throws BootException        the dependencies of plugins have a cycle
+     */
+    public PluginGraph(Plugin... plugins) {
+        Objects.requireNonNull(plugins, "Must specified plugins.");
+
+        Map<Class<?>, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < plugins.length; i++) {
+            indexes.put(Objects.requireNonNull(plugins[i], "Plugin cannot be null.").getClass(), i);
+        }
+
+        // the dependents of each plugin, and the count of unlaunched dependencies
+        List<List<Integer>> dependents = new ArrayList<>(plugins.length);
+        int[] degrees = new int[plugins.length];
+        for (int i = 0; i < plugins.length; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < plugins.length; i++) {
+            List<Plugin> resolved = new ArrayList<>();
+            this.dependencies.put(plugins[i], Collections.unmodifiableList(resolved));
+            Class<?>[] dependencies = plugins[i].dependencies();
+            if (dependencies == null) {
+                continue;
+            }
+            for (Class<?> dependency : dependencies) {
+                Integer index = indexes.get(dependency);
+                if (index == null) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Ignore dependency [{}] of [{}], because it isn't found.",
+                                dependency, plugins[i].getClass());
+                    }
+                } else if (index != i) {
+                    dependents.get(index).add(i);
+                    degrees[i]++;
+                    resolved.add(plugins[index]);
+                }
+            }
+        }
+
+        List<List<Plugin>> waves = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < plugins.length; i++) {
+            if (degrees[i] == 0) {
+                current.add(i);
+            }
+        }
+        int sorted = 0;
+        while (!current.isEmpty()) {
+            List<Plugin> wave = new ArrayList<>(current.size());
+            List<Integer> next = new ArrayList<>();
+            for (int index : current) {
+                wave.add(plugins[index]);
+                for (int dependent : dependents.get(index)) {
+                    if (--degrees[dependent] == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            waves.add(Collections.unmodifiableList(wave));
+            sorted += current.size();
+            current = next;
+        }
+
+        if (sorted < plugins.length) {
+            StringJoiner cycle = new StringJoiner(" -> ", "[", "]");
+            for (Plugin plugin : findCycle(plugins, indexes, degrees)) {
+                cycle.add(plugin.getClass().getName());
+            }
+            throw new BootException("Plugins have cyclic dependencies: " + cycle);
+        }
+        this.waves = Collections.unmodifiableList(waves);
+
+        // the dependents always in later waves, so find the required plugins reversely
+        Set<Plugin> required = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = waves.size() - 1; i >= 0; i--) {
+            for (Plugin plugin : waves.get(i)) {
+                if (plugin.isLazy() && !required.contains(plugin)) {
+                    deferred.add(plugin);
+                } else {
+                    required.addAll(this.dependencies.get(plugin));
+                }
+            }
+        }
+    }
+
+    /**
+     * Find a cycle of the unsorted plugins. Each unsorted plugin has at least
+     * one unsorted dependency, so following them from any unsorted plugin
+     * must reach a plugin visited already, the plugins from it to the end of
+     * the path are the cycle. The plugins only depend on the cycle will not
+     * be included.
+     *
+     * @param plugins the plugins of graph
+     * @param indexes the indexes of plugins, by class
+     * @param degrees the count of unsorted dependencies of each plugin
+     * @return the plugins of cycle, the last one depends on the first one
+     */
+    private List<Plugin> findCycle(Plugin[] plugins, Map<Class<?>, Integer> indexes, int[] degrees) {
+        int current = 0;
+        while (degrees[current] == 0) {
+            current++;
+        }
+        List<Integer> path = new ArrayList<>();
+        while (!path.contains(current)) {
+            path.add(current);
+            for (Plugin dependency : this.dependencies.get(plugins[current])) {
+                int index = indexes.get(dependency.getClass());
+                if (degrees[index] > 0) {
+                    current = index;
+                    break;
+                }
+            }
+        }
+        List<Plugin> cycle = new ArrayList<>();
+        for (int index : path.subList(path.indexOf(current), path.size())) {
+            cycle.add(plugins[index]);
+        }
+        return cycle;
+    }
+
+    /**
+     * Returns the waves of plugins, in topological order.
+     *
+     * @return the unmodifiable list of waves
+     */
+    public List<List<Plugin>> getWaves() {
+        return waves;
+    }
+
+    /**
+     * Returns the dependencies of specified plugin, what in this graph.
+     *
+     * @param plugin the plugin in this graph
+     * @return the unmodifiable list of dependencies, or empty list if the
+     * plugin isn't in this graph
+     */
+    public List<Plugin> getDependencies(Plugin plugin) {
+        List<Plugin> list = dependencies.get(plugin);
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * Determine whether specified plugin is deferred, i.e. it's lazy, and
+     * no eager plugin depends on it.
+     *
+     * @param plugin the plugin in this graph
+     * @return true, if the plugin is deferred
+     */
+    public boolean isDeferred(Plugin plugin) {
+        return deferred.contains(plugin);
+    }
+
+    /**
+     * Launch the plugins, except the deferred plugins, wave by wave. The
+     * plugins of a wave will be launched on specified executor concurrently,
+     * and the next wave will be launched after all of them completed. A wave
+     * only has one plugin will be launched on current thread.
+     *
+     * @param executor the executor to launch plugins
+     * @param entrance the entrance class
+     * @param args     the command line args
+     * @throws NullPointerException specified executor is null
+     * @throws BootException        any plugin launch failure
+     */
+    public void launch(Executor executor, Class<?> entrance, CommandLineArgs args) {
+        launch(executor, entrance, args, null);
+    }
+
+    /**
+     * Launch the plugins wave by wave, and record the launch of each plugin
+     * to specified timeline.
+     *
+     * @param executor the executor to launch plugins
+     * @param entrance the entrance class
+     * @param args     the command line args
+     * @param timeline the timeline to record, or null if needn't record
+     * @throws NullPointerException specified executor is null
+     * @throws BootException        any plugin launch failure
+     * @see #launch(Executor, Class, CommandLineArgs)
+     */
+    public void launch(Executor executor, Class<?> entrance, CommandLineArgs args,
+                       @Nullable BootTimeline timeline) {
+        launch(executor, entrance, args, timeline, null);
+    }
+
+    /**
+     * Launch the plugins wave by wave, and notify specified listener after
+     * all plugins of a wave launched, before the next wave be launched.
+     *
+     * @param executor the executor to launch plugins
+     * @param entrance the entrance class
+     * @param args     the command line args
+     * @param timeline the timeline to record, or null if needn't record
+     * @param listener the listener to accept the launched plugins of each
+     *                 wave, or null if needn't notify
+     * @throws NullPointerException specified executor is null
+     * @throws BootException        any plugin launch failure
+     * @see #launch(Executor, Class, CommandLineArgs)
+     */
+    public void launch(Executor executor, Class<?> entrance, CommandLineArgs args,
+                       @Nullable BootTimeline timeline, @Nullable Consumer<List<Plugin>> listener) {
+        Objects.requireNonNull(executor, "Must specified executor.");
+
+        for (List<Plugin> plugins : waves) {
+            List<Plugin> wave = new ArrayList<>(plugins.size());
+            for (Plugin plugin : plugins) {
+                if (!deferred.contains(plugin)) {
+                    wave.add(plugin);
+                }
+            }
+            if (wave.isEmpty()) {
+                continue;
+            }
+            if (wave.size() == 1) {
+                launch(wave.get(0), entrance, args, timeline);
+            } else {
+                launchConcurrently(executor, wave, entrance, args, timeline);
+            }
+            if (listener != null) {
+                listener.accept(Collections.unmodifiableList(wave));
+            }
+        }
+    }
+
+    private static void launchConcurrently(Executor executor, List<Plugin> wave, Class<?> entrance,
+                                           CommandLineArgs args, @Nullable BootTimeline timeline) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[wave.size()];
+        for (int i = 0; i < futures.length; i++) {
+            Plugin plugin = wave.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> launch(plugin, entrance, args, timeline), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BootException) {
+                throw (BootException) cause;
+            }
+            throw new BootException(cause);
+        }
+    }
+
+    private static void launch(Plugin plugin, Class<?> entrance, CommandLineArgs args, BootTimeline timeline) {
+        long begin = System.nanoTime();
+        try {
+            plugin.launch(entrance, args);
+            if (timeline != null) {
+                timeline.recordLaunch(plugin.getClass(), begin, System.nanoTime() - begin);
+            }
+        } catch (RuntimeException | Error e) {
+            throw new BootException("Launch plugin [" + plugin.getClass().getName() + "] failure.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PluginGraph{waves=" + waves + "}";
+    }
+}
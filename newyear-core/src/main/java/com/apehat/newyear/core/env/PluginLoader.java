@@ -45,9 +45,20 @@ public interface PluginLoader {
     void loadPlugin(Plugin plugin);
 
     /**
-     * Returns all plugins of current loader
+     * Returns all plugins of current loader. The lazy plugins will be
+     * launched, if they haven't been launched.
      *
-     * @return the type in this manager
+     * @return the plugins in this loader
      */
-    Plugin getPlugins();
+    Plugin[] getPlugins();
+
+    /**
+     * Returns the plugin of specified class. The plugin will be launched, if
+     * it's lazy and hasn't been launched.
+     *
+     * @param pluginClass the class of plugin
+     * @param <T>         the type of plugin
+     * @return the plugin, or null if this loader hasn't the plugin
+     */
+    <T extends Plugin> T getPlugin(Class<T> pluginClass);
 }
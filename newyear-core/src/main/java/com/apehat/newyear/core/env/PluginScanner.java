@@ -16,7 +16,13 @@
 
 package com.apehat.newyear.core.env;
 
+import com.apehat.newyear.core.scan.PackageFilter;
+
 /**
+ * The configuration of plugin scanning. The scanned and ignored packages be
+ * compiled into a {@link PackageFilter}, what be consulted by the scanner
+ * before reading any class.
+ *
  * @author hanpengfei
  * @since 1.0
  */
@@ -31,7 +37,7 @@ public interface PluginScanner {
      * @return this
      * @see ConfigurableEnvironment#closePluginAutoScan()
      */
-    ConfigurableEnvironment setPluginScanPackages(String... packageNames);
+    PluginScanner setPluginScanPackages(String... packageNames);
 
     /**
      * Set the ignored type scan packages
@@ -40,5 +46,13 @@ public interface PluginScanner {
      * @return this
      * @see ConfigurableEnvironment#closePluginAutoScan()
      */
-    ConfigurableEnvironment setPluginScanIgnore(String... ignoredPackageNames);
+    PluginScanner setPluginScanIgnore(String... ignoredPackageNames);
+
+    /**
+     * Returns the filter compiled from the scan packages and the ignored
+     * packages.
+     *
+     * @return the filter of packages
+     */
+    PackageFilter getPackageFilter();
 }
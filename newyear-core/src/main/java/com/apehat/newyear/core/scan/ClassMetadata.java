@@ -0,0 +1,182 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import org.objectweb.asm.Opcodes;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The metadata of a class, what be read from class file directly, without
+ * loading the class.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ClassMetadataReader
+ */
+public final class ClassMetadata {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final String className;
+    private final String superclassName;
+    private final String[] interfaceNames;
+    private final String[] annotationNames;
+    private final int access;
+
+    ClassMetadata(String className, String superclassName, String[] interfaceNames,
+                  String[] annotationNames, int access) {
+        this.className = Objects.requireNonNull(className, "Must specified class name.");
+        this.superclassName = superclassName;
+        this.interfaceNames = interfaceNames == null ? EMPTY : interfaceNames;
+        this.annotationNames = annotationNames == null ? EMPTY : annotationNames;
+        this.access = access;
+    }
+
+    /**
+     * Returns the global qualified name of the class.
+     *
+     * @return the name of class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the package name of the class.
+     *
+     * @return the package name, or empty string, if the class in default
+     * package
+     */
+    public String getPackageName() {
+        int index = className.lastIndexOf('.');
+        return index < 0 ? "" : className.substring(0, index);
+    }
+
+    /**
+     * Returns the global qualified name of the superclass.
+     *
+     * @return the name of superclass, or null if the class is
+     * {@code java.lang.Object}
+     */
+    public String getSuperclassName() {
+        return superclassName;
+    }
+
+    /**
+     * Returns the names of the interfaces, what be directly implemented by
+     * the class.
+     *
+     * @return the names of interfaces
+     */
+    public String[] getInterfaceNames() {
+        return interfaceNames.clone();
+    }
+
+    /**
+     * Returns the names of the annotations, what directly present on the
+     * class, include the invisible annotations.
+     *
+     * @return the names of annotations
+     */
+    public String[] getAnnotationNames() {
+        return annotationNames.clone();
+    }
+
+    /**
+     * Returns the access flags of the class.
+     *
+     * @return the access flags
+     * @see Opcodes#ACC_PUBLIC
+     */
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * Determine whether the specified annotation directly present on the
+     * class.
+     *
+     * @param annotationName the name of annotation
+     * @return true, if the annotation present
+     */
+    public boolean hasAnnotation(String annotationName) {
+        for (String name : annotationNames) {
+            if (name.equals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isPublic() {
+        return (access & Opcodes.ACC_PUBLIC) != 0;
+    }
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAbstract() {
+        return (access & Opcodes.ACC_ABSTRACT) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (access & Opcodes.ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (access & Opcodes.ACC_ENUM) != 0;
+    }
+
+    /**
+     * Determine the class can instantiated, i.e. the class isn't interface,
+     * abstract class, annotation or enum.
+     *
+     * @return true, if the class can instantiated
+     * @see com.apehat.newyear.util.ClassUtils#canInstantiated(Class)
+     */
+    public boolean isConcrete() {
+        return !isInterface() && !isAbstract() && !isAnnotation() && !isEnum();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ClassMetadata that = (ClassMetadata) o;
+        return access == that.access && className.equals(that.className)
+                && Objects.equals(superclassName, that.superclassName)
+                && Arrays.equals(interfaceNames, that.interfaceNames)
+                && Arrays.equals(annotationNames, that.annotationNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return className.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ClassMetadata{" + className + '}';
+    }
+}
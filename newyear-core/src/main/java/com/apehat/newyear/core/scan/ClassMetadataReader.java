@@ -0,0 +1,120 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read the {@link ClassMetadata} from the bytes of class file, by ASM. Only
+ * the header of class file (access flags, names of class, superclass and
+ * interfaces, and annotations) will be visited, the code of methods will
+ * be skipped.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class ClassMetadataReader {
+
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG
+            | ClassReader.SKIP_FRAMES;
+
+    private ClassMetadataReader() {
+    }
+
+    /**
+     * Read the metadata of the class file.
+     *
+     * @param bytes the bytes of class file
+     * @return the metadata of class
+     * @throws NullPointerException     specified bytes is null
+     * @throws IllegalArgumentException the bytes isn't a supported class file
+     */
+    public static ClassMetadata read(byte[] bytes) {
+        Objects.requireNonNull(bytes, "Must specified class file bytes.");
+        return read(new ClassReader(bytes));
+    }
+
+    /**
+     * Read the metadata of the class file.
+     *
+     * @param in the input stream of class file, will not be closed
+     * @return the metadata of class
+     * @throws IOException              read class file failure
+     * @throws NullPointerException     specified input stream is null
+     * @throws IllegalArgumentException the stream isn't a supported class file
+     */
+    public static ClassMetadata read(InputStream in) throws IOException {
+        Objects.requireNonNull(in, "Must specified class file input stream.");
+        return read(new ClassReader(in));
+    }
+
+    private static ClassMetadata read(ClassReader reader) {
+        MetadataVisitor visitor = new MetadataVisitor();
+        reader.accept(visitor, PARSING_OPTIONS);
+        return visitor.toMetadata();
+    }
+
+    private static String toClassName(String internalName) {
+        return internalName == null ? null : internalName.replace('/', '.');
+    }
+
+    private static final class MetadataVisitor extends ClassVisitor {
+
+        private final List<String> annotationNames = new ArrayList<>();
+        private String className;
+        private String superclassName;
+        private String[] interfaceNames;
+        private int access;
+
+        private MetadataVisitor() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature,
+                          String superName, String[] interfaces) {
+            this.access = access;
+            this.className = toClassName(name);
+            this.superclassName = toClassName(superName);
+            this.interfaceNames = new String[interfaces == null ? 0 : interfaces.length];
+            for (int i = 0; i < interfaceNames.length; i++) {
+                interfaceNames[i] = toClassName(interfaces[i]);
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            annotationNames.add(Type.getType(descriptor).getClassName());
+            return null;
+        }
+
+        private ClassMetadata toMetadata() {
+            return new ClassMetadata(className, superclassName, interfaceNames,
+                    annotationNames.toArray(new String[0]), access);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The fingerprint of class path, i.e. a 64 bits hash of the locations and
+ * their contents. The jar files be hashed by their sizes, modified times
+ * and the tails (same as {@link ScanCache}), the directories be hashed by
+ * the paths, sizes and modified times of all files in them, but their
+ * contents will not be read.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class ClassPathFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    private ClassPathFingerprint() {
+    }
+
+    /**
+     * Compute the fingerprint of specified locations, and the extra values
+     * (e.g. the configurations affect the result of scanning).
+     *
+     * @param locations the class path locations
+     * @param extras    the extra values, what will be hashed too
+     * @return the fingerprint
+     * @throws IOException read the jar file failure
+     */
+    public static long compute(String[] locations, String... extras) throws IOException {
+        Objects.requireNonNull(locations, "Must specified locations.");
+
+        ClassPathFingerprint fingerprint = new ClassPathFingerprint();
+        for (String extra : extras) {
+            fingerprint.update(String.valueOf(extra));
+        }
+        for (String location : locations) {
+            fingerprint.update(location);
+            File file = new File(location);
+            if (file.isDirectory()) {
+                fingerprint.updateDirectory(file, "");
+            } else {
+                ScanCache.Fingerprint jar = ScanCache.Fingerprint.of(file);
+                if (jar == null) {
+                    // not exists, or isn't a jar - only it's existence
+                    fingerprint.update(file.exists() ? 1 : 0);
+                } else {
+                    fingerprint.update(jar.getSize());
+                    fingerprint.update(jar.getLastModified());
+                    fingerprint.update(jar.getHash());
+                }
+            }
+        }
+        return fingerprint.hash;
+    }
+
+    private void updateDirectory(File directory, String path) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        // the order of listing isn't specified
+        Arrays.sort(files);
+        for (File file : files) {
+            String childPath = path + file.getName();
+            if (file.isDirectory()) {
+                updateDirectory(file, childPath + '/');
+            } else {
+                update(childPath);
+                update(file.length());
+                update(file.lastModified());
+            }
+        }
+    }
+
+    private void update(String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * PRIME;
+        }
+        // separate the values
+        hash = (hash ^ 0xFF) * PRIME;
+    }
+
+    private void update(long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xFF)) * PRIME;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.util.ClassUtils;
+import com.apehat.newyear.util.ResourceUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipException;
+
+/**
+ * Scan the class files in the class path locations (directories and jar
+ * files), and read their metadata without loading them.
+ * <p>
+ * The scanning be split across the locations, the directory subtrees and
+ * the entry ranges of jar files, on a {@link ForkJoinPool}. Each task
+ * returns it's own list, and the lists be concatenated when joining, so
+ * the result keeps the order of sequential scanning, without any lock.
+ * <p>
+ * The jar files be read by {@link MappedJarReader}, the entry names be
+ * filtered as byte slices before any string created. The jar files can't
+ * be mapped (e.g. zip64) will be read by {@link JarFile}.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ClassMetadataReader
+ */
+public class ClassPathScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassPathScanner.class);
+
+    private static final String META_INF = "META-INF/";
+    private static final String PACKAGE_INFO = "package-info" + ClassUtils.CLASS_EXTENSION;
+    private static final String MODULE_INFO = "module-info" + ClassUtils.CLASS_EXTENSION;
+
+    private static final byte[] CLASS_EXTENSION_BYTES = ClassUtils.CLASS_EXTENSION.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] META_INF_BYTES = META_INF.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PACKAGE_INFO_BYTES = PACKAGE_INFO.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MODULE_INFO_BYTES = MODULE_INFO.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The minimum number of jar entries, what worth to be split.
+     */
+    private static final int JAR_SPLIT_THRESHOLD = 512;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * The cache of scanned jars, or null if no cache.
+     */
+    private final ScanCache cache;
+
+    private final PackageFilter filter;
+
+    /**
+     * Create a scanner, what scan on the common pool.
+     */
+    public ClassPathScanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a scanner, what scan on the specified pool.
+     *
+     * @param pool the pool to scan
+     * @throws NullPointerException specified pool is null
+     */
+    public ClassPathScanner(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Create a scanner, what scan on the specified pool, and only scan the
+     * jars, what changed since they be cached. The cache should be saved by
+     * caller, after scanning.
+     *
+     * @param pool  the pool to scan
+     * @param cache the cache of scanned jars, or null if no cache
+     * @throws NullPointerException specified pool is null
+     */
+    public ClassPathScanner(ForkJoinPool pool, ScanCache cache) {
+        this(pool, cache, PackageFilter.ALL);
+    }
+
+    /**
+     * Create a scanner, what only scan the classes accepted by specified
+     * filter. The directories and jar entries will be tested before reading,
+     * and the subtrees cannot contain accepted classes will be skipped.
+     * <p>
+     * The cache will only be updated by the scanning without filter, but
+     * the cached results can be used by any scanning.
+     *
+     * @param pool   the pool to scan
+     * @param cache  the cache of scanned jars, or null if no cache
+     * @param filter the filter of packages
+     * @throws NullPointerException specified pool or filter is null
+     */
+    public ClassPathScanner(ForkJoinPool pool, ScanCache cache, PackageFilter filter) {
+        this.pool = Objects.requireNonNull(pool, "Must specified pool.");
+        this.cache = cache;
+        this.filter = Objects.requireNonNull(filter, "Must specified filter.");
+    }
+
+    /**
+     * Scan the current class path.
+     *
+     * @return the result of scanning
+     * @throws IOException read class path failure
+     * @see ClassUtils#getClassPaths()
+     */
+    public ScanResult scanClassPath() throws IOException {
+        return scan(ClassUtils.getClassPaths());
+    }
+
+    /**
+     * Scan the specified locations in parallel. The locations don't exist
+     * will be ignored.
+     *
+     * @param locations the locations of directories or jar files
+     * @return the result of scanning
+     * @throws IOException          read location failure
+     * @throws NullPointerException specified locations is null
+     */
+    public ScanResult scan(String... locations) throws IOException {
+        Objects.requireNonNull(locations, "Must specified locations");
+
+        Map<String, LocationTask> tasks = new LinkedHashMap<>();
+        for (String location : locations) {
+            tasks.putIfAbsent(location, new LocationTask(location));
+        }
+        invoke(new LocationsTask(tasks.values()));
+
+        Map<String, List<ClassMetadata>> scanned = new LinkedHashMap<>();
+        for (Map.Entry<String, LocationTask> entry : tasks.entrySet()) {
+            scanned.put(entry.getKey(), entry.getValue().getRawResult());
+        }
+        return new ScanResult(scanned);
+    }
+
+    /**
+     * Scan the class files in specified location. The directory subtrees,
+     * and the entry ranges of big jar, will be scanned in parallel.
+     *
+     * @param location the location of directory or jar file
+     * @return the metadata of classes in location, or empty list if the
+     * location doesn't exist
+     * @throws IOException read location failure
+     */
+    protected List<ClassMetadata> scanLocation(String location) throws IOException {
+        File file = new File(location);
+        if (!file.exists()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Skip [{}], because is not exists in file system.", location);
+            }
+            return new ArrayList<>();
+        }
+        if (file.isDirectory()) {
+            return invoke(new DirectoryTask(file, "", filter));
+        }
+        if (ResourceUtils.isJarFile(file)) {
+            if (cache != null) {
+                List<ClassMetadata> cached = cache.get(location);
+                if (cached != null) {
+                    return filter(cached);
+                }
+            }
+
+            List<ClassMetadata> classes;
+            try {
+                classes = scanMappedJarFile(file);
+            } catch (ZipException e) {
+                // e.g. zip64 - fall back to jar file
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Cannot map [{}], fall back to jar file: {}", location, e.getMessage());
+                }
+                classes = scanJarFile(file);
+            }
+            if (cache != null && filter.isAll()) {
+                cache.put(location, classes);
+            }
+            return classes;
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Scan the jar file by {@link MappedJarReader}, the entry names will be
+     * filtered as byte slices, no string will be created for them.
+     */
+    private List<ClassMetadata> scanMappedJarFile(File file) throws IOException {
+        try (MappedJarReader reader = MappedJarReader.open(file)) {
+            int[] offsets = new int[reader.size()];
+            int[] count = {0};
+            reader.forEach(entry -> {
+                if (isCandidate(entry) && filter.accept(entry)) {
+                    offsets[count[0]++] = entry.offset();
+                }
+            });
+            return invoke(new MappedRangeTask(reader, offsets, 0, count[0]));
+        }
+    }
+
+    private List<ClassMetadata> scanJarFile(File file) throws IOException {
+        List<String> entryNames = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && isCandidate(entry.getName()) && filter.accept(entry.getName())) {
+                    entryNames.add(entry.getName());
+                }
+            }
+        }
+        return invoke(new JarRangeTask(file, entryNames, 0, entryNames.size()));
+    }
+
+    private List<ClassMetadata> filter(List<ClassMetadata> classes) {
+        if (filter.isAll()) {
+            return new ArrayList<>(classes);
+        }
+        List<ClassMetadata> accepted = new ArrayList<>();
+        for (ClassMetadata metadata : classes) {
+            if (filter.accept(metadata.getClassName().replace('.', '/') + ClassUtils.CLASS_EXTENSION)) {
+                accepted.add(metadata);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Invoke the task in current pool, if current thread is a worker,
+     * otherwise in the pool of this scanner.
+     */
+    private <T> T invoke(ForkJoinTask<T> task) throws IOException {
+        try {
+            return ForkJoinTask.inForkJoinPool() ? task.invoke() : pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class LocationTask extends RecursiveTask<List<ClassMetadata>> {
+
+        private static final long serialVersionUID = 2451962418880520338L;
+
+        private final String location;
+
+        private LocationTask(String location) {
+            this.location = location;
+        }
+
+        @Override
+        protected List<ClassMetadata> compute() {
+            try {
+                return scanLocation(location);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class LocationsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -5948744600838066905L;
+
+        private final Collection<LocationTask> tasks;
+
+        private LocationsTask(Collection<LocationTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    private static final class DirectoryTask extends RecursiveTask<List<ClassMetadata>> {
+
+        private static final long serialVersionUID = -5146829519780911316L;
+
+        private final File directory;
+        private final String path;
+        private final PackageFilter filter;
+
+        private DirectoryTask(File directory, String path, PackageFilter filter) {
+            this.directory = directory;
+            this.path = path;
+            this.filter = filter;
+        }
+
+        @Override
+        protected List<ClassMetadata> compute() {
+            List<ClassMetadata> classes = new ArrayList<>();
+            List<DirectoryTask> subtrees = new ArrayList<>();
+            File[] files = directory.listFiles();
+            for (int i = 0; files != null && i < files.length; i++) {
+                File child = files[i];
+                String childPath = path + child.getName();
+                if (child.isDirectory()) {
+                    if (filter.mayContain(childPath + '/')) {
+                        DirectoryTask subtree = new DirectoryTask(child, childPath + '/', filter);
+                        subtree.fork();
+                        subtrees.add(subtree);
+                    }
+                } else if (isCandidate(childPath) && filter.accept(childPath)) {
+                    try (InputStream in = new FileInputStream(child)) {
+                        read(childPath, in, classes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+            for (DirectoryTask subtree : subtrees) {
+                classes.addAll(subtree.join());
+            }
+            return classes;
+        }
+    }
+
+    private static final class JarRangeTask extends RecursiveTask<List<ClassMetadata>> {
+
+        private static final long serialVersionUID = -1180467722418564037L;
+
+        private final File file;
+        private final List<String> entryNames;
+        private final int from;
+        private final int to;
+
+        private JarRangeTask(File file, List<String> entryNames, int from, int to) {
+            this.file = file;
+            this.entryNames = entryNames;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ClassMetadata> compute() {
+            if (to - from > JAR_SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                JarRangeTask right = new JarRangeTask(file, entryNames, middle, to);
+                right.fork();
+                List<ClassMetadata> classes = new JarRangeTask(file, entryNames, from, middle).compute();
+                classes.addAll(right.join());
+                return classes;
+            }
+
+            List<ClassMetadata> classes = new ArrayList<>(to - from);
+            if (from == to) {
+                return classes;
+            }
+            // each range has it's own jar file, to inflate in parallel
+            try (JarFile jarFile = new JarFile(file)) {
+                for (int i = from; i < to; i++) {
+                    String name = entryNames.get(i);
+                    try (InputStream in = jarFile.getInputStream(jarFile.getEntry(name))) {
+                        read(name, in, classes);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return classes;
+        }
+    }
+
+    private static final class MappedRangeTask extends RecursiveTask<List<ClassMetadata>> {
+
+        private static final long serialVersionUID = 6513806766372805428L;
+
+        private final MappedJarReader reader;
+
+        /**
+         * The offsets of the candidate entries.
+         */
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+
+        private MappedRangeTask(MappedJarReader reader, int[] offsets, int from, int to) {
+            this.reader = reader;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ClassMetadata> compute() {
+            if (to - from > JAR_SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                MappedRangeTask right = new MappedRangeTask(reader, offsets, middle, to);
+                right.fork();
+                List<ClassMetadata> classes = new MappedRangeTask(reader, offsets, from, middle).compute();
+                classes.addAll(right.join());
+                return classes;
+            }
+
+            List<ClassMetadata> classes = new ArrayList<>(to - from);
+            try {
+                for (int i = from; i < to; i++) {
+                    MappedJarReader.Entry entry = reader.entryAt(offsets[i]);
+                    try (InputStream in = entry.openStream()) {
+                        read(entry, in, classes);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return classes;
+        }
+    }
+
+    private static void read(Object path, InputStream in, List<ClassMetadata> classes) throws IOException {
+        try {
+            classes.add(ClassMetadataReader.read(in));
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            // the class file version, or attributes aren't supported, the
+            // class will be missing from scan result, so shouldn't be silent
+            logger.warn("Skip [{}], because cannot be read: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Determine whether the specified path (relative to the root of class
+     * path location, and separated by '/') may be a class file of a class.
+     *
+     * @param path the relative path
+     * @return true, if the path should be read
+     */
+    static boolean isCandidate(String path) {
+        return path.endsWith(ClassUtils.CLASS_EXTENSION) && !path.startsWith(META_INF)
+                && !path.endsWith(PACKAGE_INFO) && !path.endsWith(MODULE_INFO);
+    }
+
+    /**
+     * Same as {@link #isCandidate(String)}, but test the name as byte slice.
+     *
+     * @param entry the entry of mapped jar file
+     * @return true, if the entry should be read
+     */
+    static boolean isCandidate(MappedJarReader.Entry entry) {
+        return !entry.isDirectory() && entry.nameEndsWith(CLASS_EXTENSION_BYTES)
+                && !entry.nameStartsWith(META_INF_BYTES) && !entry.nameEndsWith(PACKAGE_INFO_BYTES)
+                && !entry.nameEndsWith(MODULE_INFO_BYTES);
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A lightweight reader of jar (zip) file, what maps the file into memory,
+ * and iterate the entries of the central directory directly.
+ * <p>
+ * The entries are visited by a reused {@link Entry} cursor, and their names
+ * can be tested as byte slices (e.g. {@link Entry#nameEndsWith(byte[])}),
+ * so the entries don't match need not allocate anything. The data of the
+ * stored entries can be accessed as zero-copy buffer, and the data of the
+ * deflated entries can be streamed.
+ * <p>
+ * The zip64 jar files aren't supported, and will be rejected at opening,
+ * the caller should fall back to {@link java.util.jar.JarFile}.
+ * <p>
+ * The mapped memory will be released, after this reader be garbage
+ * collected, it cannot be released by {@link #close()} on Java 8.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class MappedJarReader implements Closeable {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int CEN_LENGTH = 46;
+    private static final int LOC_LENGTH = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int centralDirectoryOffset;
+    private final int centralDirectoryEnd;
+    private final int entryCount;
+
+    private MappedJarReader(File file, ByteBuffer buffer, int centralDirectoryOffset,
+                            int centralDirectoryEnd, int entryCount) {
+        this.file = file;
+        this.buffer = buffer;
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.centralDirectoryEnd = centralDirectoryEnd;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Open the specified jar file.
+     *
+     * @param file the jar file
+     * @return the reader of jar file
+     * @throws IOException  read file failure
+     * @throws ZipException the file isn't a supported zip file
+     */
+    public static MappedJarReader open(File file) throws IOException {
+        Objects.requireNonNull(file, "Must specified file.");
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Unsupported zip64 file: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        int eocd = findEndOfCentralDirectory(buffer);
+        if (eocd < 0) {
+            throw new ZipException("Cannot find end of central directory: " + file);
+        }
+        int entryCount = Short.toUnsignedInt(buffer.getShort(eocd + 10));
+        long size = Integer.toUnsignedLong(buffer.getInt(eocd + 12));
+        long offset = Integer.toUnsignedLong(buffer.getInt(eocd + 16));
+        if (entryCount == 0xFFFF || offset == 0xFFFFFFFFL || offset + size > eocd) {
+            throw new ZipException("Unsupported zip64 file: " + file);
+        }
+        return new MappedJarReader(file, buffer, (int) offset, (int) (offset + size), entryCount);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+        int min = Math.max(0, buffer.limit() - EOCD_LENGTH - MAX_COMMENT_LENGTH);
+        for (int i = buffer.limit() - EOCD_LENGTH; i >= min; i--) {
+            if (buffer.getInt(i) == EOCD_SIGNATURE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the count of the entries, include the directories.
+     *
+     * @return the count of entries
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Visit all entries by a cursor. The cursor will be reused, and be
+     * valid only in the visiting.
+     *
+     * @param visitor the visitor of entries
+     * @throws ZipException the central directory is malformed
+     */
+    public void forEach(EntryVisitor visitor) throws ZipException {
+        Objects.requireNonNull(visitor, "Must specified visitor.");
+
+        Entry entry = new Entry();
+        int offset = centralDirectoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            entry.moveTo(offset);
+            visitor.visit(entry);
+            offset = entry.next;
+        }
+    }
+
+    /**
+     * Returns the entry, what the central directory header at specified
+     * offset. The offset can be got by {@link Entry#offset()} at visiting.
+     *
+     * @param offset the offset of central directory header
+     * @return a new cursor of the entry
+     * @throws ZipException the offset isn't a central directory header
+     */
+    public Entry entryAt(int offset) throws ZipException {
+        Entry entry = new Entry();
+        entry.moveTo(offset);
+        return entry;
+    }
+
+    @Override
+    public void close() {
+        // the mapped buffer will be released by gc
+    }
+
+    @Override
+    public String toString() {
+        return "MappedJarReader{" + file + '}';
+    }
+
+    /**
+     * The visitor of entries.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+
+        /**
+         * Visit an entry.
+         *
+         * @param entry the cursor of entry, only valid in this method
+         * @throws ZipException the entry is malformed
+         */
+        void visit(Entry entry) throws ZipException;
+    }
+
+    /**
+     * The cursor of an entry in central directory.
+     */
+    public final class Entry {
+
+        private int offset;
+        private int nameOffset;
+        private int nameLength;
+        private int next;
+
+        private Entry() {
+        }
+
+        private void moveTo(int offset) throws ZipException {
+            if (offset < centralDirectoryOffset || offset + CEN_LENGTH > centralDirectoryEnd
+                    || buffer.getInt(offset) != CEN_SIGNATURE) {
+                throw new ZipException("Malformed central directory at " + offset + " of " + file);
+            }
+            this.offset = offset;
+            this.nameOffset = offset + CEN_LENGTH;
+            this.nameLength = Short.toUnsignedInt(buffer.getShort(offset + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(offset + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(offset + 32));
+            this.next = nameOffset + nameLength + extraLength + commentLength;
+        }
+
+        /**
+         * Returns the offset of the central directory header of this entry.
+         *
+         * @return the offset of this entry
+         * @see #entryAt(int)
+         */
+        public int offset() {
+            return offset;
+        }
+
+        public int nameLength() {
+            return nameLength;
+        }
+
+        /**
+         * Returns the byte of the name (encoded by UTF-8) at specified index.
+         *
+         * @param index the index of byte
+         * @return the byte of name
+         */
+        public byte nameByteAt(int index) {
+            return buffer.get(nameOffset + index);
+        }
+
+        public boolean nameStartsWith(byte[] prefix) {
+            return prefix.length <= nameLength && regionMatches(0, prefix);
+        }
+
+        public boolean nameEndsWith(byte[] suffix) {
+            return suffix.length <= nameLength && regionMatches(nameLength - suffix.length, suffix);
+        }
+
+        private boolean regionMatches(int from, byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer.get(nameOffset + from + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the name of this entry. This method will allocate a new
+         * string, use the byte slice methods to filter entries.
+         *
+         * @return the name of entry
+         */
+        public String getName() {
+            byte[] bytes = new byte[nameLength];
+            for (int i = 0; i < nameLength; i++) {
+                bytes[i] = buffer.get(nameOffset + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public boolean isDirectory() {
+            return nameLength > 0 && nameByteAt(nameLength - 1) == '/';
+        }
+
+        public boolean isStored() {
+            return method() == STORED;
+        }
+
+        public int getSize() {
+            return buffer.getInt(offset + 24);
+        }
+
+        private int method() {
+            return Short.toUnsignedInt(buffer.getShort(offset + 10));
+        }
+
+        /**
+         * Returns the raw data of this entry, as read only buffer, what
+         * share the mapped memory.
+         *
+         * @return the raw data, i.e. the compressed data if the entry is
+         * compressed
+         * @throws ZipException the local header is malformed
+         */
+        public ByteBuffer rawData() throws ZipException {
+            int local = buffer.getInt(offset + 42);
+            if (local < 0 || local + LOC_LENGTH > centralDirectoryOffset
+                    || buffer.getInt(local) != LOC_SIGNATURE) {
+                throw new ZipException("Malformed local header of " + getName() + " in " + file);
+            }
+            int start = local + LOC_LENGTH + Short.toUnsignedInt(buffer.getShort(local + 26))
+                    + Short.toUnsignedInt(buffer.getShort(local + 28));
+            int compressedSize = buffer.getInt(offset + 20);
+            if (compressedSize < 0 || start + compressedSize > centralDirectoryOffset) {
+                throw new ZipException("Malformed size of " + getName() + " in " + file);
+            }
+            ByteBuffer data = buffer.duplicate();
+            // as Buffer, the covariant overrides of ByteBuffer don't exist on Java 8
+            ((Buffer) data).limit(start + compressedSize).position(start);
+            return data.slice().asReadOnlyBuffer();
+        }
+
+        /**
+         * Returns the data of this stored entry, without copy.
+         *
+         * @return the data of entry
+         * @throws ZipException the entry isn't stored, or malformed
+         */
+        public ByteBuffer data() throws ZipException {
+            if (!isStored()) {
+                throw new ZipException(getName() + " is compressed, cannot be accessed without copy.");
+            }
+            return rawData();
+        }
+
+        /**
+         * Open a stream to read the (decompressed) data of this entry.
+         *
+         * @return the stream of data
+         * @throws ZipException the compression method is unsupported, or the
+         *                      entry is malformed
+         */
+        public InputStream openStream() throws ZipException {
+            int method = method();
+            if (method == STORED) {
+                return new ByteBufferInputStream(rawData());
+            }
+            if (method == DEFLATED) {
+                return new EntryInflaterInputStream(rawData());
+            }
+            throw new ZipException("Unsupported compression method " + method + " of " + getName());
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+
+        private boolean eof = false;
+        private boolean closed = false;
+
+        private EntryInflaterInputStream(ByteBuffer data) {
+            super(new ByteBufferInputStream(data), new Inflater(true));
+        }
+
+        /**
+         * The inflater with "nowrap" may need an extra dummy byte, after
+         * the end of compressed data, same as {@link java.util.zip.ZipFile}.
+         */
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                inf.end();
+                super.close();
+            }
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The filter of packages, what be compiled from the included and ignored
+ * package names into a prefix trie of paths (e.g. {@code com/apehat/}).
+ * <p>
+ * A class is accepted, if the longest prefix matched it's package is
+ * included. If no prefix matched, the class is accepted only if no
+ * package be included, i.e. by default all packages are included. So an
+ * included package can be in an ignored package, and vice versa.
+ * <p>
+ * The scanners can test a directory by {@link #mayContain(String)}, to skip
+ * whole subtree, and test the entries of mapped jar files as byte slices,
+ * before reading any bytes of classes.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class PackageFilter {
+
+    /**
+     * The filter accepts all packages.
+     */
+    public static final PackageFilter ALL = new PackageFilter(new String[0], new String[0]);
+
+    private static final byte NONE = 0;
+    private static final byte INCLUDE = 1;
+    private static final byte IGNORE = 2;
+
+    private final Node root = new Node();
+
+    private final boolean includeAll;
+
+    private PackageFilter(String[] includes, String[] ignores) {
+        for (String include : includes) {
+            insert(include, INCLUDE);
+        }
+        for (String ignore : ignores) {
+            insert(ignore, IGNORE);
+        }
+        this.includeAll = !root.includeBelow && root.mark != INCLUDE;
+    }
+
+    /**
+     * Compile the specified included and ignored packages.
+     *
+     * @param includes the included package names, empty means include all
+     * @param ignores  the ignored package names
+     * @return the filter of packages
+     * @throws NullPointerException specified packages is null
+     */
+    public static PackageFilter of(String[] includes, String[] ignores) {
+        if (includes.length == 0 && ignores.length == 0) {
+            return ALL;
+        }
+        return new PackageFilter(includes, ignores);
+    }
+
+    private void insert(String packageName, byte mark) {
+        String path = packageName.trim().replace('.', '/');
+        if (!path.isEmpty() && !path.endsWith("/")) {
+            path += "/";
+        }
+        Node node = root;
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            if (mark == INCLUDE) {
+                node.includeBelow = true;
+            }
+            node = node.child(b, true);
+        }
+        // the ignoring override the including of same package
+        if (node.mark != IGNORE) {
+            node.mark = mark;
+        }
+    }
+
+    /**
+     * Determine whether this filter accepts all packages.
+     *
+     * @return true, if all packages will be accepted
+     */
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Determine whether the class of specified path should be scanned.
+     *
+     * @param path the path of class file, separated by '/', e.g.
+     *             {@code com/apehat/Foo.class}
+     * @return true, if the class should be scanned
+     */
+    public boolean accept(String path) {
+        int end = path.lastIndexOf('/') + 1;
+        byte last = root.mark;
+        Node node = root;
+        for (int i = 0; i < end && node != null; i++) {
+            char c = path.charAt(i);
+            if (c >= 0x80) {
+                return accept(path.substring(0, end).getBytes(StandardCharsets.UTF_8));
+            }
+            node = node.child((byte) c, false);
+            if (node != null && node.mark != NONE) {
+                last = node.mark;
+            }
+        }
+        return decide(last);
+    }
+
+    private boolean accept(byte[] packagePath) {
+        byte last = root.mark;
+        Node node = root;
+        for (int i = 0; i < packagePath.length && node != null; i++) {
+            node = node.child(packagePath[i], false);
+            if (node != null && node.mark != NONE) {
+                last = node.mark;
+            }
+        }
+        return decide(last);
+    }
+
+    /**
+     * Determine whether the entry of mapped jar file should be scanned, the
+     * name will be tested as byte slice.
+     *
+     * @param entry the entry of mapped jar file
+     * @return true, if the entry should be scanned
+     */
+    public boolean accept(MappedJarReader.Entry entry) {
+        int end = entry.nameLength();
+        while (end > 0 && entry.nameByteAt(end - 1) != '/') {
+            end--;
+        }
+        byte last = root.mark;
+        Node node = root;
+        for (int i = 0; i < end && node != null; i++) {
+            node = node.child(entry.nameByteAt(i), false);
+            if (node != null && node.mark != NONE) {
+                last = node.mark;
+            }
+        }
+        return decide(last);
+    }
+
+    /**
+     * Determine whether the directory of specified path may contains the
+     * classes should be scanned. If not, the whole subtree can be skipped.
+     *
+     * @param directory the path of directory, separated by '/', e.g.
+     *                  {@code com/apehat/}
+     * @return true, if the directory may contains the classes should be
+     * scanned
+     */
+    public boolean mayContain(String directory) {
+        String path = directory.isEmpty() || directory.endsWith("/") ? directory : directory + "/";
+        byte last = root.mark;
+        Node node = root;
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            node = node.child(b, false);
+            if (node == null) {
+                break;
+            }
+            if (node.mark != NONE) {
+                last = node.mark;
+            }
+        }
+        // a included package in the subtree
+        return (node != null && node.includeBelow) || decide(last);
+    }
+
+    private boolean decide(byte mark) {
+        return mark == NONE ? includeAll : mark == INCLUDE;
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "PackageFilter{all}" : "PackageFilter{includeAll=" + includeAll + "}";
+    }
+
+    private static final class Node {
+
+        private static final byte[] NO_KEYS = new byte[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private byte[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private byte mark = NONE;
+
+        /**
+         * Whether there is a included package below this node.
+         */
+        private boolean includeBelow;
+
+        private Node child(byte key, boolean create) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            Node child = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = key;
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
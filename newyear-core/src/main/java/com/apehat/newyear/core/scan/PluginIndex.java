@@ -0,0 +1,274 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.util.ResourceUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * The index of plugins, what be generated at build time, and be stored at
+ * {@link #LOCATION} of each jar (or class directory). So the plugins can be
+ * found without scanning the jar.
+ * <p>
+ * The index is a UTF-8 text file, each line is an entry, the fields are
+ * separated by tab, and the names are separated by comma:
+ * <pre>
+ *     kind  class-name  dependencies  starter-parameter-types
+ * </pre>
+ * The names are binary names (i.e. the names of {@link Class#getName()}).
+ * The lines start with '#' are comments.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class PluginIndex {
+
+    /**
+     * The location of index, relative to the root of class path location.
+     */
+    public static final String LOCATION = "META-INF/newyear/plugins.idx";
+
+    private static final String HEADER = "# newyear plugin index, generated at build time";
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final String NAME_SEPARATOR = ",";
+    private static final String[] EMPTY = new String[0];
+
+    private final List<Entry> entries;
+
+    /**
+     * Create an index of specified entries.
+     *
+     * @param entries the entries of index
+     * @throws NullPointerException specified entries is null
+     */
+    public PluginIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(
+                Objects.requireNonNull(entries, "Must specified entries.")));
+    }
+
+    /**
+     * Load the index of the specified class path location.
+     *
+     * @param location the location of directory or jar file
+     * @return the index, or null if the location hasn't index
+     * @throws IOException read index failure
+     */
+    public static PluginIndex load(String location) throws IOException {
+        File file = new File(location);
+        if (file.isDirectory()) {
+            File index = new File(file, LOCATION);
+            if (!index.isFile()) {
+                return null;
+            }
+            try (InputStream in = new FileInputStream(index)) {
+                return read(in);
+            }
+        }
+        if (file.exists() && ResourceUtils.isJarFile(file)) {
+            try (JarFile jarFile = new JarFile(file)) {
+                ZipEntry entry = jarFile.getEntry(LOCATION);
+                if (entry == null) {
+                    return null;
+                }
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    return read(in);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read an index.
+     *
+     * @param in the input stream of index, will not be closed
+     * @return the read index
+     * @throws IOException read index failure, or the index is malformed
+     */
+    public static PluginIndex read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Entry> entries = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] fields = line.split(String.valueOf(FIELD_SEPARATOR), -1);
+            if (fields.length != 4) {
+                throw new IOException("Malformed plugin index at line " + number + ": " + line);
+            }
+            Kind kind;
+            try {
+                kind = Kind.valueOf(fields[0]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown kind of plugin index at line " + number + ": " + fields[0]);
+            }
+            entries.add(new Entry(kind, fields[1], split(fields[2]), split(fields[3])));
+        }
+        return new PluginIndex(entries);
+    }
+
+    /**
+     * Write this index.
+     *
+     * @param out the output stream to write, will not be closed
+     * @throws IOException write index failure
+     */
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+        for (Entry entry : entries) {
+            writer.write(entry.kind.name());
+            writer.write(FIELD_SEPARATOR);
+            writer.write(entry.className);
+            writer.write(FIELD_SEPARATOR);
+            writer.write(String.join(NAME_SEPARATOR, entry.dependencies));
+            writer.write(FIELD_SEPARATOR);
+            writer.write(String.join(NAME_SEPARATOR, entry.starterParameterTypes));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Returns all entries of this index.
+     *
+     * @return the unmodifiable entries
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entries of specified kind.
+     *
+     * @param kind the kind of entries
+     * @return the entries of the kind
+     */
+    public List<Entry> getEntries(Kind kind) {
+        List<Entry> found = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.kind == kind) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    private static String[] split(String names) {
+        return names.isEmpty() ? EMPTY : names.split(NAME_SEPARATOR);
+    }
+
+    /**
+     * The kind of index entry.
+     */
+    public enum Kind {
+
+        /**
+         * The class annotated {@link com.apehat.newyear.core.annotation.Plugin}.
+         */
+        ANNOTATED,
+
+        /**
+         * The concrete class implemented {@link com.apehat.newyear.core.env.Plugin}.
+         */
+        IMPLEMENTATION
+    }
+
+    /**
+     * An entry of index.
+     */
+    public static final class Entry {
+
+        private final Kind kind;
+        private final String className;
+        private final String[] dependencies;
+        private final String[] starterParameterTypes;
+
+        /**
+         * Create an entry.
+         *
+         * @param kind                  the kind of entry
+         * @param className             the binary name of plugin class
+         * @param dependencies          the declared dependencies, or null
+         * @param starterParameterTypes the parameter types of starter
+         *                              constructor, or null
+         * @throws NullPointerException specified kind or class name is null
+         */
+        public Entry(Kind kind, String className, String[] dependencies, String[] starterParameterTypes) {
+            this.kind = Objects.requireNonNull(kind, "Must specified kind.");
+            this.className = Objects.requireNonNull(className, "Must specified class name.");
+            this.dependencies = dependencies == null ? EMPTY : dependencies.clone();
+            this.starterParameterTypes = starterParameterTypes == null ? EMPTY : starterParameterTypes.clone();
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Returns the binary names of declared dependencies, only the
+         * {@link Kind#ANNOTATED} entry has.
+         *
+         * @return the names of dependencies
+         */
+        public String[] getDependencies() {
+            return dependencies.clone();
+        }
+
+        /**
+         * Returns the names of the parameter types of starter constructor,
+         * i.e. the constructor annotated {@link com.apehat.newyear.core.annotation.Starter},
+         * or the only constructor. Only the {@link Kind#ANNOTATED} entry has.
+         * The primitive types are the keywords, e.g. "int".
+         *
+         * @return the names of parameter types
+         */
+        public String[] getStarterParameterTypes() {
+            return starterParameterTypes.clone();
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + className;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.util.ResourceUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of the scanned class metadata, key by the jar files.
+ * <p>
+ * Each cached jar has a fingerprint, i.e. the size, the last modified time
+ * and the hash of the tail (what contains the central directory, so the
+ * CRCs of all entries) of jar file. The jar will be rescanned only if the
+ * fingerprint changed. The directories are always rescanned, because their
+ * contents (e.g. the build output) are likely to be changed.
+ * <p>
+ * The cache only saves the jars used since it be loaded, so the jars
+ * removed from class path will be discarded.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ClassPathScanner#ClassPathScanner(java.util.concurrent.ForkJoinPool, ScanCache)
+ */
+public final class ScanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanCache.class);
+
+    private static final int MAGIC = 0x4E595343;
+    private static final int VERSION = 1;
+
+    /**
+     * The max length of the tail of jar to hash.
+     */
+    private static final int TAIL_LENGTH = 64 * 1024;
+
+    private final Path file;
+
+    private final Map<String, Cached> loaded;
+    private final Map<String, Cached> used = new ConcurrentHashMap<>();
+
+    private volatile boolean dirty = false;
+
+    private ScanCache(Path file, Map<String, Cached> loaded) {
+        this.file = file;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Load the cache from specified file. If the file doesn't exist, or
+     * cannot be read, an empty cache will be returned.
+     *
+     * @param file the cache file
+     * @return the loaded cache
+     * @throws NullPointerException specified file is null
+     */
+    public static ScanCache load(Path file) {
+        Objects.requireNonNull(file, "Must specified cache file.");
+
+        Map<String, Cached> loaded = new ConcurrentHashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                read(new DataInputStream(new BufferedInputStream(in)), Files.size(file), loaded);
+            } catch (IOException e) {
+                // the cache will be rebuilt
+                logger.warn("Cannot read scan cache [{}]: {}", file, e.getMessage());
+                loaded.clear();
+            }
+        }
+        return new ScanCache(file, loaded);
+    }
+
+    /**
+     * Returns the cached metadata of the classes in specified location.
+     *
+     * @param location the class path location
+     * @return the cached metadata, or null if the location isn't a jar,
+     * or the jar had be changed
+     * @throws IOException read the jar failure
+     */
+    List<ClassMetadata> get(String location) throws IOException {
+        Fingerprint fingerprint = Fingerprint.of(new File(location));
+        if (fingerprint == null) {
+            return null;
+        }
+        Cached cached = loaded.get(location);
+        if (cached == null || !cached.fingerprint.equals(fingerprint)) {
+            return null;
+        }
+        used.put(location, cached);
+        return cached.classes;
+    }
+
+    /**
+     * Cache the scanned metadata of the classes in specified location.
+     *
+     * @param location the class path location
+     * @param classes  the scanned metadata
+     * @throws IOException read the jar failure
+     */
+    void put(String location, List<ClassMetadata> classes) throws IOException {
+        Fingerprint fingerprint = Fingerprint.of(new File(location));
+        if (fingerprint != null) {
+            used.put(location, new Cached(fingerprint, Collections.unmodifiableList(new ArrayList<>(classes))));
+            dirty = true;
+        }
+    }
+
+    /**
+     * Save the cache, if any location be rescanned, or discarded.
+     *
+     * @throws IOException write cache file failure
+     */
+    public void save() throws IOException {
+        if (!dirty && used.size() == loaded.size()) {
+            return;
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                write(data, used);
+                data.flush();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        dirty = false;
+    }
+
+    private static void read(DataInputStream in, long size, Map<String, Cached> loaded) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unsupported scan cache format");
+        }
+        int locations = readCount(in, size);
+        for (int i = 0; i < locations; i++) {
+            String location = in.readUTF();
+            Fingerprint fingerprint = new Fingerprint(in.readLong(), in.readLong(), in.readLong());
+            int count = readCount(in, size);
+            List<ClassMetadata> classes = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                String className = in.readUTF();
+                String superclassName = in.readUTF();
+                int access = in.readInt();
+                String[] interfaceNames = readNames(in, size);
+                String[] annotationNames = readNames(in, size);
+                classes.add(new ClassMetadata(className, superclassName.isEmpty() ? null : superclassName,
+                        interfaceNames, annotationNames, access));
+            }
+            loaded.put(location, new Cached(fingerprint, Collections.unmodifiableList(classes)));
+        }
+    }
+
+    private static void write(DataOutputStream out, Map<String, Cached> cache) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(cache.size());
+        for (Map.Entry<String, Cached> entry : cache.entrySet()) {
+            Fingerprint fingerprint = entry.getValue().fingerprint;
+            out.writeUTF(entry.getKey());
+            out.writeLong(fingerprint.size);
+            out.writeLong(fingerprint.lastModified);
+            out.writeLong(fingerprint.hash);
+            out.writeInt(entry.getValue().classes.size());
+            for (ClassMetadata metadata : entry.getValue().classes) {
+                String superclassName = metadata.getSuperclassName();
+                out.writeUTF(metadata.getClassName());
+                out.writeUTF(superclassName == null ? "" : superclassName);
+                out.writeInt(metadata.getAccess());
+                writeNames(out, metadata.getInterfaceNames());
+                writeNames(out, metadata.getAnnotationNames());
+            }
+        }
+    }
+
+    /**
+     * Read the count of entries. Each entry takes 2 bytes at least, so the
+     * count of a valid cache never exceeds the half of the file size.
+     */
+    private static int readCount(DataInputStream in, long size) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > size / 2) {
+            throw new IOException("Invalid count [" + count + "] of scan cache");
+        }
+        return count;
+    }
+
+    private static String[] readNames(DataInputStream in, long size) throws IOException {
+        String[] names = new String[readCount(in, size)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
+    private static void writeNames(DataOutputStream out, String[] names) throws IOException {
+        out.writeInt(names.length);
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static final class Cached {
+
+        private final Fingerprint fingerprint;
+        private final List<ClassMetadata> classes;
+
+        private Cached(Fingerprint fingerprint, List<ClassMetadata> classes) {
+            this.fingerprint = fingerprint;
+            this.classes = classes;
+        }
+    }
+
+    /**
+     * The fingerprint of a jar file.
+     */
+    static final class Fingerprint {
+
+        private final long size;
+        private final long lastModified;
+        private final long hash;
+
+        private Fingerprint(long size, long lastModified, long hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        /**
+         * Compute the fingerprint of specified file.
+         *
+         * @param file the file
+         * @return the fingerprint, or null if the file isn't a jar file
+         * @throws IOException read file failure
+         */
+        static Fingerprint of(File file) throws IOException {
+            if (!file.isFile() || !ResourceUtils.isJarFile(file)) {
+                return null;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                long size = raf.length();
+                byte[] tail = new byte[(int) Math.min(size, TAIL_LENGTH)];
+                raf.seek(size - tail.length);
+                raf.readFully(tail);
+                CRC32 crc = new CRC32();
+                crc.update(tail);
+                return new Fingerprint(size, file.lastModified(), crc.getValue());
+            }
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        long getHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return size == that.size && lastModified == that.lastModified && hash == that.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified, hash);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The result of a scanning, i.e. the metadata of classes, key by the class
+ * path locations. The subtypes can be found by the metadata, without
+ * loading the classes.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ClassPathScanner
+ */
+public final class ScanResult {
+
+    private final Map<String, List<ClassMetadata>> locations;
+
+    /**
+     * The metadata of classes, key by class name. If there are same name
+     * classes in multiple locations, the first one will be used, same as
+     * the class loader.
+     */
+    private final Map<String, ClassMetadata> classes = new LinkedHashMap<>();
+
+    /**
+     * The subtype index, what be built at first using.
+     */
+    private volatile TypeIndex typeIndex;
+
+    ScanResult(Map<String, List<ClassMetadata>> locations) {
+        this.locations = Collections.unmodifiableMap(locations);
+        for (List<ClassMetadata> metadataList : locations.values()) {
+            for (ClassMetadata metadata : metadataList) {
+                classes.putIfAbsent(metadata.getClassName(), metadata);
+            }
+        }
+    }
+
+    /**
+     * Returns the scanned locations.
+     *
+     * @return the scanned locations
+     */
+    public Collection<String> getLocations() {
+        return locations.keySet();
+    }
+
+    /**
+     * Returns the metadata of classes in specified location.
+     *
+     * @param location the scanned location
+     * @return the metadata of classes, or empty list if the location wasn't
+     * scanned
+     */
+    public List<ClassMetadata> getClasses(String location) {
+        List<ClassMetadata> metadataList = locations.get(location);
+        return metadataList == null ? Collections.emptyList() : Collections.unmodifiableList(metadataList);
+    }
+
+    /**
+     * Returns the metadata of all scanned classes.
+     *
+     * @return the metadata of all classes
+     */
+    public Collection<ClassMetadata> getClasses() {
+        return Collections.unmodifiableCollection(classes.values());
+    }
+
+    /**
+     * Returns the metadata of specified class.
+     *
+     * @param className the name of class
+     * @return the metadata, or null if the class wasn't scanned
+     */
+    public ClassMetadata find(String className) {
+        return classes.get(className);
+    }
+
+    /**
+     * Returns the subtype index of the scanned classes.
+     *
+     * @return the subtype index
+     */
+    public TypeIndex getTypeIndex() {
+        TypeIndex index = typeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = typeIndex;
+                if (index == null) {
+                    index = new TypeIndex(classes.values());
+                    typeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the metadata of the scanned classes, what are the subtypes of
+     * the specified type, exclude the type itself.
+     * <p>
+     * The subtypes be found by the {@link #getTypeIndex() type index}, only
+     * the classes with incomplete hierarchies need be loaded.
+     *
+     * @param typeName the name of super type
+     * @return the metadata of subtypes
+     * @throws NullPointerException specified type name is null
+     */
+    public List<ClassMetadata> getSubtypes(String typeName) {
+        Objects.requireNonNull(typeName, "Must specified type name.");
+
+        TypeIndex index = getTypeIndex();
+        boolean exact = isExact(index, typeName);
+        BitSet found = exact ? index.getSubtypes(typeName) : new BitSet();
+
+        Map<String, Boolean> resolved = new HashMap<>();
+        List<ClassMetadata> subtypes = new ArrayList<>();
+        for (ClassMetadata metadata : classes.values()) {
+            String className = metadata.getClassName();
+            int id = index.getId(className);
+            if (found.get(id)) {
+                subtypes.add(metadata);
+            } else if ((!exact || !index.isComplete(id)) && !className.equals(typeName)
+                    && isSubtype(className, typeName, resolved)) {
+                subtypes.add(metadata);
+            }
+        }
+        return subtypes;
+    }
+
+    /**
+     * Determine whether the class of specified name is a subtype of (or
+     * same as) the specified type.
+     *
+     * @param className the name of class
+     * @param typeName  the name of type
+     * @return true, if the class is a subtype of the type
+     */
+    public boolean isSubtype(String className, String typeName) {
+        Objects.requireNonNull(className, "Must specified class name.");
+        Objects.requireNonNull(typeName, "Must specified type name.");
+
+        TypeIndex index = getTypeIndex();
+        if (index.isAssignable(className, typeName)) {
+            return true;
+        }
+        int id = index.getId(className);
+        if (id >= 0 && index.isScanned(id) && index.isComplete(id) && isExact(index, typeName)) {
+            return false;
+        }
+        return isSubtype(className, typeName, new HashMap<>());
+    }
+
+    /**
+     * Determine whether the index can find all subtypes of specified type,
+     * for the classes with complete hierarchies. The types of JDK weren't
+     * scanned, but the scanned classes may reach them by other types of JDK.
+     */
+    private static boolean isExact(TypeIndex index, String typeName) {
+        int typeId = index.getId(typeName);
+        return (typeId >= 0 && index.isScanned(typeId)) || !TypeIndex.isJdkType(typeName);
+    }
+
+    private boolean isSubtype(String className, String typeName, Map<String, Boolean> resolved) {
+        if (className.equals(typeName)) {
+            return true;
+        }
+        Boolean result = resolved.get(className);
+        if (result != null) {
+            return result;
+        }
+
+        ClassMetadata metadata = classes.get(className);
+        boolean subtype;
+        if (metadata == null) {
+            subtype = isSubtypeOfUnscanned(className, typeName);
+        } else {
+            String superclassName = metadata.getSuperclassName();
+            subtype = superclassName != null && isSubtype(superclassName, typeName, resolved);
+            for (String interfaceName : metadata.getInterfaceNames()) {
+                if (subtype) {
+                    break;
+                }
+                subtype = isSubtype(interfaceName, typeName, resolved);
+            }
+        }
+        resolved.put(className, subtype);
+        return subtype;
+    }
+
+    /**
+     * The class wasn't scanned (e.g. the classes of JDK), it must be loaded.
+     */
+    private boolean isSubtypeOfUnscanned(String className, String typeName) {
+        if ("java.lang.Object".equals(className)) {
+            return false;
+        }
+        // the classes of JDK cannot extend the scanned type
+        if (classes.containsKey(typeName) && TypeIndex.isJdkType(className)) {
+            return false;
+        }
+        Class<?> type = ClassUtils.forName(typeName);
+        Class<?> aClass = type == null ? null : ClassUtils.forName(className);
+        return aClass != null && type.isAssignableFrom(aClass);
+    }
+}
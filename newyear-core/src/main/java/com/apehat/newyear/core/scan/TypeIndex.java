@@ -0,0 +1,258 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The subtype index of scanned classes. Each type (include the scanned
+ * classes and the types they referenced as supertypes) has a dense integer
+ * id, and it's ancestors (include itself) be stored as a {@link BitSet}.
+ * So determine assignable is a bit test, and find subtypes is a scanning of
+ * bitsets, they needn't load any class.
+ * <p>
+ * The index only know the hierarchies of scanned classes, the types weren't
+ * scanned are regard as roots. If the ancestors of a type contain any type
+ * wasn't scanned, except the types of JDK, the type is
+ * {@link #isComplete(int) incomplete}, the caller should check it by
+ * loading the class.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ScanResult#getTypeIndex()
+ */
+public final class TypeIndex {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * The type names, index by id.
+     */
+    private String[] names;
+
+    /**
+     * The ancestors of types, index by id.
+     */
+    private BitSet[] ancestors;
+
+    /**
+     * The ids of the scanned types.
+     */
+    private final BitSet scanned = new BitSet();
+
+    /**
+     * The ids of the types, what has a ancestor (or itself) wasn't scanned,
+     * and isn't a type of JDK.
+     */
+    private final BitSet incomplete = new BitSet();
+
+    /**
+     * The subtypes of queried types, key by id.
+     */
+    private final ConcurrentMap<Integer, BitSet> subtypes = new ConcurrentHashMap<>();
+
+    TypeIndex(Collection<ClassMetadata> classes) {
+        Map<String, ClassMetadata> metadataMap = new HashMap<>(classes.size() * 2);
+        names = new String[classes.size() * 2 + 1];
+        for (ClassMetadata metadata : classes) {
+            metadataMap.put(metadata.getClassName(), metadata);
+            scanned.set(idOf(metadata.getClassName()));
+        }
+        for (ClassMetadata metadata : classes) {
+            if (metadata.getSuperclassName() != null) {
+                idOf(metadata.getSuperclassName());
+            }
+            for (String interfaceName : metadata.getInterfaceNames()) {
+                idOf(interfaceName);
+            }
+        }
+
+        ancestors = new BitSet[ids.size()];
+        for (int id = 0; id < ancestors.length; id++) {
+            computeAncestors(id, metadataMap);
+        }
+    }
+
+    private int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.size();
+            ids.put(name, id);
+            if (id == names.length) {
+                String[] copy = new String[names.length * 2];
+                System.arraycopy(names, 0, copy, 0, names.length);
+                names = copy;
+            }
+            names[id] = name;
+        }
+        return id;
+    }
+
+    private BitSet computeAncestors(int id, Map<String, ClassMetadata> metadataMap) {
+        BitSet bits = ancestors[id];
+        if (bits != null) {
+            return bits;
+        }
+        bits = new BitSet();
+        bits.set(id);
+        // set before the supertypes, so a (malformed) cycle will stop here
+        ancestors[id] = bits;
+
+        ClassMetadata metadata = metadataMap.get(names[id]);
+        if (metadata == null) {
+            if (!isJdkType(names[id])) {
+                incomplete.set(id);
+            }
+            return bits;
+        }
+        if (metadata.getSuperclassName() != null) {
+            inherit(id, ids.get(metadata.getSuperclassName()), metadataMap);
+        }
+        for (String interfaceName : metadata.getInterfaceNames()) {
+            inherit(id, ids.get(interfaceName), metadataMap);
+        }
+        return bits;
+    }
+
+    private void inherit(int id, int superId, Map<String, ClassMetadata> metadataMap) {
+        ancestors[id].or(computeAncestors(superId, metadataMap));
+        if (incomplete.get(superId)) {
+            incomplete.set(id);
+        }
+    }
+
+    static boolean isJdkType(String name) {
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    /**
+     * Returns the count of the types in this index.
+     *
+     * @return the count of types
+     */
+    public int size() {
+        return ancestors.length;
+    }
+
+    /**
+     * Returns the id of specified type.
+     *
+     * @param typeName the name of type
+     * @return the id of type, or -1 if the type isn't in this index
+     */
+    public int getId(String typeName) {
+        Integer id = ids.get(Objects.requireNonNull(typeName, "Must specified type name."));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name of the type of specified id.
+     *
+     * @param id the id of type
+     * @return the name of type
+     * @throws IndexOutOfBoundsException the id is out of this index
+     */
+    public String getName(int id) {
+        if (id < 0 || id >= ancestors.length) {
+            throw new IndexOutOfBoundsException("Unknown type id " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * Determine whether the type of specified id was scanned.
+     *
+     * @param id the id of type
+     * @return true, if the type was scanned
+     */
+    public boolean isScanned(int id) {
+        return scanned.get(id);
+    }
+
+    /**
+     * Determine whether the ancestors of the type of specified id are
+     * complete, i.e. all of them were scanned, or are the types of JDK.
+     *
+     * @param id the id of type
+     * @return true, if the ancestors are complete
+     */
+    public boolean isComplete(int id) {
+        return !incomplete.get(id);
+    }
+
+    /**
+     * Returns the ids of the ancestors of specified type, include itself.
+     *
+     * @param typeName the name of type
+     * @return the ids of ancestors, or empty bitset if the type isn't in
+     * this index
+     */
+    public BitSet getAncestors(String typeName) {
+        int id = getId(typeName);
+        return id < 0 ? new BitSet() : (BitSet) ancestors[id].clone();
+    }
+
+    /**
+     * Returns the ids of the subtypes of specified type, exclude itself.
+     *
+     * @param typeName the name of type
+     * @return the ids of subtypes, or empty bitset if the type isn't in this
+     * index
+     */
+    public BitSet getSubtypes(String typeName) {
+        int id = getId(typeName);
+        if (id < 0) {
+            return new BitSet();
+        }
+        return (BitSet) subtypes.computeIfAbsent(id, this::computeSubtypes).clone();
+    }
+
+    private BitSet computeSubtypes(int id) {
+        BitSet bits = new BitSet(ancestors.length);
+        for (int i = 0; i < ancestors.length; i++) {
+            if (i != id && ancestors[i].get(id)) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Determine whether the specified class is assignable to the specified
+     * type, by the scanned hierarchies.
+     *
+     * @param className the name of class
+     * @param typeName  the name of type
+     * @return true, if the class is the type, or the subtype of the type
+     */
+    public boolean isAssignable(String className, String typeName) {
+        int id = getId(className);
+        int typeId = getId(typeName);
+        return id >= 0 && typeId >= 0 && ancestors[id].get(typeId);
+    }
+
+    @Override
+    public String toString() {
+        return "TypeIndex{size=" + ancestors.length + ", scanned=" + scanned.cardinality() + "}";
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+/**
+ * Find the caller class by the stack trace. On Java 9+, this class be
+ * replaced with the version what walks the stack by {@code StackWalker},
+ * in multi-release jar.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ReflectionUtils#getCallerClass()
+ */
+final class CallerFinder {
+
+    private CallerFinder() {
+    }
+
+    /**
+     * Returns the caller of the class what calls
+     * {@link ReflectionUtils#getCallerClass()}.
+     *
+     * @return the caller class, or null if there is no caller
+     * @throws IllegalStateException load caller class failure.
+     */
+    static Class<?> getCallerClass() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        int i = 0;
+        while (i < stack.length && isInternal(stack[i].getClassName())) {
+            i++;
+        }
+        if (i == stack.length) {
+            return null;
+        }
+        String caller = stack[i].getClassName();
+
+        for (i++; i < stack.length; i++) {
+            String name = stack[i].getClassName();
+
+            if (!caller.equals(name)) {
+                ClassLoader cl = ClassUtils.getDefaultClassLoader();
+                if (cl == null) {
+                    cl = ReflectionUtils.class.getClassLoader();
+                }
+                Class<?> aClass = ClassUtils.forName(name, cl);
+                if (aClass == null) {
+                    throw new IllegalStateException("Load " + name + " failure");
+                }
+                return aClass;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInternal(String name) {
+        return name.equals(CallerFinder.class.getName()) || name.equals(ReflectionUtils.class.getName());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import com.apehat.newyear.validation.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The class resolver of a class loader, what caches the resolved classes,
+ * and the class names cannot be resolved.
+ * <p>
+ * The resolved classes be cached as weak references, and the resolvers be
+ * kept by weak keys of class loader, so the resolver will be released with
+ * it's class loader. The class names cannot be resolved be cached in a
+ * bounded set, so a missed class name will not pay for the loader delegation
+ * and the exception again.
+ * <p>
+ * If a class be defined after it be cached as missed, call
+ * {@link #invalidate()} to forget the missed class names.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class ClassResolver {
+
+    /**
+     * The max count of the missed class names, for each class loader.
+     */
+    static final int MAX_MISSED = 1024;
+
+    private static final Map<ClassLoader, ClassResolver> RESOLVERS = new WeakHashMap<>();
+
+    /**
+     * The resolver of bootstrap class loader.
+     */
+    private static final ClassResolver BOOTSTRAP = new ClassResolver(null);
+
+    /**
+     * The class loader of this resolver. Must not be referenced strongly,
+     * otherwise, the weak key of {@link #RESOLVERS} will never be cleared.
+     */
+    private final WeakReference<ClassLoader> loader;
+
+    private final ConcurrentMap<String, WeakReference<Class<?>>> resolved = new ConcurrentHashMap<>();
+
+    private final Set<String> missed = ConcurrentHashMap.newKeySet();
+
+    private ClassResolver(ClassLoader loader) {
+        this.loader = loader == null ? null : new WeakReference<>(loader);
+    }
+
+    /**
+     * Returns the resolver of specified class loader.
+     *
+     * @param loader the class loader, null means bootstrap class loader
+     * @return the resolver of specified class loader
+     */
+    public static ClassResolver of(@Nullable ClassLoader loader) {
+        if (loader == null) {
+            return BOOTSTRAP;
+        }
+        synchronized (RESOLVERS) {
+            return RESOLVERS.computeIfAbsent(loader, ClassResolver::new);
+        }
+    }
+
+    /**
+     * Resolve the class of specified name.
+     *
+     * @param name the global qualified name of class (contains package)
+     * @return null, if the class of specified name is not available,
+     * otherwise, the class of specified name.
+     * @throws NullPointerException specified name is null
+     */
+    public Class<?> resolve(String name) {
+        Objects.requireNonNull(name, "Must specified a class name.");
+
+        WeakReference<Class<?>> reference = resolved.get(name);
+        if (reference != null) {
+            Class<?> aClass = reference.get();
+            if (aClass != null) {
+                return aClass;
+            }
+        }
+        if (missed.contains(name)) {
+            return null;
+        }
+
+        Class<?> aClass = load(name);
+        if (aClass == null) {
+            miss(name);
+        } else {
+            resolved.put(name, new WeakReference<>(aClass));
+        }
+        return aClass;
+    }
+
+    /**
+     * Determine whether the class of specified name can be resolved.
+     *
+     * @param name the global qualified name of class (contains package)
+     * @return true, if the class can be resolved
+     * @throws NullPointerException specified name is null
+     */
+    public boolean isAvailable(String name) {
+        return resolve(name) != null;
+    }
+
+    /**
+     * Forget all missed class names, they will be resolved again.
+     */
+    public void invalidate() {
+        missed.clear();
+    }
+
+    private Class<?> load(String name) {
+        try {
+            if (loader == null) {
+                return Class.forName(name, false, null);
+            }
+            ClassLoader cl = loader.get();
+            if (cl == null) {
+                // the class loader be collected, this resolver is unreachable soon
+                return null;
+            }
+            return cl.loadClass(name);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        }
+    }
+
+    private void miss(String name) {
+        if (missed.size() >= MAX_MISSED) {
+            // evict a arbitrary one, the missed names are only a hint
+            Iterator<String> iterator = missed.iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        missed.add(name);
+    }
+}
@@ -121,7 +121,7 @@ public class ClassUtils {
      */
     public static boolean canInstantiated(Class<?> aClass) {
         return !aClass.isInterface() && !Modifier.isAbstract(aClass.getModifiers())
-                && !aClass.isAnnotation() && aClass.isEnum();
+                && !aClass.isAnnotation() && !aClass.isEnum();
     }
 
     /**
@@ -165,13 +165,10 @@ public class ClassUtils {
     public static <T> Set<Class<? super T>> getSuperclasses(Class<T> aClass) {
         Objects.requireNonNull(aClass, "Must specified a class");
 
-        Set<Class<? super T>> superclasses = new HashSet<>();
-        Class<? super T> currentSuper = aClass.getSuperclass();
-        while (currentSuper != null) {
-            superclasses.add(currentSuper);
-            currentSuper = currentSuper.getSuperclass();
-        }
-        return superclasses;
+        // The superclasses always are super of specified class, so can safety convert
+        @SuppressWarnings("unchecked") Collection<Class<? super T>> superclasses =
+                (Collection<Class<? super T>>) (Collection<?>) TypeHierarchy.of(aClass).getSuperclasses();
+        return new HashSet<>(superclasses);
     }
 
     /**
@@ -201,16 +198,10 @@ public class ClassUtils {
             upper = (Class<T>) Object.class;
         }
 
-        Set<Class<T>> superClasses = new HashSet<>();
-
-        Class<?> currentSuperclass = lower.getSuperclass();
-        while (subOf(currentSuperclass, upper)) {
-            // Type safe, the current superclass is sub of upper.
-            @SuppressWarnings("unchecked") Class<T> inBounds = (Class<T>) currentSuperclass;
-            superClasses.add(inBounds);
-            currentSuperclass = currentSuperclass.getSuperclass();
-        }
-        return superClasses;
+        // Type safe, the superclasses within bounds are sub of upper.
+        @SuppressWarnings("unchecked") Collection<Class<T>> superclasses =
+                (Collection<Class<T>>) (Collection<?>) TypeHierarchy.of(lower).getSuperclassesWithin(upper);
+        return new HashSet<>(superclasses);
     }
 
 
@@ -228,19 +219,9 @@ public class ClassUtils {
         // The interfaces class of specified class,
         // always is super of specified class
         // so can safety convert
-        @SuppressWarnings("unchecked") Class<? super T>[] currentInterfaces =
-                (Class<? super T>[]) aClass.getInterfaces();
-
-        Set<Class<? super T>> interfaces = new HashSet<>(Arrays.asList(currentInterfaces));
-
-        for (Class<? super T> currentInterface : currentInterfaces) {
-            interfaces.addAll(getInterfaces(currentInterface));
-        }
-        // find interfaces of superclasses
-        for (Class<? super T> superclass : getSuperclasses(aClass)) {
-            interfaces.addAll(getInterfaces(superclass));
-        }
-        return interfaces;
+        @SuppressWarnings("unchecked") Collection<Class<? super T>> interfaces =
+                (Collection<Class<? super T>>) (Collection<?>) TypeHierarchy.of(aClass).getInterfaces();
+        return new HashSet<>(interfaces);
     }
 
     /**
@@ -264,21 +245,10 @@ public class ClassUtils {
                     "Bounds must is an interface class (or Object.class)");
         }
 
-        Set<Class<T>> interfaces = new HashSet<>();
-
-        Class<?>[] currentInterfaces = lower.getInterfaces();
-        for (int i = 0, len = currentInterfaces.length; i < len && subOf(currentInterfaces[i], upper); i++) {
-            @SuppressWarnings("unchecked") Class<T> inBounds = (Class<T>) currentInterfaces[i];
-            interfaces.add(inBounds);
-            interfaces.addAll(getInterfacesWithinBounds(inBounds, upper));
-        }
-
-        // find interfaces by superclass
-        for (Class<T> superclass : getSuperclassesWithinBounds(lower, upper)) {
-            interfaces.addAll(getInterfacesWithinBounds(superclass, upper));
-        }
-
-        return interfaces;
+        // Type safe, the interfaces within bounds are sub of upper.
+        @SuppressWarnings("unchecked") Collection<Class<T>> interfaces =
+                (Collection<Class<T>>) (Collection<?>) TypeHierarchy.of(lower).getInterfacesWithin(upper);
+        return new HashSet<>(interfaces);
     }
 
     /**
@@ -292,8 +262,18 @@ public class ClassUtils {
     public static <T> Set<Class<? super T>> getClasses(Class<T> aClass) {
         Objects.requireNonNull(aClass, "Must specified a class");
 
-        Set<Class<? super T>> classes = new HashSet<>(getInterfaces(aClass));
-        classes.addAll(getSuperclasses(aClass));
+        TypeHierarchy hierarchy = TypeHierarchy.of(aClass);
+        Set<Class<? super T>> classes = new HashSet<>();
+        for (Class<?> supertype : hierarchy.getSuperclasses()) {
+            // Type safe, the superclass is super of specified class
+            @SuppressWarnings("unchecked") Class<? super T> aSuper = (Class<? super T>) supertype;
+            classes.add(aSuper);
+        }
+        for (Class<?> supertype : hierarchy.getInterfaces()) {
+            // Type safe, the interface is super of specified class
+            @SuppressWarnings("unchecked") Class<? super T> aSuper = (Class<? super T>) supertype;
+            classes.add(aSuper);
+        }
         return classes;
     }
 
@@ -327,9 +307,19 @@ public class ClassUtils {
         if (lower == upper) {
             return Collections.emptySet();
         }
-        Set<Class<T>> classes = getSuperclassesWithinBounds(lower, upper);
+        TypeHierarchy hierarchy = TypeHierarchy.of(lower);
+        Set<Class<T>> classes = new HashSet<>();
+        for (Class<?> supertype : hierarchy.getSuperclassesWithin(upper)) {
+            // Type safe, the superclass within bounds is sub of upper
+            @SuppressWarnings("unchecked") Class<T> inBounds = (Class<T>) supertype;
+            classes.add(inBounds);
+        }
         if (Object.class.equals(upper) || upper.isInterface()) {
-            classes.addAll(getInterfacesWithinBounds(lower, upper));
+            for (Class<?> supertype : hierarchy.getInterfacesWithin(upper)) {
+                // Type safe, the interface within bounds is sub of upper
+                @SuppressWarnings("unchecked") Class<T> inBounds = (Class<T>) supertype;
+                classes.add(inBounds);
+            }
         }
         return classes;
     }
@@ -351,6 +341,7 @@ public class ClassUtils {
     /**
      * Load a class by specified class name and and specified classloader.
      * If class loader is null, will use {@code defaultClassLoader}.
+     * The result will be cached by the {@link ClassResolver} of class loader.
      *
      * @param name the global qualified name of class (contains package)
      * @return null, if the class of specified name is not available.
@@ -365,16 +356,7 @@ public class ClassUtils {
         if (loader == null) {
             loader = getDefaultClassLoader();
         }
-
-        Class<?> aClass = null;
-        if (isAvailable(name)) {
-            try {
-                aClass = loader.loadClass(name);
-            } catch (ClassNotFoundException ignore) {
-                return null;
-            }
-        }
-        return aClass;
+        return ClassResolver.of(loader).resolve(name);
     }
 
     /**
@@ -431,15 +413,22 @@ public class ClassUtils {
      * @throws NullPointerException specified className is null.
      */
     public static boolean isAvailable(String className) {
-        Objects.requireNonNull(className, "Must specified a class name.");
+        return isAvailable(className, getDefaultClassLoader());
+    }
 
-        try {
-            ClassLoader loader = getDefaultClassLoader();
-            loader.loadClass(className);
-        } catch (NoClassDefFoundError | ClassNotFoundException e) {
-            return false;
-        }
-        return true;
+    /**
+     * Determine whether the class of specified class name is available in
+     * specified class loader. If class loader is null, will use
+     * {@code defaultClassLoader}.
+     *
+     * @param className the class name to be checkPermission
+     * @param loader    the class loader to load class
+     * @return true, the class of specified class name can be used;
+     * otherwise, false.
+     * @throws NullPointerException specified className is null.
+     */
+    public static boolean isAvailable(String className, @Nullable ClassLoader loader) {
+        return forName(Objects.requireNonNull(className, "Must specified a class name."), loader) != null;
     }
 
     /**
@@ -0,0 +1,216 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The location resolver of a class loader, what resolves a location string
+ * to {@link URL}, and caches the resolved URLs.
+ * <p>
+ * The location be classified by parsing, i.e. it's protocol, package form
+ * and jar extension, instead of constructing {@code URL} and catching the
+ * exceptions. Only the protocols be probed once, and the probed results are
+ * shared by all resolvers.
+ * <p>
+ * The resolved URLs be cached in a bounded map, and the resolvers be kept by
+ * weak keys of class loader, so the resolver will be released with it's
+ * class loader. If a resource be created after it's location be resolved,
+ * call {@link #invalidate()} to forget the resolved URLs.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ResourceUtils#getURL(String)
+ */
+public final class LocationResolver {
+
+    /**
+     * The max count of the resolved URLs, for each class loader.
+     */
+    static final int MAX_RESOLVED = 1024;
+
+    /**
+     * The max count of the probed protocols.
+     */
+    private static final int MAX_PROTOCOLS = 64;
+
+    private static final Map<ClassLoader, LocationResolver> RESOLVERS = new WeakHashMap<>();
+
+    /**
+     * The protocols what had been probed, and whether they have handler.
+     */
+    private static final ConcurrentMap<String, Boolean> PROTOCOLS = new ConcurrentHashMap<>();
+
+    /**
+     * The class loader of this resolver. Must not be referenced strongly,
+     * otherwise, the weak key of {@link #RESOLVERS} will never be cleared.
+     */
+    private final WeakReference<ClassLoader> loader;
+
+    private final ConcurrentMap<String, URL> resolved = new ConcurrentHashMap<>();
+
+    private LocationResolver(ClassLoader loader) {
+        this.loader = new WeakReference<>(loader);
+    }
+
+    /**
+     * Returns the resolver of specified class loader.
+     *
+     * @param loader the class loader, be used to find the package and the
+     *               classpath resources
+     * @return the resolver of specified class loader
+     * @throws NullPointerException specified class loader is null
+     */
+    public static LocationResolver of(ClassLoader loader) {
+        Objects.requireNonNull(loader, "Must specified class loader.");
+        synchronized (RESOLVERS) {
+            return RESOLVERS.computeIfAbsent(loader, LocationResolver::new);
+        }
+    }
+
+    /**
+     * Resolve specified location to URL. The location can be:
+     * <ul>
+     * <li>a URL with known protocol, e.g. {@code http://example.com/a.jar}</li>
+     * <li>a package name, e.g. {@code com.apehat.newyear}</li>
+     * <li>a classpath resource path, e.g. {@code com/apehat/newyear}</li>
+     * <li>a file path, the path of jar file will be resolved as jar URL</li>
+     * </ul>
+     * The URL in classpath will be converted to classpath URL.
+     *
+     * @param location the location to resolve
+     * @return the URL of specified location
+     * @throws NullPointerException  specified location is null
+     * @throws MalformedURLException error occur when construct URL
+     */
+    public URL resolve(String location) throws MalformedURLException {
+        Objects.requireNonNull(location, "Must specify res location");
+
+        URL url = resolved.get(location);
+        if (url == null) {
+            url = doResolve(location);
+            cache(location, url);
+        }
+        return url;
+    }
+
+    /**
+     * Forget all resolved URLs, the locations will be resolved again.
+     */
+    public void invalidate() {
+        resolved.clear();
+    }
+
+    private URL doResolve(String location) throws MalformedURLException {
+        String protocol = getProtocol(location);
+        if (protocol != null && isKnownProtocol(protocol)) {
+            try {
+                return new URL(location);
+            } catch (MalformedURLException ignore) {
+                // a malformed URL of known protocol, try to resolve as path
+            }
+        }
+
+        String path = location;
+        if (path.indexOf('/') < 0) {
+            // is a package name - try to get by ClassLoader
+            path = path.replace('.', '/');
+        }
+        path = StringUtils.clearPath(path);
+
+        ClassLoader cl = loader.get();
+        URL url = cl == null ? null : cl.getResource(path);
+        // if get success, need not to convert to jar url - ClassLoader already do this
+        if (url == null) {
+            url = new File(location).toURI().toURL();
+            if (ResourceUtils.isJarLocation(url.toString())) {
+                url = ResourceUtils.toJarURL(url);
+            }
+        }
+        return ResourceUtils.toClassPathURL(url);
+    }
+
+    private void cache(String location, URL url) {
+        if (resolved.size() >= MAX_RESOLVED) {
+            // evict a arbitrary one, it will be resolved again if necessary
+            Iterator<String> iterator = resolved.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        resolved.put(location, url);
+    }
+
+    /**
+     * Returns the protocol of specified location, i.e. the scheme of
+     * RFC 3986 before the first ":". The scheme of single letter is
+     * treated as a drive letter of Windows, not a protocol.
+     *
+     * @param location the location
+     * @return the protocol in lower case, or null if the location has no
+     * protocol
+     */
+    static String getProtocol(String location) {
+        int colon = location.indexOf(':');
+        if (colon < 2) {
+            return null;
+        }
+        for (int i = 0; i < colon; i++) {
+            char c = location.charAt(i);
+            boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!letter && (i == 0 || !isSchemeChar(c))) {
+                return null;
+            }
+        }
+        return location.substring(0, colon).toLowerCase();
+    }
+
+    private static boolean isSchemeChar(char c) {
+        return (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+    }
+
+    private static boolean isKnownProtocol(String protocol) {
+        Boolean known = PROTOCOLS.get(protocol);
+        if (known == null) {
+            known = probe(protocol);
+            if (PROTOCOLS.size() < MAX_PROTOCOLS) {
+                PROTOCOLS.put(protocol, known);
+            }
+        }
+        return known;
+    }
+
+    private static boolean probe(String protocol) {
+        try {
+            // only find the handler, the spec needn't be parsed
+            new URL(protocol, "", "");
+            return true;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+}
@@ -27,32 +27,15 @@ public class ReflectionUtils {
 
     /**
      * Returns the caller class.
+     * <p>
+     * On Java 9+, the stack be walked by {@code StackWalker}, the stack
+     * trace needn't be built.
      *
      * @return null, if the caller of current method is main method.
      * otherwise, the caller class.
      * @throws IllegalStateException load caller class failure.
      */
     public static Class<?> getCallerClass() {
-        StackTraceElement[] stack = new Throwable().getStackTrace();
-        String caller = stack[1].getClassName();
-
-        for (int i = 2; i < stack.length; i++) {
-            String name = stack[i].getClassName();
-
-            if (!caller.equals(name)) {
-                ClassLoader cl = ClassUtils.getDefaultClassLoader();
-                if (cl == null) {
-                    cl = ReflectionUtils.class.getClassLoader();
-                }
-                Class<?> aClass = ClassUtils.forName(name, cl);
-                if (aClass == null) {
-                    throw new IllegalStateException("Load " + name + "failure");
-                }
-                return aClass;
-            }
-        }
-        return null;
+        return CallerFinder.getCallerClass();
     }
-
-
 }
@@ -93,75 +93,65 @@ public class ResourceUtils {
 
     /**
      * Construct a {@link URL} instance by specified {@code String}.
+     * <p>
+     * The location be resolved by the {@link LocationResolver} of default
+     * class loader, the resolved URLs will be cached.
      *
      * @param location a {@code String} that represents the res
      *                 location.
      * @return a newly {@code URL}, identifies the res, in specified {@code location}.
      * @throws MalformedURLException error occur when construct URL.
+     * @see LocationResolver#resolve(String)
      */
     public static URL getURL(String location) throws MalformedURLException {
         Objects.requireNonNull(location, "Must specify res location");
 
-        URL url;
-
-        try {
-            url = new URL(location);
-        } catch (MalformedURLException e) {
-            // try to get by package name (or package path)
-            String path = location;
-            if (!path.contains(PATH_SEPARATOR)) {
-                // is a package name - try to get by ClassLoader
-                path = path.replace(".", PATH_SEPARATOR);
-            }
-            path = StringUtils.clearPath(path);
-
-            ClassLoader clToUse = ClassUtils.getDefaultClassLoader();
-            if (clToUse == null) {
-                clToUse = ResourceUtils.class.getClassLoader();
-            }
-
-            url = clToUse.getResource(path);
-            // if get success, need not to convert to jar url - ClassLoader already do this
-            // but need try to convert to class path url
-
-            if (url == null) {
-                // if failed at there, will throw exception
-                url = new File(location).toURI().toURL();
-
-                try {
-                    url = toJarURL(url);
-                } catch (IllegalArgumentException ignore) {
-                    // must not be jar URL
-                }
-            }
-
-            // try to convert to class path URL
-            assert url != null;
-            try {
-                url = toClassPathURL(url);
-            } catch (IllegalArgumentException ignore) {
-                // must not be classpath URL
-            }
+        ClassLoader clToUse = ClassUtils.getDefaultClassLoader();
+        if (clToUse == null) {
+            clToUse = ResourceUtils.class.getClassLoader();
         }
-        return url;
+        return LocationResolver.of(clToUse).resolve(location);
     }
 
-    private static URL toClassPathURL(URL url) throws MalformedURLException {
+    /**
+     * Convert specified URL to classpath URL, if it in classpath.
+     *
+     * @param url the url to be convert
+     * @return the classpath URL, or specified URL if it isn't in classpath
+     * @throws MalformedURLException error occur on construct URL
+     */
+    static URL toClassPathURL(URL url) throws MalformedURLException {
         if (isClassPathURL(url)) {
             return url;
         }
 
         String s = url.toString();
 
+        int index = s.indexOf(PATH_SEPARATOR);
+        if (index < 0) {
+            return url;
+        }
         // ensure the specified URL is in class path
-        String relPath = s.substring(s.indexOf(PATH_SEPARATOR));
-        Validation.requireTrue(EnvUtils.isInClassPath(relPath),
-                "[%s] cannot be resolved, because does not in classpath.", relPath);
+        String relPath = s.substring(index);
+        if (!EnvUtils.isInClassPath(relPath)) {
+            return url;
+        }
 
         String us = s.replace(FILE_URL_PREFIX, CLASSPATH_URL_PREFIX);
         return new URL(null, us, new Handler());
     }
 
+    /**
+     * Determine whether specified location points to a jar, i.e. it
+     * contains ".jar" (ignore case).
+     *
+     * @param location the location to check
+     * @return true, if specified location points to a jar
+     */
+    static boolean isJarLocation(String location) {
+        return location.toLowerCase().contains(JAR_EXTENSION);
+    }
+
     /**
      * Convert specified URL to jar URL, format like: jar:...
      *
@@ -179,7 +169,7 @@ public class ResourceUtils {
 
         // ensure contains ".jar"
         // cannot ensure end with ".jar", because like "jar:file:/example/xxx.jar!/"
-        if (!location.toLowerCase().contains(JAR_EXTENSION)) {
+        if (!isJarLocation(location)) {
             throw new IllegalArgumentException(location
                     + " cannot be resolved, because it does not point to a jar.");
         }
@@ -0,0 +1,166 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The immutable hierarchy of a class, i.e. it's linearized superclasses and
+ * interfaces. The hierarchy of each class be computed once, by reusing the
+ * hierarchies of it's direct supertypes, and be cached in a
+ * {@link ClassValue}, so it will be released with the class.
+ * <p>
+ * The bounded views (e.g. {@link #getSuperclassesWithin(Class)}) are
+ * filtered on demand, they needn't be cached.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class TypeHierarchy {
+
+    private static final ClassValue<TypeHierarchy> HIERARCHIES = new ClassValue<TypeHierarchy>() {
+        @Override
+        protected TypeHierarchy computeValue(Class<?> type) {
+            return new TypeHierarchy(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    /**
+     * The superclasses, from the direct superclass to {@code Object.class}.
+     */
+    private final List<Class<?>> superclasses;
+
+    /**
+     * The interfaces, the direct interfaces first, then the interfaces of
+     * them, then the interfaces of superclasses.
+     */
+    private final List<Class<?>> interfaces;
+
+    private TypeHierarchy(Class<?> type) {
+        this.type = type;
+
+        Class<?> superclass = type.getSuperclass();
+        List<Class<?>> superclasses = new ArrayList<>();
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        Class<?>[] directInterfaces = type.getInterfaces();
+        Collections.addAll(interfaces, directInterfaces);
+        for (Class<?> directInterface : directInterfaces) {
+            interfaces.addAll(of(directInterface).interfaces);
+        }
+        if (superclass != null) {
+            TypeHierarchy hierarchy = of(superclass);
+            superclasses.add(superclass);
+            superclasses.addAll(hierarchy.superclasses);
+            interfaces.addAll(hierarchy.interfaces);
+        }
+        this.superclasses = Collections.unmodifiableList(superclasses);
+        this.interfaces = Collections.unmodifiableList(new ArrayList<>(interfaces));
+    }
+
+    /**
+     * Returns the hierarchy of specified class.
+     *
+     * @param type the class
+     * @return the hierarchy of specified class
+     * @throws NullPointerException specified class is null
+     */
+    public static TypeHierarchy of(Class<?> type) {
+        return HIERARCHIES.get(Objects.requireNonNull(type, "Must specified a class"));
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the superclasses, from the direct superclass to
+     * {@code Object.class}.
+     *
+     * @return the unmodifiable list of superclasses
+     */
+    public List<Class<?>> getSuperclasses() {
+        return superclasses;
+    }
+
+    /**
+     * Returns all interfaces, what implemented by this class directly or
+     * indirectly.
+     *
+     * @return the unmodifiable list of interfaces
+     */
+    public List<Class<?>> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Returns the superclasses, what are sub of specified upper bound
+     * (exclude the upper bound itself).
+     *
+     * @param upper the upper bound
+     * @return the superclasses within bounds
+     * @throws NullPointerException specified upper bound is null
+     */
+    public List<Class<?>> getSuperclassesWithin(Class<?> upper) {
+        Objects.requireNonNull(upper, "Must specified upper");
+
+        List<Class<?>> result = new ArrayList<>();
+        for (Class<?> superclass : superclasses) {
+            if (!isStrictSub(superclass, upper)) {
+                // the superclasses of it cannot be sub of upper too
+                break;
+            }
+            result.add(superclass);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the interfaces, what are sub of specified upper bound
+     * (exclude the upper bound itself).
+     *
+     * @param upper the upper bound
+     * @return the interfaces within bounds
+     * @throws NullPointerException specified upper bound is null
+     */
+    public List<Class<?>> getInterfacesWithin(Class<?> upper) {
+        Objects.requireNonNull(upper, "Must specified upper");
+
+        List<Class<?>> result = new ArrayList<>();
+        for (Class<?> anInterface : interfaces) {
+            if (isStrictSub(anInterface, upper)) {
+                result.add(anInterface);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isStrictSub(Class<?> sub, Class<?> upper) {
+        return sub != upper && upper.isAssignableFrom(sub);
+    }
+
+    @Override
+    public String toString() {
+        return "TypeHierarchy{" + type.getName() + "}";
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import com.apehat.newyear.validation.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The resolver of generic types. It walks the {@link ParameterizedType}
+ * and the {@link TypeVariable} bindings through the class hierarchy, and
+ * never parse the type names.
+ * <p>
+ * The type arguments of each (class, generic supertype) pair be computed
+ * once, by reusing the result of the direct supertype, and be cached in a
+ * {@link ClassValue}, so they will be released with the class. Only the
+ * supertypes be cached, they always are reachable from the class, the
+ * unrelated generics aren't cached, to not retain their class loaders.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class TypeResolver {
+
+    /**
+     * The marker of the generic what isn't a supertype of the class.
+     */
+    private static final Type[] NOT_SUBTYPE = new Type[0];
+
+    private static final ClassValue<ConcurrentMap<Class<?>, Type[]>> ARGUMENTS =
+            new ClassValue<ConcurrentMap<Class<?>, Type[]>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, Type[]> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private TypeResolver() {
+    }
+
+    /**
+     * Resolve the type arguments of specified generic, what be declared by
+     * specified class and it's supertypes. E.g. the type arguments of
+     * {@code Map} is {@code [String, List<Integer>]}, for
+     * {@code class Foo extends HashMap<String, List<Integer>>}.
+     * <p>
+     * If a type argument hadn't been declared, it is a {@link TypeVariable}
+     * of specified class. If the generic be inherited as raw type, the type
+     * arguments are the erasures of the type parameters.
+     *
+     * @param aClass   the class
+     * @param aGeneric the generic class or interface
+     * @return the type arguments, or null if specified generic isn't a
+     * supertype of specified class
+     * @throws NullPointerException specified class or generic is null
+     */
+    @Nullable("Specified generic isn't a supertype of specified class")
+    public static Type[] resolveTypeArguments(Class<?> aClass, Class<?> aGeneric) {
+        Objects.requireNonNull(aClass, "Must specified class");
+        Objects.requireNonNull(aGeneric, "Must specified a generic type");
+        Type[] arguments = lookup(aClass, aGeneric);
+        return arguments == NOT_SUBTYPE ? null : arguments.clone();
+    }
+
+    /**
+     * Resolve specified type in the context of specified class, i.e. the
+     * type variables declared by the supertypes of context be replaced with
+     * the type arguments of context. E.g. the type {@code List<E>} be
+     * resolved to {@code List<String>}, in the context of
+     * {@code class Foo extends ArrayList<String>}.
+     * <p>
+     * The type variables what cannot be resolved will be reserved.
+     *
+     * @param type    the type to resolve
+     * @param context the context class
+     * @return the resolved type
+     * @throws NullPointerException specified type or context is null
+     */
+    public static Type resolveType(Type type, Class<?> context) {
+        Objects.requireNonNull(type, "Must specified type");
+        Objects.requireNonNull(context, "Must specified context");
+        return substitute(type, variable -> {
+            GenericDeclaration declaration = variable.getGenericDeclaration();
+            if (declaration instanceof Class) {
+                Type[] arguments = lookup(context, (Class<?>) declaration);
+                if (arguments != NOT_SUBTYPE) {
+                    return arguments[indexOf(variable)];
+                }
+            }
+            return variable;
+        });
+    }
+
+    /**
+     * Returns the raw class of specified type. The raw class of a type
+     * variable or a wildcard type is the raw class of it's first upper
+     * bound.
+     *
+     * @param type the type
+     * @return the raw class of specified type
+     * @throws NullPointerException     specified type is null
+     * @throws IllegalArgumentException specified type is unknown
+     */
+    public static Class<?> getRawClass(Type type) {
+        Objects.requireNonNull(type, "Must specified type");
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component = getRawClass(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return getRawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return getRawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        throw new IllegalArgumentException("Unknown type " + type);
+    }
+
+    private static Type[] lookup(Class<?> aClass, Class<?> aGeneric) {
+        if (!aGeneric.isAssignableFrom(aClass)) {
+            return NOT_SUBTYPE;
+        }
+        ConcurrentMap<Class<?>, Type[]> arguments = ARGUMENTS.get(aClass);
+        Type[] result = arguments.get(aGeneric);
+        if (result == null) {
+            // the result is immutable, compute it repeatedly is harmless
+            result = compute(aClass, aGeneric);
+            Type[] prev = arguments.putIfAbsent(aGeneric, result);
+            if (prev != null) {
+                result = prev;
+            }
+        }
+        return result;
+    }
+
+    private static Type[] compute(Class<?> aClass, Class<?> aGeneric) {
+        if (aClass == aGeneric) {
+            TypeVariable<?>[] parameters = aGeneric.getTypeParameters();
+            return Arrays.copyOf(parameters, parameters.length, Type[].class);
+        }
+        if (aGeneric.getTypeParameters().length == 0) {
+            return new Type[0];
+        }
+        Type superclass = aClass.getGenericSuperclass();
+        if (superclass != null && aGeneric.isAssignableFrom(getRawClass(superclass))) {
+            return inherit(superclass, aGeneric);
+        }
+        for (Type anInterface : aClass.getGenericInterfaces()) {
+            if (aGeneric.isAssignableFrom(getRawClass(anInterface))) {
+                return inherit(anInterface, aGeneric);
+            }
+        }
+        throw new IllegalStateException("Cannot find the supertype " + aGeneric + " of " + aClass);
+    }
+
+    /**
+     * Returns the type arguments of generic, what be inherited by the
+     * specified supertype.
+     */
+    private static Type[] inherit(Type supertype, Class<?> aGeneric) {
+        Type[] declared = lookup(getRawClass(supertype), aGeneric);
+        Type[] result = new Type[declared.length];
+        if (supertype instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) supertype;
+            for (int i = 0; i < declared.length; i++) {
+                result[i] = substitute(declared[i], variable -> bind(pt, variable));
+            }
+        } else {
+            // inherited as raw type, all of it's generic information be erased
+            for (int i = 0; i < declared.length; i++) {
+                result[i] = getRawClass(declared[i]);
+            }
+        }
+        return result;
+    }
+
+    private static Type bind(ParameterizedType pt, TypeVariable<?> variable) {
+        for (ParameterizedType current = pt; current != null; ) {
+            if (current.getRawType() == variable.getGenericDeclaration()) {
+                return current.getActualTypeArguments()[indexOf(variable)];
+            }
+            Type owner = current.getOwnerType();
+            current = owner instanceof ParameterizedType ? (ParameterizedType) owner : null;
+        }
+        return variable;
+    }
+
+    private static int indexOf(TypeVariable<?> variable) {
+        TypeVariable<?>[] parameters = variable.getGenericDeclaration().getTypeParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].equals(variable)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Cannot find " + variable + " in it's declaration");
+    }
+
+    private interface Bindings {
+        Type get(TypeVariable<?> variable);
+    }
+
+    private static Type substitute(Type type, Bindings bindings) {
+        if (type instanceof Class) {
+            return type;
+        }
+        if (type instanceof TypeVariable) {
+            return bindings.get((TypeVariable<?>) type);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            Type owner = pt.getOwnerType();
+            Type resolvedOwner = owner == null ? null : substitute(owner, bindings);
+            Type[] arguments = pt.getActualTypeArguments();
+            Type[] resolved = substitute(arguments, bindings);
+            if (resolvedOwner == owner && resolved == arguments) {
+                return type;
+            }
+            return new ParameterizedTypeImpl(resolvedOwner, (Class<?>) pt.getRawType(), resolved);
+        }
+        if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Type resolved = substitute(component, bindings);
+            if (resolved == component) {
+                return type;
+            }
+            if (resolved instanceof Class) {
+                return Array.newInstance((Class<?>) resolved, 0).getClass();
+            }
+            return new GenericArrayTypeImpl(resolved);
+        }
+        if (type instanceof WildcardType) {
+            WildcardType wt = (WildcardType) type;
+            Type[] upper = wt.getUpperBounds();
+            Type[] lower = wt.getLowerBounds();
+            Type[] resolvedUpper = substitute(upper, bindings);
+            Type[] resolvedLower = substitute(lower, bindings);
+            if (resolvedUpper == upper && resolvedLower == lower) {
+                return type;
+            }
+            return new WildcardTypeImpl(resolvedUpper, resolvedLower);
+        }
+        return type;
+    }
+
+    /**
+     * Substitute the types, the specified array will be returned if none
+     * type be changed.
+     */
+    private static Type[] substitute(Type[] types, Bindings bindings) {
+        Type[] result = types;
+        for (int i = 0; i < types.length; i++) {
+            Type resolved = substitute(types[i], bindings);
+            if (resolved != types[i]) {
+                if (result == types) {
+                    result = types.clone();
+                }
+                result[i] = resolved;
+            }
+        }
+        return result;
+    }
+
+    private static String nameOf(Type type) {
+        return type instanceof Class ? ((Class<?>) type).getName() : type.toString();
+    }
+
+    // the equals and hashCode are compatible with the implementations of jdk
+
+    private static final class ParameterizedTypeImpl implements ParameterizedType {
+
+        private final Type ownerType;
+        private final Class<?> rawType;
+        private final Type[] actualTypeArguments;
+
+        private ParameterizedTypeImpl(Type ownerType, Class<?> rawType, Type[] actualTypeArguments) {
+            this.ownerType = ownerType;
+            this.rawType = rawType;
+            this.actualTypeArguments = actualTypeArguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType that = (ParameterizedType) obj;
+            return Objects.equals(ownerType, that.getOwnerType())
+                    && Objects.equals(rawType, that.getRawType())
+                    && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ Objects.hashCode(rawType);
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "<", ">");
+            for (Type argument : actualTypeArguments) {
+                joiner.add(argument.getTypeName());
+            }
+            return rawType.getName() + joiner;
+        }
+    }
+
+    private static final class GenericArrayTypeImpl implements GenericArrayType {
+
+        private final Type componentType;
+
+        private GenericArrayTypeImpl(Type componentType) {
+            this.componentType = componentType;
+        }
+
+        @Override
+        public Type getGenericComponentType() {
+            return componentType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof GenericArrayType
+                    && Objects.equals(componentType, ((GenericArrayType) obj).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(componentType);
+        }
+
+        @Override
+        public String toString() {
+            return nameOf(componentType) + "[]";
+        }
+    }
+
+    private static final class WildcardTypeImpl implements WildcardType {
+
+        private final Type[] upperBounds;
+        private final Type[] lowerBounds;
+
+        private WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+            this.upperBounds = upperBounds;
+            this.lowerBounds = lowerBounds;
+        }
+
+        @Override
+        public Type[] getUpperBounds() {
+            return upperBounds.clone();
+        }
+
+        @Override
+        public Type[] getLowerBounds() {
+            return lowerBounds.clone();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof WildcardType)) {
+                return false;
+            }
+            WildcardType that = (WildcardType) obj;
+            return Arrays.equals(upperBounds, that.getUpperBounds())
+                    && Arrays.equals(lowerBounds, that.getLowerBounds());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(upperBounds) ^ Arrays.hashCode(lowerBounds);
+        }
+
+        @Override
+        public String toString() {
+            if (lowerBounds.length > 0) {
+                return "? super " + nameOf(lowerBounds[0]);
+            }
+            if (upperBounds.length == 0 || upperBounds[0] == Object.class) {
+                return "?";
+            }
+            return "? extends " + nameOf(upperBounds[0]);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import java.util.Iterator;
+
+/**
+ * Find the caller class by {@link StackWalker}, it walks the frames
+ * lazily, and needn't build the whole stack trace, and load the caller
+ * class by name.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see ReflectionUtils#getCallerClass()
+ */
+final class CallerFinder {
+
+    private static final StackWalker WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private CallerFinder() {
+    }
+
+    /**
+     * Returns the caller of the class what calls
+     * {@link ReflectionUtils#getCallerClass()}.
+     *
+     * @return the caller class, or null if there is no caller
+     */
+    static Class<?> getCallerClass() {
+        return WALKER.walk(frames -> {
+            Iterator<Class<?>> classes = frames.<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                    .dropWhile(CallerFinder::isInternal)
+                    .iterator();
+            if (!classes.hasNext()) {
+                return null;
+            }
+            Class<?> caller = classes.next();
+            while (classes.hasNext()) {
+                Class<?> aClass = classes.next();
+                if (aClass != caller) {
+                    return aClass;
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isInternal(Class<?> aClass) {
+        return aClass == CallerFinder.class || aClass == ReflectionUtils.class;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A lock-free sequence (or counter) of long. The value be held in a field
+ * of the sequence itself, and be updated by {@link VarHandle}, what be
+ * intrinsified by JIT, without the reflective checks of field updater.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class Sequence {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long value;
+
+    /**
+     * Create a sequence, start with 0.
+     */
+    public Sequence() {
+    }
+
+    /**
+     * Create a sequence, start with specified value.
+     *
+     * @param initial the initial value
+     */
+    public Sequence(long initial) {
+        this.value = initial;
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the current value
+     */
+    public long get() {
+        return value;
+    }
+
+    /**
+     * Increase the value, and returns the previous value.
+     *
+     * @return the previous value
+     */
+    public long getAndIncrement() {
+        return (long) VALUE.getAndAdd(this, 1L);
+    }
+
+    /**
+     * Increase the value, and returns the updated value.
+     *
+     * @return the updated value
+     */
+    public long incrementAndGet() {
+        return (long) VALUE.getAndAdd(this, 1L) + 1L;
+    }
+
+    /**
+     * Add specified delta to the value, and returns the previous value.
+     *
+     * @param delta the delta to add
+     * @return the previous value
+     */
+    public long getAndAdd(long delta) {
+        return (long) VALUE.getAndAdd(this, delta);
+    }
+
+    /**
+     * Set the value to specified value, if the current value equals to the
+     * expected value.
+     *
+     * @param expect the expected value
+     * @param update the new value
+     * @return true, if the value be updated
+     */
+    public boolean compareAndSet(long expect, long update) {
+        return VALUE.compareAndSet(this, expect, update);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(value);
+    }
+}
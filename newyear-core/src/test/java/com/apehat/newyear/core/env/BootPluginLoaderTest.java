@@ -0,0 +1,279 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class BootPluginLoaderTest {
+
+    private static final CommandLineArgs ARGS = new CommandLineArgs(new String[0]);
+
+    @Test
+    public void testDeferred() {
+        LazyPlugin lazy = new LazyPlugin();
+        LazyDependent dependent = new LazyDependent();
+        Plugin root = new PluginGraphTest.Root();
+        PluginGraph graph = new PluginGraph(lazy, dependent, root);
+
+        assert graph.isDeferred(lazy);
+        assert graph.isDeferred(dependent);
+        assert !graph.isDeferred(root);
+
+        BootPluginLoader loader = new BootPluginLoader();
+        loader.register(graph, BootPluginLoaderTest.class, ARGS);
+        assert !loader.isLaunched(PluginGraphTest.Root.class);
+
+        graph.launch(Runnable::run, BootPluginLoaderTest.class, ARGS, null, loader::markLaunched);
+        assert lazy.count.get() == 0;
+        assert loader.isLaunched(PluginGraphTest.Root.class);
+        assert !loader.isLaunched(LazyPlugin.class);
+
+        // the dependency will be launched before
+        assert loader.getPlugin(LazyDependent.class) == dependent;
+        assert lazy.count.get() == 1;
+        assert dependent.count.get() == 1;
+        assert loader.getPlugins().length == 3;
+        assert lazy.count.get() == 1;
+    }
+
+    @Test
+    public void testRequiredByEager() {
+        LazyPlugin lazy = new LazyPlugin();
+        PluginGraph graph = new PluginGraph(lazy, new EagerDependent());
+
+        assert !graph.isDeferred(lazy);
+        graph.launch(Runnable::run, BootPluginLoaderTest.class, ARGS);
+        assert lazy.count.get() == 1;
+    }
+
+    @Test
+    public void testGetLazyPluginInLaunching() {
+        LazyPlugin lazy = new LazyPlugin();
+        BootPluginLoader loader = new BootPluginLoader();
+        EagerAccessor accessor = new EagerAccessor(loader);
+        PluginGraph graph = new PluginGraph(lazy, accessor, new PluginGraphTest.Root());
+        loader.register(graph, BootPluginLoaderTest.class, ARGS);
+
+        graph.launch(Runnable::run, BootPluginLoaderTest.class, ARGS, null, loader::markLaunched);
+        assert accessor.found == lazy;
+        assert lazy.count.get() == 1;
+        assert accessor.root instanceof PluginGraphTest.Root;
+        // the eager plugin only be launched by its wave
+        assert loader.getPlugin(EagerAccessor.class) == accessor;
+        assert accessor.count.get() == 1;
+    }
+
+    @Test
+    public void testWaitEagerDependencies() throws Exception {
+        BootPluginLoader loader = new BootPluginLoader();
+        RootDependent lazy = new RootDependent(loader);
+        PluginGraph graph = new PluginGraph(lazy, new PluginGraphTest.Root());
+        loader.register(graph, BootPluginLoaderTest.class, ARGS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<RootDependent> future = executor.submit(() -> loader.getPlugin(RootDependent.class));
+            Thread.sleep(100);
+            assert !future.isDone();
+            assert lazy.count.get() == 0;
+
+            loader.boot(() -> graph.launch(Runnable::run, BootPluginLoaderTest.class, ARGS, null,
+                    loader::markLaunched));
+            assert future.get() == lazy;
+            assert lazy.count.get() == 1;
+            assert lazy.rootLaunched;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetLazyPluginBeforeDependencyLaunched() {
+        BootPluginLoader loader = new BootPluginLoader();
+        RootDependent lazy = new RootDependent(loader);
+        // the root and the accessor are in the same wave
+        PluginGraph graph = new PluginGraph(lazy, new PluginGraphTest.Root(), new RootDependentAccessor(loader));
+        loader.register(graph, BootPluginLoaderTest.class, ARGS);
+
+        try {
+            loader.boot(() -> graph.launch(Runnable::run, BootPluginLoaderTest.class, ARGS, null,
+                    loader::markLaunched));
+            assert false;
+        } catch (BootException e) {
+            // the dependency cannot be launched before the accessor returned
+        }
+        assert lazy.count.get() == 0;
+    }
+
+    @Test
+    public void testAbortWaitingPlugins() throws Exception {
+        BootPluginLoader loader = new BootPluginLoader();
+        RootDependent lazy = new RootDependent(loader);
+        loader.register(new PluginGraph(lazy, new PluginGraphTest.Root()), BootPluginLoaderTest.class, ARGS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<RootDependent> future = executor.submit(() -> loader.getPlugin(RootDependent.class));
+            Thread.sleep(100);
+            loader.abort();
+            try {
+                future.get();
+                assert false;
+            } catch (ExecutionException e) {
+                assert e.getCause() instanceof BootException;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assert lazy.count.get() == 0;
+    }
+
+    @Test
+    public void testLaunchOnce() throws Exception {
+        LazyPlugin lazy = new LazyPlugin();
+        BootPluginLoader loader = new BootPluginLoader();
+        loader.register(new PluginGraph(lazy), BootPluginLoaderTest.class, ARGS);
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return loader.getPlugin(LazyPlugin.class);
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                assert future.get() == lazy;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assert lazy.count.get() == 1;
+    }
+
+    @Test
+    public void testGetPluginNotExists() {
+        assert new BootPluginLoader().getPlugin(LazyPlugin.class) == null;
+    }
+
+    static class LazyPlugin extends PluginGraphTest.Base {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void launch(Class<?> entrance, CommandLineArgs args) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public boolean isLazy() {
+            return true;
+        }
+    }
+
+    static class LazyDependent extends LazyPlugin {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{LazyPlugin.class};
+        }
+    }
+
+    static class RootDependent extends LazyPlugin {
+
+        private final BootPluginLoader loader;
+        volatile boolean rootLaunched;
+
+        RootDependent(BootPluginLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public void launch(Class<?> entrance, CommandLineArgs args) {
+            super.launch(entrance, args);
+            rootLaunched = loader.isLaunched(PluginGraphTest.Root.class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{PluginGraphTest.Root.class};
+        }
+    }
+
+    static class RootDependentAccessor extends PluginGraphTest.Base {
+
+        private final PluginLoader loader;
+
+        RootDependentAccessor(PluginLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public void launch(Class<?> entrance, CommandLineArgs args) {
+            loader.getPlugin(RootDependent.class);
+        }
+    }
+
+    static class EagerDependent extends PluginGraphTest.Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{LazyPlugin.class};
+        }
+    }
+
+    static class EagerAccessor extends PluginGraphTest.Base {
+
+        final AtomicInteger count = new AtomicInteger();
+        private final PluginLoader loader;
+        volatile Plugin found;
+        volatile Plugin root;
+
+        EagerAccessor(PluginLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{PluginGraphTest.Root.class};
+        }
+
+        @Override
+        public void launch(Class<?> entrance, CommandLineArgs args) {
+            count.incrementAndGet();
+            found = loader.getPlugin(LazyPlugin.class);
+            root = loader.getPlugin(PluginGraphTest.Root.class);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import com.apehat.newyear.core.scan.ClassPathFingerprint;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class BootSnapshotTest {
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            new BootSnapshot(42L, Arrays.asList("a.Root", "a.Leaf")).save(file);
+
+            BootSnapshot snapshot = BootSnapshot.load(file);
+            assert snapshot != null;
+            assert snapshot.getFingerprint() == 42L;
+            assert snapshot.getPluginClassNames().equals(Arrays.asList("a.Root", "a.Leaf"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLoadCorrupted() throws Exception {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Files.write(file, "corrupted".getBytes(StandardCharsets.UTF_8));
+            assert BootSnapshot.load(file) == null;
+            assert BootSnapshot.load(file.resolveSibling("not-exists.bin")) == null;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLoadInvalidCount() throws Exception {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            new BootSnapshot(42L, Arrays.asList("a.Root", "a.Leaf")).save(file);
+            byte[] saved = Files.readAllBytes(file);
+            // magic, version, fingerprint, then the count of names
+            for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+                ByteBuffer.wrap(saved).putInt(4 + 4 + 8, count);
+                Files.write(file, saved);
+                assert BootSnapshot.load(file) == null;
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        Path directory = Files.createTempDirectory("classes");
+        Path classFile = directory.resolve("A.class");
+        try {
+            Files.write(classFile, new byte[]{1, 2, 3});
+            String[] locations = {directory.toString(), "not-exists.jar"};
+
+            long fingerprint = ClassPathFingerprint.compute(locations);
+            assert fingerprint == ClassPathFingerprint.compute(locations);
+            assert fingerprint != ClassPathFingerprint.compute(locations, "com.apehat");
+
+            Files.write(classFile, new byte[]{1, 2, 3, 4});
+            assert fingerprint != ClassPathFingerprint.compute(locations);
+        } finally {
+            Files.deleteIfExists(classFile);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testFingerprintOfJar() throws Exception {
+        String jar = new File(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        long fingerprint = ClassPathFingerprint.compute(new String[]{jar});
+        assert fingerprint == ClassPathFingerprint.compute(new String[]{jar});
+        assert fingerprint != ClassPathFingerprint.compute(new String[0]);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class BootTimelineTest {
+
+    @Test
+    public void testPhase() {
+        BootTimeline timeline = new BootTimeline();
+        try (BootTimeline.Phase phase = timeline.begin("scan")) {
+            phase.count("scannedClasses", 3).count("scannedClasses", 2);
+        }
+        timeline.complete();
+
+        List<BootTimeline.Phase> phases = timeline.getPhases();
+        assert phases.size() == 1;
+        assert phases.get(0).getName().equals("scan");
+        assert phases.get(0).getNanos() >= 0;
+        assert phases.get(0).getCounters().get("scannedClasses") == 5;
+        assert timeline.getTotalNanos() >= phases.get(0).getNanos();
+    }
+
+    @Test
+    public void testPluginLaunch() {
+        BootTimeline timeline = new BootTimeline();
+        new PluginGraph(new PluginGraphTest.Root()).launch(Runnable::run, BootTimelineTest.class,
+                new CommandLineArgs(new String[0]), timeline);
+
+        List<BootTimeline.PluginLaunch> launches = timeline.getLaunches();
+        assert launches.size() == 1;
+        assert launches.get(0).getClassName().equals(PluginGraphTest.Root.class.getName());
+        assert launches.get(0).getThreadName().equals(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        BootTimeline timeline = new BootTimeline();
+        try (BootTimeline.Phase phase = timeline.begin("a \"quoted\" phase")) {
+            phase.count("plugins", 1);
+        }
+        timeline.recordLaunch(PluginGraphTest.Root.class, System.nanoTime(), 10);
+        timeline.complete();
+
+        Path file = Files.createTempFile("timeline", ".json");
+        try {
+            timeline.write(file);
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            assert json.startsWith("{\"totalNanos\":");
+            assert json.contains("\"name\":\"a \\\"quoted\\\" phase\"");
+            assert json.contains("\"counters\":{\"plugins\":1}");
+            assert json.contains("\"class\":\"" + PluginGraphTest.Root.class.getName() + "\"");
+            assert json.endsWith("]}");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
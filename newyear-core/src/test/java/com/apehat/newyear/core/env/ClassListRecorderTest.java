@@ -0,0 +1,120 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ClassListRecorderTest {
+
+    @Test
+    public void testRecordSupertypesFirst() {
+        ClassListRecorder recorder = new ClassListRecorder();
+        recorder.record(Child.class);
+        List<String> names = recorder.getClassNames();
+        int child = names.indexOf("com/apehat/newyear/core/env/ClassListRecorderTest$Child");
+        assert child >= 0;
+        assert names.indexOf("com/apehat/newyear/core/env/ClassListRecorderTest$Parent") < child;
+        assert names.indexOf("java/io/Serializable") < child;
+        assert names.indexOf("java/lang/Object") == 0;
+    }
+
+    @Test
+    public void testSkipUnarchivableClasses() {
+        ClassListRecorder recorder = new ClassListRecorder();
+        Runnable lambda = () -> {
+        };
+        Runnable anonymous = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        recorder.record(lambda.getClass());
+        recorder.record(anonymous.getClass());
+        recorder.record(int.class);
+        recorder.record(String[].class);
+        assert recorder.getClassNames().isEmpty();
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        ClassListRecorder recorder = new ClassListRecorder();
+        recorder.record(Parent.class);
+        Path file = Files.createTempDirectory("classlist").resolve("cds").resolve("classlist");
+        recorder.write(file);
+        assert Files.readAllLines(file).equals(recorder.getClassNames());
+    }
+
+    @Test
+    public void testTrainingRun() throws Exception {
+        // the same as the cds flags of build, the class list dumped below Java 10 is unusable
+        String version = System.getProperty("java.specification.version");
+        int major = Integer.parseInt((version.startsWith("1.") ? version.substring(2) : version).split("\\.")[0]);
+        if (major < 10) {
+            throw new SkipException("The class list training run requires Java 10 or later, current is " + version);
+        }
+        Path dir = Files.createTempDirectory("classlist");
+        Path dumped = dir.resolve("classlist.dumped");
+        Path recorded = dir.resolve("classlist.recorded");
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java,
+                "-XX:DumpLoadedClassList=" + dumped,
+                "-D" + Bootstrap.CDS_CLASS_LIST_PROPERTY + "=" + recorded,
+                "-cp", System.getProperty("java.class.path"),
+                Training.class.getName())
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("training.log").toFile())
+                .start();
+        assert process.waitFor(60, TimeUnit.SECONDS);
+        assert process.exitValue() == 0;
+
+        // the classes loaded in booting be dumped by JVM
+        List<String> dumpedNames = Files.readAllLines(dumped);
+        assert dumpedNames.contains("java/lang/Object");
+        assert dumpedNames.contains("com/apehat/newyear/core/env/Bootstrap");
+        assert dumpedNames.contains("com/apehat/newyear/core/env/PluginGraph");
+        // the framework recorded classes explicitly
+        List<String> recordedNames = Files.readAllLines(recorded);
+        assert recordedNames.contains("com/apehat/newyear/core/env/Bootstrap");
+        assert recordedNames.contains("com/apehat/newyear/core/env/mock/MockPlugin");
+    }
+
+    public static class Training {
+        public static void main(String[] args) {
+            Bootstrap.start(args);
+        }
+    }
+
+    static class Parent implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class Child extends Parent {
+        private static final long serialVersionUID = 1L;
+    }
+}
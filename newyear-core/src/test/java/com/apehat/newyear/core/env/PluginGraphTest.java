@@ -0,0 +1,192 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.env;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class PluginGraphTest {
+
+    @Test
+    public void testWaves() {
+        PluginGraph graph = new PluginGraph(new Leaf(), new Left(), new Right(), new Root());
+        List<List<Plugin>> waves = graph.getWaves();
+
+        assert waves.size() == 3;
+        assert waves.get(0).size() == 1 && waves.get(0).get(0) instanceof Root;
+        assert waves.get(1).size() == 2;
+        assert waves.get(2).size() == 1 && waves.get(2).get(0) instanceof Leaf;
+    }
+
+    @Test(expectedExceptions = BootException.class)
+    public void testCycle() {
+        new PluginGraph(new CycleA(), new CycleB());
+    }
+
+    @Test
+    public void testCycleOnlyReportCyclicPlugins() {
+        try {
+            // the dependent of cycle is first, so the cycle be found from it
+            new PluginGraph(new CycleDependent(), new Root(), new CycleA(), new CycleB());
+            assert false;
+        } catch (BootException e) {
+            String message = e.getMessage();
+            assert message.contains(CycleA.class.getName());
+            assert message.contains(CycleB.class.getName());
+            assert !message.contains(CycleDependent.class.getName());
+            assert !message.contains(Root.class.getName());
+        }
+    }
+
+    @Test
+    public void testLaunchConcurrently() throws Exception {
+        // the left and right wait each other, they must be launched concurrently
+        CountDownLatch latch = new CountDownLatch(2);
+        Set<Class<?>> launched = ConcurrentHashMap.newKeySet();
+        Plugin left = new Left() {
+            @Override
+            public void launch(Class<?> entrance, CommandLineArgs args) {
+                await(latch);
+                launched.add(Left.class);
+            }
+        };
+        Plugin right = new Right() {
+            @Override
+            public void launch(Class<?> entrance, CommandLineArgs args) {
+                await(latch);
+                launched.add(Right.class);
+            }
+        };
+        Plugin leaf = new Leaf() {
+            @Override
+            public void launch(Class<?> entrance, CommandLineArgs args) {
+                assert launched.size() == 2;
+                launched.add(Leaf.class);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // the left and right in the same wave, after root
+            PluginGraph graph = new PluginGraph(left, right, new Root());
+            graph.launch(executor, PluginGraphTest.class, new CommandLineArgs(new String[0]));
+            assert launched.size() == 2;
+            new PluginGraph(leaf).launch(executor, PluginGraphTest.class, new CommandLineArgs(new String[0]));
+            assert launched.size() == 3;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = BootException.class)
+    public void testLaunchFailure() {
+        Plugin failure = new Root() {
+            @Override
+            public void launch(Class<?> entrance, CommandLineArgs args) {
+                throw new IllegalStateException("failure");
+            }
+        };
+        new PluginGraph(failure, new Left()).launch(Runnable::run, PluginGraphTest.class, new CommandLineArgs(new String[0]));
+    }
+
+    private static void await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            assert latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Base implements Plugin {
+
+        @Override
+        public void launch(Class<?> entrance, CommandLineArgs args) {
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[0];
+        }
+    }
+
+    static class Root extends Base {
+    }
+
+    static class Left extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{Root.class};
+        }
+    }
+
+    static class Right extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{Root.class, NotExists.class};
+        }
+    }
+
+    static class Leaf extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{Left.class, Right.class};
+        }
+    }
+
+    static class NotExists extends Base {
+    }
+
+    static class CycleA extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{CycleB.class};
+        }
+    }
+
+    static class CycleB extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{CycleA.class};
+        }
+    }
+
+    static class CycleDependent extends Base {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<? extends Plugin>[] dependencies() {
+            return new Class[]{Root.class, CycleA.class};
+        }
+    }
+}
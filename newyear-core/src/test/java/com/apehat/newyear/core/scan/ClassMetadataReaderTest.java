@@ -0,0 +1,72 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.mock.AbstractPlugin;
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ClassMetadataReaderTest {
+
+    /** The major version of class file compiled by Java 21. */
+    private static final int JAVA_21 = 65;
+
+    @Test
+    public void testRead() throws Exception {
+        ClassMetadata metadata = ClassMetadataReader.read(classFile(MockPlugin.class));
+        assert metadata.getClassName().equals(MockPlugin.class.getName());
+        assert metadata.getSuperclassName().equals(AbstractPlugin.class.getName());
+    }
+
+    @Test
+    public void testReadNewerClassFileVersion() throws Exception {
+        byte[] bytes = classFile(MockPlugin.class);
+        bytes[6] = (byte) (JAVA_21 >>> 8);
+        bytes[7] = (byte) JAVA_21;
+
+        ClassMetadata metadata = ClassMetadataReader.read(bytes);
+        assert metadata.getClassName().equals(MockPlugin.class.getName());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadUnsupportedClassFileVersion() throws Exception {
+        byte[] bytes = classFile(MockPlugin.class);
+        bytes[6] = (byte) 0x7F;
+        ClassMetadataReader.read(bytes);
+    }
+
+    private static byte[] classFile(Class<?> aClass) throws IOException {
+        String name = aClass.getName().replace('.', '/') + ".class";
+        try (InputStream in = aClass.getClassLoader().getResourceAsStream(name)) {
+            assert in != null;
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.Plugin;
+import com.apehat.newyear.core.env.mock.AbstractPlugin;
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import com.apehat.newyear.core.env.mock.MockPlugin1;
+import com.apehat.newyear.core.env.mock.MockPlugin2;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ClassPathScannerTest {
+
+    @Test
+    public void testScan() throws Exception {
+        String location = location(MockPlugin.class);
+        ScanResult result = new ClassPathScanner().scan(location);
+
+        assert result.getLocations().contains(location);
+        ClassMetadata metadata = result.find(MockPlugin.class.getName());
+        assert metadata != null;
+        assert metadata.getSuperclassName().equals(AbstractPlugin.class.getName());
+        assert metadata.isConcrete();
+        assert metadata.isPublic();
+        assert !result.find(AbstractPlugin.class.getName()).isConcrete();
+    }
+
+    @Test
+    public void testGetSubtypes() throws Exception {
+        ScanResult result = new ClassPathScanner().scan(location(MockPlugin.class));
+
+        Set<String> subtypes = new HashSet<>();
+        for (ClassMetadata metadata : result.getSubtypes(Plugin.class.getName())) {
+            subtypes.add(metadata.getClassName());
+        }
+        assert subtypes.contains(AbstractPlugin.class.getName());
+        assert subtypes.contains(MockPlugin.class.getName());
+        assert subtypes.contains(MockPlugin1.class.getName());
+        assert subtypes.contains(MockPlugin2.class.getName());
+        assert !subtypes.contains(ClassPathScannerTest.class.getName());
+        assert result.isSubtype(MockPlugin.class.getName(), Object.class.getName());
+    }
+
+    @Test
+    public void testScanJarFile() throws Exception {
+        String location = location(MockPlugin.class);
+        File jar = File.createTempFile("scan", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            Path root = Paths.get(location);
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(root)) {
+                files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                out.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                out.write(Files.readAllBytes(file));
+                out.closeEntry();
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ClassPathScanner scanner = new ClassPathScanner(pool);
+            ScanResult byJar = scanner.scan(jar.getPath());
+            ScanResult byDirectory = scanner.scan(location);
+            assert byJar.getClasses().size() == byDirectory.getClasses().size();
+            assert byJar.find(MockPlugin.class.getName()).equals(byDirectory.find(MockPlugin.class.getName()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testScanNotExists() throws Exception {
+        ScanResult result = new ClassPathScanner().scan("not-exists");
+        assert result.getClasses().isEmpty();
+    }
+
+    private static String location(Class<?> aClass) throws URISyntaxException {
+        return new File(aClass.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class MappedJarReaderTest {
+
+    private static final byte[] STORED = "stored content".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DEFLATED = "deflated content, deflated content, deflated content"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testForEach() throws Exception {
+        try (MappedJarReader reader = MappedJarReader.open(createJar())) {
+            List<String> names = new ArrayList<>();
+            reader.forEach(entry -> names.add(entry.getName()));
+
+            assert reader.size() == 4;
+            assert names.contains("com/");
+            assert names.contains("com/stored.txt");
+            assert names.contains("com/deflated.txt");
+            assert names.contains("com/Mock.class");
+        }
+    }
+
+    @Test
+    public void testNameSlice() throws Exception {
+        byte[] prefix = "com/".getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = ".class".getBytes(StandardCharsets.UTF_8);
+        try (MappedJarReader reader = MappedJarReader.open(createJar())) {
+            int[] count = {0};
+            reader.forEach(entry -> {
+                assert entry.nameStartsWith(prefix);
+                if (entry.nameEndsWith(suffix)) {
+                    assert entry.getName().equals("com/Mock.class");
+                    count[0]++;
+                }
+                if (entry.isDirectory()) {
+                    assert entry.getName().equals("com/");
+                }
+            });
+            assert count[0] == 1;
+        }
+    }
+
+    @Test
+    public void testData() throws Exception {
+        try (MappedJarReader reader = MappedJarReader.open(createJar())) {
+            reader.forEach(entry -> {
+                try {
+                    if (entry.getName().equals("com/stored.txt")) {
+                        assert entry.isStored();
+                        ByteBuffer data = entry.data();
+                        assert data.isReadOnly();
+                        byte[] bytes = new byte[data.remaining()];
+                        data.get(bytes);
+                        assert new String(bytes, StandardCharsets.UTF_8).equals("stored content");
+                        assert readAll(entry.openStream()).equals("stored content");
+                    } else if (entry.getName().equals("com/deflated.txt")) {
+                        assert !entry.isStored();
+                        assert entry.getSize() == DEFLATED.length;
+                        assert readAll(entry.openStream()).equals(new String(DEFLATED, StandardCharsets.UTF_8));
+                        try {
+                            entry.data();
+                            assert false;
+                        } catch (ZipException e) {
+                            // expected
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testEntryAt() throws Exception {
+        try (MappedJarReader reader = MappedJarReader.open(createJar())) {
+            int[] offset = {-1};
+            reader.forEach(entry -> {
+                if (entry.getName().equals("com/deflated.txt")) {
+                    offset[0] = entry.offset();
+                }
+            });
+            assert reader.entryAt(offset[0]).getName().equals("com/deflated.txt");
+        }
+    }
+
+    @Test
+    public void testScanMappedJar() throws Exception {
+        ScanResult result = new ClassPathScanner().scan(createJar().getPath());
+        assert result.getClasses().size() == 1;
+        assert result.find(MockPlugin.class.getName()) != null;
+    }
+
+    @Test(expectedExceptions = ZipException.class)
+    public void testOpenNotZip() throws Exception {
+        File file = File.createTempFile("mapped", ".jar");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a zip file".getBytes(StandardCharsets.UTF_8));
+        }
+        MappedJarReader.open(file).close();
+    }
+
+    private static File createJar() throws Exception {
+        File jar = File.createTempFile("mapped", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("com/"));
+            out.closeEntry();
+
+            ZipEntry stored = new ZipEntry("com/stored.txt");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(STORED.length);
+            CRC32 crc = new CRC32();
+            crc.update(STORED);
+            stored.setCrc(crc.getValue());
+            out.putNextEntry(stored);
+            out.write(STORED);
+            out.closeEntry();
+
+            out.putNextEntry(new ZipEntry("com/deflated.txt"));
+            out.write(DEFLATED);
+            out.closeEntry();
+
+            out.putNextEntry(new ZipEntry("com/Mock.class"));
+            try (InputStream in = MockPlugin.class.getResourceAsStream(MockPlugin.class.getSimpleName() + ".class")) {
+                out.write(readBytes(in));
+            }
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static String readAll(InputStream in) throws Exception {
+        try (InputStream stream = in) {
+            return new String(readBytes(stream), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] readBytes(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class PackageFilterTest {
+
+    @Test
+    public void testAll() {
+        PackageFilter filter = PackageFilter.of(new String[0], new String[0]);
+
+        assert filter.isAll();
+        assert filter.accept("com/apehat/Foo.class");
+        assert filter.accept("Foo.class");
+        assert filter.mayContain("org/");
+    }
+
+    @Test
+    public void testInclude() {
+        PackageFilter filter = PackageFilter.of(new String[]{"com.apehat", "org.example.app"}, new String[0]);
+
+        assert filter.accept("com/apehat/Foo.class");
+        assert filter.accept("com/apehat/sub/Foo.class");
+        assert !filter.accept("com/apehatx/Foo.class");
+        assert !filter.accept("com/Foo.class");
+        assert !filter.accept("Foo.class");
+
+        assert filter.mayContain("");
+        assert filter.mayContain("com/");
+        assert filter.mayContain("org/example/");
+        assert filter.mayContain("com/apehat/sub/");
+        assert !filter.mayContain("net/");
+        assert !filter.mayContain("org/other/");
+        assert !filter.mayContain("com/apehatx/");
+    }
+
+    @Test
+    public void testIgnore() {
+        PackageFilter filter = PackageFilter.of(new String[]{"com.apehat", "com.apehat.internal.api"},
+                new String[]{"com.apehat.internal"});
+
+        assert filter.accept("com/apehat/Foo.class");
+        assert !filter.accept("com/apehat/internal/Foo.class");
+        // the longest prefix wins
+        assert filter.accept("com/apehat/internal/api/Foo.class");
+        assert filter.mayContain("com/apehat/internal/");
+        assert !filter.mayContain("com/apehat/internal/impl/");
+
+        PackageFilter ignoreOnly = PackageFilter.of(new String[0], new String[]{"com.apehat"});
+        assert ignoreOnly.accept("org/Foo.class");
+        assert !ignoreOnly.accept("com/apehat/Foo.class");
+        assert !ignoreOnly.mayContain("com/apehat/");
+    }
+
+    @Test
+    public void testAcceptEntry() throws Exception {
+        File jar = File.createTempFile("filter", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String name : new String[]{"com/apehat/A.class", "com/other/B.class", "C.class"}) {
+                out.putNextEntry(new ZipEntry(name));
+                out.closeEntry();
+            }
+        }
+
+        PackageFilter filter = PackageFilter.of(new String[]{"com.apehat"}, new String[0]);
+        List<String> accepted = new ArrayList<>();
+        try (MappedJarReader reader = MappedJarReader.open(jar)) {
+            reader.forEach(entry -> {
+                if (filter.accept(entry)) {
+                    accepted.add(entry.getName());
+                }
+            });
+        }
+        assert accepted.size() == 1;
+        assert accepted.get(0).equals("com/apehat/A.class");
+    }
+
+    @Test
+    public void testScanWithFilter() throws Exception {
+        String location = new File(MockPlugin.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        PackageFilter filter = PackageFilter.of(new String[]{MockPlugin.class.getPackage().getName()}, new String[0]);
+
+        ScanResult result = new ClassPathScanner(ForkJoinPool.commonPool(), null, filter).scan(location);
+        assert !result.getClasses().isEmpty();
+        for (ClassMetadata metadata : result.getClasses()) {
+            assert metadata.getPackageName().equals(MockPlugin.class.getPackage().getName());
+        }
+        assert result.find(MockPlugin.class.getName()) != null;
+    }
+}
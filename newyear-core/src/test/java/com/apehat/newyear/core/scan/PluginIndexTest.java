@@ -0,0 +1,74 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class PluginIndexTest {
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        PluginIndex index = new PluginIndex(Arrays.asList(
+                new PluginIndex.Entry(PluginIndex.Kind.ANNOTATED, "foo.Bar",
+                        new String[]{"foo.Baz"}, new String[]{"int", "[Ljava.lang.String;"}),
+                new PluginIndex.Entry(PluginIndex.Kind.IMPLEMENTATION, "foo.Qux", null, null)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        PluginIndex read = PluginIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assert read.getEntries().size() == 2;
+        PluginIndex.Entry annotated = read.getEntries(PluginIndex.Kind.ANNOTATED).get(0);
+        assert annotated.getClassName().equals("foo.Bar");
+        assert Arrays.equals(annotated.getDependencies(), new String[]{"foo.Baz"});
+        assert Arrays.equals(annotated.getStarterParameterTypes(), new String[]{"int", "[Ljava.lang.String;"});
+        List<PluginIndex.Entry> implementations = read.getEntries(PluginIndex.Kind.IMPLEMENTATION);
+        assert implementations.get(0).getDependencies().length == 0;
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        File root = Files.createTempDirectory("index").toFile();
+        root.deleteOnExit();
+        assert PluginIndex.load(root.getPath()) == null;
+
+        File file = new File(root, PluginIndex.LOCATION);
+        assert file.getParentFile().mkdirs();
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file)) {
+            new PluginIndex(Collections.singletonList(new PluginIndex.Entry(
+                    PluginIndex.Kind.IMPLEMENTATION, "foo.Bar", null, null))).write(out);
+        }
+        PluginIndex index = PluginIndex.load(root.getPath());
+        assert index != null;
+        assert index.getEntries().get(0).getClassName().equals("foo.Bar");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ScanCacheTest {
+
+    @Test
+    public void testCacheJar() throws Exception {
+        File jar = File.createTempFile("cached", ".jar");
+        jar.deleteOnExit();
+        writeJar(jar, MockPlugin.class);
+        Path file = Files.createTempDirectory("cache").resolve("scan.cache");
+        file.toFile().deleteOnExit();
+
+        ScanCache cache = ScanCache.load(file);
+        assert cache.get(jar.getPath()) == null;
+        ScanResult scanned = new ClassPathScanner(ForkJoinPool.commonPool(), cache).scan(jar.getPath());
+        cache.save();
+        assert Files.isRegularFile(file);
+
+        ScanCache loaded = ScanCache.load(file);
+        List<ClassMetadata> cached = loaded.get(jar.getPath());
+        assert cached != null;
+        assert cached.equals(scanned.getClasses(jar.getPath()));
+        assert new ClassPathScanner(ForkJoinPool.commonPool(), loaded).scan(jar.getPath())
+                .find(MockPlugin.class.getName()) != null;
+
+        // changed jar will be rescanned
+        writeJar(jar, MockPlugin.class, ScanCacheTest.class);
+        assert jar.setLastModified(jar.lastModified() + 2000);
+        assert loaded.get(jar.getPath()) == null;
+    }
+
+    @Test
+    public void testLoadCorrupted() throws Exception {
+        Path file = Files.createTempFile("corrupted", ".cache");
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[]{1, 2, 3});
+        assert ScanCache.load(file) != null;
+    }
+
+    @Test
+    public void testLoadInvalidCount() throws Exception {
+        File jar = File.createTempFile("cached", ".jar");
+        jar.deleteOnExit();
+        writeJar(jar, MockPlugin.class);
+        Path file = Files.createTempDirectory("cache").resolve("scan.cache");
+        file.toFile().deleteOnExit();
+        ScanCache cache = ScanCache.load(file);
+        new ClassPathScanner(ForkJoinPool.commonPool(), cache).scan(jar.getPath());
+        cache.save();
+
+        byte[] saved = Files.readAllBytes(file);
+        // magic, version, locations, location, fingerprint, then the count of classes
+        int offset = 4 + 4 + 4 + 2 + jar.getPath().length() + 8 * 3;
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(saved).putInt(offset, count);
+            Files.write(file, saved);
+            assert ScanCache.load(file).get(jar.getPath()) == null;
+        }
+    }
+
+    private static void writeJar(File jar, Class<?>... classes) throws Exception {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> aClass : classes) {
+                String name = aClass.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new JarEntry(name));
+                try (InputStream in = aClass.getClassLoader().getResourceAsStream(name)) {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+    }
+}
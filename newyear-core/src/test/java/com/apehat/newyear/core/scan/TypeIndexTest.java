@@ -0,0 +1,127 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.core.scan;
+
+import com.apehat.newyear.core.env.Plugin;
+import com.apehat.newyear.core.env.mock.AbstractPlugin;
+import com.apehat.newyear.core.env.mock.MockPlugin;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class TypeIndexTest {
+
+    private static final String OBJECT = "java.lang.Object";
+
+    @Test
+    public void testIsAssignable() {
+        TypeIndex index = new TypeIndex(Arrays.asList(
+                metadata("a.Top", OBJECT),
+                metadata("a.Middle", "a.Top", "a.Marker"),
+                metadata("a.Leaf", "a.Middle"),
+                metadata("a.Marker", OBJECT)));
+
+        assert index.isAssignable("a.Leaf", "a.Leaf");
+        assert index.isAssignable("a.Leaf", "a.Top");
+        assert index.isAssignable("a.Leaf", "a.Marker");
+        assert index.isAssignable("a.Leaf", OBJECT);
+        assert !index.isAssignable("a.Top", "a.Leaf");
+        assert !index.isAssignable("a.Leaf", "not.Exists");
+        assert index.isComplete(index.getId("a.Leaf"));
+    }
+
+    @Test
+    public void testGetSubtypes() {
+        TypeIndex index = new TypeIndex(Arrays.asList(
+                metadata("a.Top", OBJECT),
+                metadata("a.Middle", "a.Top"),
+                metadata("a.Leaf", "a.Middle"),
+                metadata("a.Other", OBJECT)));
+
+        BitSet subtypes = index.getSubtypes("a.Top");
+        assert subtypes.cardinality() == 2;
+        assert subtypes.get(index.getId("a.Middle"));
+        assert subtypes.get(index.getId("a.Leaf"));
+        assert index.getSubtypes("not.Exists").isEmpty();
+
+        // the returned bitset is a copy
+        subtypes.clear();
+        assert index.getSubtypes("a.Top").cardinality() == 2;
+    }
+
+    @Test
+    public void testIncomplete() {
+        TypeIndex index = new TypeIndex(Arrays.asList(
+                metadata("a.Leaf", "b.Unscanned"),
+                metadata("a.List", "java.util.AbstractList")));
+
+        int unscanned = index.getId("b.Unscanned");
+        assert unscanned >= 0;
+        assert !index.isScanned(unscanned);
+        assert !index.isComplete(unscanned);
+        assert !index.isComplete(index.getId("a.Leaf"));
+        // the types of JDK cannot extend the other types
+        assert index.isComplete(index.getId("a.List"));
+        assert index.getName(index.getId("a.Leaf")).equals("a.Leaf");
+    }
+
+    @Test
+    public void testScanResult() throws Exception {
+        String location = new File(MockPlugin.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        ScanResult result = new ClassPathScanner().scan(location);
+
+        Set<String> subtypes = new HashSet<>();
+        for (ClassMetadata metadata : result.getSubtypes(Plugin.class.getName())) {
+            subtypes.add(metadata.getClassName());
+        }
+        assert subtypes.contains(AbstractPlugin.class.getName());
+        assert subtypes.contains(MockPlugin.class.getName());
+        assert result.getTypeIndex() == result.getTypeIndex();
+        assert result.isSubtype(MockPlugin.class.getName(), Plugin.class.getName());
+        assert !result.isSubtype(MockPlugin.class.getName(), TypeIndexTest.class.getName());
+        assert result.isSubtype(TypeIndexTest.class.getName(), OBJECT);
+    }
+
+    @Test
+    public void testScanResultIncomplete() {
+        // the superclass wasn't scanned, the hierarchy can only be known by loading
+        List<ClassMetadata> classes = Collections.singletonList(metadata("a.Leaf", ArrayListSub.class.getName()));
+        ScanResult result = new ScanResult(Collections.singletonMap("location", classes));
+
+        assert !result.getTypeIndex().isComplete(result.getTypeIndex().getId("a.Leaf"));
+        assert result.isSubtype("a.Leaf", "java.util.List");
+        assert result.getSubtypes("java.util.List").size() == 1;
+    }
+
+    private static ClassMetadata metadata(String className, String superclassName, String... interfaceNames) {
+        return new ClassMetadata(className, superclassName, interfaceNames, null, 1);
+    }
+
+    public static class ArrayListSub extends java.util.ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ClassResolverTest {
+
+    @Test
+    public void testResolve() {
+        CountingClassLoader loader = new CountingClassLoader();
+        ClassResolver resolver = ClassResolver.of(loader);
+
+        assert resolver == ClassResolver.of(loader);
+        assert resolver.resolve("virtual.Type") == PlainType.class;
+        assert resolver.resolve("virtual.Type") == PlainType.class;
+        assert loader.found.get() == 1;
+    }
+
+    @Test
+    public void testNegativeCache() {
+        CountingClassLoader loader = new CountingClassLoader();
+        ClassResolver resolver = ClassResolver.of(loader);
+
+        assert resolver.resolve("not.Exists") == null;
+        assert !resolver.isAvailable("not.Exists");
+        assert loader.missed.get() == 1;
+
+        resolver.invalidate();
+        assert resolver.resolve("not.Exists") == null;
+        assert loader.missed.get() == 2;
+    }
+
+    @Test
+    public void testNegativeCacheBounded() {
+        CountingClassLoader loader = new CountingClassLoader();
+        ClassResolver resolver = ClassResolver.of(loader);
+
+        for (int i = 0; i <= ClassResolver.MAX_MISSED; i++) {
+            assert resolver.resolve("not.Exists" + i) == null;
+        }
+        int missed = loader.missed.get();
+        for (int i = 0; i <= ClassResolver.MAX_MISSED; i++) {
+            resolver.resolve("not.Exists" + i);
+        }
+        // only evicted names will be loaded again
+        assert loader.missed.get() - missed < ClassResolver.MAX_MISSED;
+    }
+
+    @Test
+    public void testForNameWithLoader() {
+        CountingClassLoader loader = new CountingClassLoader();
+
+        assert ClassUtils.forName("virtual.Type", loader) == PlainType.class;
+        assert ClassUtils.isAvailable("virtual.Type", loader);
+        assert !ClassUtils.isAvailable("virtual.Type");
+        assert ClassUtils.forName(String.class.getName(), loader) == String.class;
+    }
+
+    @Test
+    public void testBootstrap() {
+        assert ClassResolver.of(null).resolve(String.class.getName()) == String.class;
+        assert ClassResolver.of(null).resolve(ClassResolverTest.class.getName()) == null;
+    }
+
+    private static class PlainType {
+    }
+
+    /**
+     * Find {@code virtual.Type} as {@link PlainType}, and count the
+     * delegations of loading.
+     */
+    private static class CountingClassLoader extends ClassLoader {
+
+        private final AtomicInteger found = new AtomicInteger();
+        private final AtomicInteger missed = new AtomicInteger();
+
+        private CountingClassLoader() {
+            super(ClassResolverTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if ("virtual.Type".equals(name)) {
+                found.incrementAndGet();
+                return PlainType.class;
+            }
+            missed.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
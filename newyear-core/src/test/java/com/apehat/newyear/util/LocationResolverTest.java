@@ -0,0 +1,86 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+import java.net.URL;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class LocationResolverTest {
+
+    private final LocationResolver resolver = LocationResolver.of(LocationResolverTest.class.getClassLoader());
+
+    @Test
+    public void testGetProtocol() {
+        assert "http".equals(LocationResolver.getProtocol("http://example.com/a.jar"));
+        assert "jar".equals(LocationResolver.getProtocol("JAR:file:/a.jar!/"));
+        assert "svn+ssh".equals(LocationResolver.getProtocol("svn+ssh://example.com"));
+        assert LocationResolver.getProtocol("C:/example/a.jar") == null;
+        assert LocationResolver.getProtocol("com.apehat.newyear") == null;
+        assert LocationResolver.getProtocol("/example/a:b") == null;
+        assert LocationResolver.getProtocol("1abc:def") == null;
+    }
+
+    @Test
+    public void testResolveURL() throws Exception {
+        URL url = resolver.resolve("http://example.com/a.jar");
+        assert "http".equals(url.getProtocol());
+        assert "/a.jar".equals(url.getPath());
+    }
+
+    @Test
+    public void testResolvePackage() throws Exception {
+        URL url = resolver.resolve("com.apehat.newyear.util");
+        assert ResourceUtils.isClassPathURL(url);
+        assert url.getPath().endsWith("com/apehat/newyear/util");
+    }
+
+    @Test
+    public void testResolveUnknownProtocolAsFile() throws Exception {
+        URL url = resolver.resolve("unknown:example/a.txt");
+        assert ResourceUtils.isFileURL(url);
+        assert url.getPath().endsWith("unknown:example/a.txt");
+    }
+
+    @Test
+    public void testResolveJarFile() throws Exception {
+        URL url = resolver.resolve("/example/a.jar");
+        assert ResourceUtils.isJarURL(url);
+        assert url.toString().endsWith("/example/a.jar!/");
+    }
+
+    @Test
+    public void testResolvedURLBeCached() throws Exception {
+        String location = "com/apehat/newyear/util";
+        URL url = resolver.resolve(location);
+        assert resolver.resolve(location) == url;
+        resolver.invalidate();
+        URL again = resolver.resolve(location);
+        assert again != url;
+        assert again.equals(url);
+    }
+
+    @Test
+    public void testResolverOfClassLoader() {
+        ClassLoader loader = LocationResolverTest.class.getClassLoader();
+        assert LocationResolver.of(loader) == resolver;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ReflectionUtilsTest {
+
+    @Test
+    public void testGetCallerClass() {
+        assert Callee.call() == ReflectionUtilsTest.class;
+    }
+
+    @Test
+    public void testGetCallerClassThroughSameClass() {
+        assert Callee.callIndirectly() == ReflectionUtilsTest.class;
+    }
+
+    static class Callee {
+
+        static Class<?> call() {
+            return ReflectionUtils.getCallerClass();
+        }
+
+        static Class<?> callIndirectly() {
+            return call();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class SequenceTest {
+
+    @Test
+    public void testUpdate() {
+        Sequence sequence = new Sequence(10);
+        assert sequence.getAndIncrement() == 10;
+        assert sequence.incrementAndGet() == 12;
+        assert sequence.getAndAdd(5) == 12;
+        assert sequence.get() == 17;
+        assert !sequence.compareAndSet(10, 20);
+        assert sequence.compareAndSet(17, 20);
+        assert sequence.get() == 20;
+    }
+
+    @Test
+    public void testConcurrentIncrement() throws Exception {
+        Sequence sequence = new Sequence();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    sequence.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assert executor.awaitTermination(10, TimeUnit.SECONDS);
+        assert sequence.get() == 40000;
+    }
+}
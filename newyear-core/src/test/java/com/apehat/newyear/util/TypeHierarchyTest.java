@@ -0,0 +1,101 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class TypeHierarchyTest {
+
+    @Test
+    public void testOf() {
+        TypeHierarchy hierarchy = TypeHierarchy.of(Leaf.class);
+
+        assert hierarchy == TypeHierarchy.of(Leaf.class);
+        assert hierarchy.getType() == Leaf.class;
+    }
+
+    @Test
+    public void testGetSuperclasses() {
+        List<Class<?>> superclasses = TypeHierarchy.of(Leaf.class).getSuperclasses();
+
+        assert superclasses.size() == 2;
+        assert superclasses.get(0) == Base.class;
+        assert superclasses.get(1) == Object.class;
+        assert TypeHierarchy.of(Object.class).getSuperclasses().isEmpty();
+    }
+
+    @Test
+    public void testGetInterfaces() {
+        List<Class<?>> interfaces = TypeHierarchy.of(Leaf.class).getInterfaces();
+
+        assert interfaces.size() == 4;
+        assert interfaces.contains(Left.class);
+        assert interfaces.contains(Right.class);
+        assert interfaces.contains(Top.class);
+        assert interfaces.contains(Unrelated.class);
+        // the diamond interface only once
+        assert interfaces.indexOf(Top.class) == interfaces.lastIndexOf(Top.class);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testImmutable() {
+        TypeHierarchy.of(Leaf.class).getInterfaces().clear();
+    }
+
+    @Test
+    public void testGetInterfacesWithin() {
+        // the unrelated interface is declared first, but mustn't hide others
+        List<Class<?>> interfaces = TypeHierarchy.of(Leaf.class).getInterfacesWithin(Top.class);
+
+        assert interfaces.size() == 2;
+        assert interfaces.contains(Left.class);
+        assert interfaces.contains(Right.class);
+    }
+
+    @Test
+    public void testGetSuperclassesWithin() {
+        List<Class<?>> superclasses = TypeHierarchy.of(Leaf.class).getSuperclassesWithin(Top.class);
+
+        assert superclasses.size() == 1;
+        assert superclasses.get(0) == Base.class;
+        assert TypeHierarchy.of(Leaf.class).getSuperclassesWithin(Base.class).isEmpty();
+    }
+
+    interface Top {
+    }
+
+    interface Left extends Top {
+    }
+
+    interface Right extends Top {
+    }
+
+    interface Unrelated {
+    }
+
+    static class Base implements Right {
+    }
+
+    static class Leaf extends Base implements Unrelated, Left {
+    }
+}
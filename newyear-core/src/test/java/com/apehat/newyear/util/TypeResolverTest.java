@@ -0,0 +1,159 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.util;
+
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class TypeResolverTest {
+
+    @Test
+    public void testNotRetainUnrelatedClass() throws Exception {
+        WeakReference<ClassLoader> loader = resolveUnrelatedClass();
+        for (int i = 0; i < 10 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assert loader.get() == null;
+    }
+
+    private static WeakReference<ClassLoader> resolveUnrelatedClass() throws Exception {
+        URL location = Unrelated.class.getProtectionDomain().getCodeSource().getLocation();
+        // the parent is bootstrap class loader, so the class will be loaded by it again
+        URLClassLoader loader = new URLClassLoader(new URL[]{location}, null);
+        Class<?> unrelated = loader.loadClass(Unrelated.class.getName());
+        assert unrelated != Unrelated.class;
+        assert TypeResolver.resolveTypeArguments(Concrete.class, unrelated) == null;
+        loader.close();
+        return new WeakReference<>(loader);
+    }
+
+    @Test
+    public void testResolveNestedArguments() {
+        Type[] arguments = TypeResolver.resolveTypeArguments(Nested.class, Function.class);
+        assert arguments != null;
+        assert arguments[0] instanceof ParameterizedType;
+        assert ((ParameterizedType) arguments[0]).getRawType() == List.class;
+        assert ((ParameterizedType) arguments[0]).getActualTypeArguments()[0] == String.class;
+        assert ((ParameterizedType) arguments[1]).getRawType() == Map.class;
+    }
+
+    @Test
+    public void testResolveThroughTypeVariables() {
+        Type[] arguments = TypeResolver.resolveTypeArguments(Concrete.class, Function.class);
+        assert arguments != null;
+        // Pair<V, K> implements Function<List<K>, V[]>, Concrete extends Pair<Integer, String>
+        ParameterizedType input = (ParameterizedType) arguments[0];
+        assert input.getRawType() == List.class;
+        assert input.getActualTypeArguments()[0] == String.class;
+        assert arguments[1] == Integer[].class;
+
+        Type[] comparator = TypeResolver.resolveTypeArguments(Concrete.class, Comparator.class);
+        assert comparator != null && comparator[0] == String.class;
+    }
+
+    @Test
+    public void testUnresolvedTypeVariable() {
+        Type[] arguments = TypeResolver.resolveTypeArguments(Pair.class, Function.class);
+        assert arguments != null;
+        assert arguments[1] instanceof GenericArrayType;
+        Type component = ((GenericArrayType) arguments[1]).getGenericComponentType();
+        assert component instanceof TypeVariable;
+        assert ((TypeVariable<?>) component).getGenericDeclaration() == Pair.class;
+        assert TypeResolver.getRawClass(arguments[1]) == Number[].class;
+    }
+
+    @Test
+    public void testRawInheritance() {
+        Type[] arguments = TypeResolver.resolveTypeArguments(RawList.class, List.class);
+        assert arguments != null;
+        assert arguments[0] == Object.class;
+    }
+
+    @Test
+    public void testNotSubtype() {
+        assert TypeResolver.resolveTypeArguments(String.class, List.class) == null;
+    }
+
+    @Test
+    public void testResultIsCopied() {
+        Type[] arguments = TypeResolver.resolveTypeArguments(StringMap.class, Map.class);
+        assert arguments != null;
+        arguments[0] = Object.class;
+        Type[] again = TypeResolver.resolveTypeArguments(StringMap.class, Map.class);
+        assert Arrays.equals(again, new Type[]{String.class, String.class});
+    }
+
+    @Test
+    public void testResolveType() throws Exception {
+        Type type = Pair.class.getDeclaredField("keys").getGenericType();
+        Type resolved = TypeResolver.resolveType(type, Concrete.class);
+        assert resolved instanceof ParameterizedType;
+        assert ((ParameterizedType) resolved).getActualTypeArguments()[0] == String.class;
+        assert resolved.equals(Concrete.class.getDeclaredField("expected").getGenericType());
+        assert resolved.hashCode() == Concrete.class.getDeclaredField("expected").getGenericType().hashCode();
+    }
+
+    @Test
+    public void testGetGenericParameters() {
+        Class<?>[] parameters = GenericUtils.getGenericParameters(Concrete.class, Function.class);
+        assert Arrays.equals(parameters, new Class<?>[]{List.class, Integer[].class});
+        parameters = GenericUtils.getGenericParameters(Pair.class, Function.class);
+        assert Arrays.equals(parameters, new Class<?>[]{List.class, Number[].class});
+    }
+
+    interface Nested extends Function<List<String>, Map<String, List<Integer>>> {
+    }
+
+    static abstract class Pair<V extends Number, K> implements Function<List<K>, V[]>, Comparator<K> {
+        List<K> keys;
+    }
+
+    static abstract class Concrete extends Pair<Integer, String> {
+        List<String> expected;
+    }
+
+    @SuppressWarnings("rawtypes")
+    static class RawList extends ArrayList {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class StringMap extends HashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class Unrelated<T> {
+    }
+}
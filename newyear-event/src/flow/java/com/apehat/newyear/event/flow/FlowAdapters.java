@@ -0,0 +1,229 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.flow;
+
+import com.apehat.newyear.event.Event;
+import com.apehat.newyear.event.EventDispatcher;
+import com.apehat.newyear.event.EventSubscriber;
+import com.apehat.newyear.event.Subscription;
+import com.apehat.newyear.event.SubscriptionStrength;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * The adapters between {@link EventDispatcher} and the reactive streams of
+ * {@link Flow}. This class requires Java 9+, so it be packaged into the
+ * separate jar of classifier "flow", rather than the jar of event module.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class FlowAdapters {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlowAdapters.class);
+
+    private FlowAdapters() {
+    }
+
+    /**
+     * Returns a publisher, what publishes the events of specified type, be
+     * submitted to specified dispatcher.
+     * <p>
+     * The dispatcher is a hot source, the events arrive without demand of
+     * flow subscriber will be dropped. Each flow subscriber be subscribed
+     * to the dispatcher strongly, until it's subscription be cancelled.
+     *
+     * @param dispatcher the dispatcher, what must support unsubscribe
+     * @param eventType  the type of events to publish
+     * @param scope      the subscribe scope
+     * @param <E>        the event type of dispatcher
+     * @param <U>        the type of events to publish
+     * @return the publisher of events
+     * @throws NullPointerException specified dispatcher or event type is null
+     * @see EventDispatcher#subscribe(Class, EventSubscriber, SubscriptionStrength)
+     */
+    public static <E extends Event, U extends E> Flow.Publisher<U> toPublisher(
+            EventDispatcher<E> dispatcher, Class<U> eventType, String scope) {
+        Objects.requireNonNull(dispatcher, "Must specified dispatcher.");
+        Objects.requireNonNull(eventType, "Must specified event type.");
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Must specified subscriber.");
+            DemandSubscription<U> subscription = new DemandSubscription<>(subscriber, scope);
+            subscriber.onSubscribe(subscription);
+            try {
+                subscription.attach(dispatcher.subscribe(eventType, subscription, SubscriptionStrength.STRONG));
+            } catch (RuntimeException e) {
+                subscription.fail(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a flow subscriber, what submits the received events to
+     * specified dispatcher. It requests unbounded events, since the
+     * dispatcher never blocks the submitter.
+     *
+     * @param dispatcher the dispatcher to submit events
+     * @param <T>        the type of events
+     * @return the flow subscriber
+     * @throws NullPointerException specified dispatcher is null
+     */
+    public static <T extends Event> Flow.Subscriber<T> toSubscriber(EventDispatcher<? super T> dispatcher) {
+        Objects.requireNonNull(dispatcher, "Must specified dispatcher.");
+        return new SubmittingSubscriber<>(dispatcher);
+    }
+
+    private static final class DemandSubscription<T extends Event> implements Flow.Subscription, EventSubscriber<T> {
+
+        private static final VarHandle DEMAND;
+
+        static {
+            try {
+                DEMAND = MethodHandles.lookup().findVarHandle(DemandSubscription.class, "demand", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final String scope;
+
+        private volatile long demand;
+        private volatile boolean cancelled;
+        private volatile Subscription subscription;
+
+        private DemandSubscription(Flow.Subscriber<? super T> subscriber, String scope) {
+            this.subscriber = subscriber;
+            this.scope = scope;
+        }
+
+        private void attach(Subscription subscription) {
+            this.subscription = subscription;
+            // cancelled before be attached
+            if (cancelled) {
+                subscription.unsubscribe();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Request must be positive, but " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = demand;
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!DEMAND.compareAndSet(this, current, next));
+        }
+
+        private boolean tryConsume() {
+            for (; ; ) {
+                long current = demand;
+                if (current == 0) {
+                    return false;
+                }
+                if (current == Long.MAX_VALUE || DEMAND.compareAndSet(this, current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void handle(T content) {
+            if (cancelled || !tryConsume()) {
+                return;
+            }
+            // the dispatcher may call subscriber concurrently, the signals must be serial
+            synchronized (this) {
+                if (!cancelled) {
+                    subscriber.onNext(content);
+                }
+            }
+        }
+
+        @Override
+        public String within() {
+            return scope;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Subscription current = subscription;
+            if (current != null) {
+                current.unsubscribe();
+            }
+        }
+
+        private void fail(Throwable cause) {
+            if (cancelled) {
+                return;
+            }
+            cancel();
+            synchronized (this) {
+                subscriber.onError(cause);
+            }
+        }
+    }
+
+    private static final class SubmittingSubscriber<T extends Event> implements Flow.Subscriber<T> {
+
+        private final EventDispatcher<? super T> dispatcher;
+        private Flow.Subscription subscription;
+
+        private SubmittingSubscriber(EventDispatcher<? super T> dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            Objects.requireNonNull(subscription, "Must specified subscription.");
+            if (this.subscription != null) {
+                // only one upstream be allowed
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            dispatcher.submit(Objects.requireNonNull(item, "Must specified event."));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            logger.warn("The upstream of [{}] failed: {}", dispatcher, throwable.toString());
+        }
+
+        @Override
+        public void onComplete() {
+            if (logger.isDebugEnabled()) {
+                logger.debug("The upstream of [{}] completed.", dispatcher);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.flow;
+
+import com.apehat.newyear.event.IndexedDispatcher;
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class FlowAdaptersTest {
+
+    @Test
+    public void testPublisherRespectDemand() {
+        IndexedDispatcher<MockEvent> dispatcher = new IndexedDispatcher<>();
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        FlowAdapters.toPublisher(dispatcher, MockEvent.class, MockEvent.SCOPE).subscribe(subscriber);
+
+        MockEvent first = new MockEvent();
+        MockEvent second = new MockEvent();
+        dispatcher.submit(first);
+        dispatcher.submit(second);
+        dispatcher.submit(new MockEvent());
+        assert subscriber.received.size() == 2;
+        assert subscriber.received.get(0) == first;
+        assert subscriber.received.get(1) == second;
+
+        subscriber.subscription.request(1);
+        dispatcher.submit(new MockEvent());
+        assert subscriber.received.size() == 3;
+    }
+
+    @Test
+    public void testPublisherCancel() {
+        IndexedDispatcher<MockEvent> dispatcher = new IndexedDispatcher<>();
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        FlowAdapters.toPublisher(dispatcher, MockEvent.class, MockEvent.SCOPE).subscribe(subscriber);
+
+        dispatcher.submit(new MockEvent());
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        dispatcher.submit(new MockEvent());
+        assert subscriber.received.size() == 1;
+        assert subscriber.errors.isEmpty();
+    }
+
+    @Test
+    public void testPublisherRejectNonPositiveRequest() {
+        IndexedDispatcher<MockEvent> dispatcher = new IndexedDispatcher<>();
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        FlowAdapters.toPublisher(dispatcher, MockEvent.class, MockEvent.SCOPE).subscribe(subscriber);
+
+        assert subscriber.errors.size() == 1;
+        assert subscriber.errors.get(0) instanceof IllegalArgumentException;
+        dispatcher.submit(new MockEvent());
+        assert subscriber.received.isEmpty();
+    }
+
+    @Test
+    public void testSubscriberSubmitToDispatcher() {
+        IndexedDispatcher<MockEvent> dispatcher = new IndexedDispatcher<>();
+        MockSubscriber subscriber = new MockSubscriber();
+        dispatcher.subscribe(MockEvent.class, subscriber);
+
+        MockEvent event = new MockEvent();
+        try (SubmissionPublisher<MockEvent> publisher = new SubmissionPublisher<>(Runnable::run, 16)) {
+            publisher.subscribe(FlowAdapters.toSubscriber(dispatcher));
+            publisher.submit(event);
+        }
+        assert subscriber.getHandled().size() == 1;
+        assert subscriber.getHandled().get(0) == event;
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<MockEvent> {
+
+        private final long initialRequest;
+        private final List<MockEvent> received = new CopyOnWriteArrayList<>();
+        private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        private volatile Flow.Subscription subscription;
+
+        private RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(MockEvent item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
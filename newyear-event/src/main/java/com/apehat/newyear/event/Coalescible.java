@@ -0,0 +1,38 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * The event can be coalesced with the other events of same type and same
+ * coalescing key, i.e. the "latest value wins" event, such as progress or
+ * price update.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see CoalescingDispatcher
+ */
+public interface Coalescible extends Event {
+
+    /**
+     * Returns the coalescing key of this event. The events with same type
+     * and equal keys will be coalesced, within a coalescing window. If the
+     * key is null, this event will not be coalesced.
+     *
+     * @return the coalescing key of this event
+     */
+    Object coalescingKey();
+}
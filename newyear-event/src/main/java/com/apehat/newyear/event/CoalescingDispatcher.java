@@ -0,0 +1,404 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.validation.Validation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * A dispatcher decorator, to coalesce the events with same type and same
+ * coalescing key, within a window. The first event of a key opens the
+ * window, the later events of the key within the window will be merged
+ * with the pending one (by default, replace it), and the pending event will
+ * be submitted to the delegate when the window closed. So the subscribers
+ * only see the latest state per key.
+ * <p>
+ * The events without coalescing key (i.e. the key function returns null),
+ * will be submitted to the delegate immediately.
+ * <p>
+ * The windows be closed by a scheduler, what may be shared by many
+ * dispatchers, so the coalesced events be handed off to an executor to
+ * submit, within the {@link TraceContext} of the last merged submitter. A
+ * slow subscriber only delays it's own dispatcher.
+ *
+ * @param <T> the type of event can be dispatched
+ * @author hanpengfei
+ * @since 1.0
+ * @see Coalescible
+ */
+public final class CoalescingDispatcher<T extends Event> implements EventDispatcher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingDispatcher.class);
+
+    private final EventDispatcher<T> delegate;
+    private final Function<? super T, ?> keyFunction;
+    private final BinaryOperator<T> merger;
+    private final long windowNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    /**
+     * The opened windows, key by event type and coalescing key.
+     */
+    private final Map<Key, Window<T>> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Create a dispatcher to coalesce the {@link Coalescible} events by
+     * their coalescing keys, the later event will replace the pending one.
+     *
+     * @param delegate the dispatcher to dispatch coalesced events
+     * @param window   the coalescing window
+     * @param unit     the time unit of window
+     */
+    public CoalescingDispatcher(EventDispatcher<T> delegate, long window, TimeUnit unit) {
+        this(delegate, CoalescingDispatcher::coalescingKey, window, unit);
+    }
+
+    /**
+     * Create a dispatcher to coalesce the events by specified key function,
+     * the later event will replace the pending one.
+     *
+     * @param delegate    the dispatcher to dispatch coalesced events
+     * @param keyFunction the function to extract coalescing key
+     * @param window      the coalescing window
+     * @param unit        the time unit of window
+     */
+    public CoalescingDispatcher(EventDispatcher<T> delegate, Function<? super T, ?> keyFunction,
+                                long window, TimeUnit unit) {
+        this(delegate, keyFunction, (older, newer) -> newer, window, unit, null, null);
+    }
+
+    /**
+     * Create a dispatcher to coalesce the events by specified key function,
+     * and merge function.
+     *
+     * @param delegate    the dispatcher to dispatch coalesced events
+     * @param keyFunction the function to extract coalescing key
+     * @param merger      the function to merge the pending (the first
+     *                    argument) and the later event
+     * @param window      the coalescing window
+     * @param unit        the time unit of window
+     * @param scheduler   the scheduler to close windows, or null to use the
+     *                    daemon scheduler shared by all coalescing dispatchers
+     * @param executor    the executor to submit the coalesced events to the
+     *                    delegate, or null to use {@link ForkJoinPool#commonPool()}
+     * @throws NullPointerException     any argument, except scheduler and
+     *                                  executor, is null
+     * @throws IllegalArgumentException the window isn't positive
+     */
+    public CoalescingDispatcher(EventDispatcher<T> delegate, Function<? super T, ?> keyFunction,
+                                BinaryOperator<T> merger, long window, TimeUnit unit,
+                                ScheduledExecutorService scheduler, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate, "Must specified a delegate.");
+        this.keyFunction = Objects.requireNonNull(keyFunction, "Must specified a key function.");
+        this.merger = Objects.requireNonNull(merger, "Must specified a merger.");
+        Objects.requireNonNull(unit, "Must specified time unit of window.");
+        Validation.requireTrue(window > 0, "Window must be positive, but %s", window);
+        this.windowNanos = unit.toNanos(window);
+
+        this.scheduler = scheduler == null ? SharedScheduler.INSTANCE : scheduler;
+        this.executor = executor == null ? ForkJoinPool.commonPool() : executor;
+    }
+
+    /**
+     * Returns a provider to provide the coalescing dispatchers, what
+     * decorate the dispatchers provided by specified provider. The returned
+     * provider has same lifecycle as the specified provider.
+     *
+     * @param provider    the provider of delegates
+     * @param keyFunction the function to extract coalescing key
+     * @param window      the coalescing window
+     * @param unit        the time unit of window
+     * @param <T>         the type of event can be dispatched
+     * @return a provider of coalescing dispatchers
+     * @throws NullPointerException specified provider is null
+     */
+    public static <T extends Event> DispatcherProvider<CoalescingDispatcher<T>> provider(
+            DispatcherProvider<? extends EventDispatcher<T>> provider,
+            Function<? super T, ?> keyFunction, long window, TimeUnit unit) {
+        return provider(provider, keyFunction, (older, newer) -> newer, window, unit, null, null);
+    }
+
+    /**
+     * Returns a provider to provide the coalescing dispatchers, what
+     * decorate the dispatchers provided by specified provider. The returned
+     * provider has same lifecycle as the specified provider, and all of the
+     * provided dispatchers close their windows by the same scheduler.
+     *
+     * @param provider    the provider of delegates
+     * @param keyFunction the function to extract coalescing key
+     * @param merger      the function to merge the pending (the first
+     *                    argument) and the later event
+     * @param window      the coalescing window
+     * @param unit        the time unit of window
+     * @param scheduler   the scheduler to close windows, or null to use the
+     *                    daemon scheduler shared by all coalescing dispatchers
+     * @param executor    the executor to submit the coalesced events to the
+     *                    delegates, or null to use {@link ForkJoinPool#commonPool()}
+     * @param <T>         the type of event can be dispatched
+     * @return a provider of coalescing dispatchers
+     * @throws NullPointerException specified provider is null
+     */
+    public static <T extends Event> DispatcherProvider<CoalescingDispatcher<T>> provider(
+            DispatcherProvider<? extends EventDispatcher<T>> provider,
+            Function<? super T, ?> keyFunction, BinaryOperator<T> merger, long window, TimeUnit unit,
+            ScheduledExecutorService scheduler, Executor executor) {
+        Objects.requireNonNull(provider, "Must specified a provider.");
+        return new DispatcherProvider<CoalescingDispatcher<T>>() {
+            @Override
+            public CoalescingDispatcher<T> get() {
+                return new CoalescingDispatcher<>(provider.get(), keyFunction, merger, window, unit,
+                        scheduler, executor);
+            }
+
+            @Override
+            public DispatcherLifecycle lifecycle() {
+                return provider.lifecycle();
+            }
+
+            @Override
+            public int poolSize() {
+                return provider.poolSize();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException this dispatcher had been shutdown
+     */
+    @Override
+    public void submit(T event) {
+        Objects.requireNonNull(event, "Cannot submit null");
+        if (shutdown) {
+            throw new IllegalStateException(this + " already be shutdown.");
+        }
+
+        Object coalescingKey = keyFunction.apply(event);
+        if (coalescingKey == null) {
+            delegate.submit(event);
+            return;
+        }
+
+        Key key = new Key(event.getClass(), coalescingKey);
+        TraceContext context = TraceContext.current();
+        Window<T> opened = new Window<>(event, context);
+        Window<T> window = pending.compute(key, (k, older) -> {
+            if (older == null) {
+                return opened;
+            }
+            older.merge(merger.apply(older.event, event), context);
+            return older;
+        });
+        // only the event opened window, need to schedule the closing
+        if (window == opened) {
+            try {
+                opened.future = scheduler.schedule(() -> close(key), windowNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // the scheduler had be shutdown - don't lose the event
+                close(key);
+            }
+        }
+    }
+
+    /**
+     * Submit all pending events to the delegate immediately, on current
+     * thread.
+     */
+    public void flush() {
+        for (Key key : pending.keySet()) {
+            Window<T> window = pending.remove(key);
+            if (window != null) {
+                window.cancel();
+                submit(window);
+            }
+        }
+    }
+
+    /**
+     * Close the window of specified key, and hand off the coalesced event to
+     * the executor, rather than submit it on the scheduler thread.
+     */
+    private void close(Key key) {
+        Window<T> window = pending.remove(key);
+        if (window == null || shutdown) {
+            // flushed, or shutdown (the late window be dropped)
+            return;
+        }
+        try {
+            executor.execute(() -> submit(window));
+        } catch (RejectedExecutionException e) {
+            logger.error("Dispatch coalesced event [{}] rejected.", window.event, e);
+        }
+    }
+
+    private void submit(Window<T> window) {
+        T event = window.event;
+        TraceContext context = window.context;
+        TraceContext previous = context == null ? null : context.attach();
+        try {
+            delegate.submit(event);
+        } catch (RuntimeException e) {
+            logger.error("Dispatch coalesced event [{}] failed.", event, e);
+        } finally {
+            if (context != null) {
+                TraceContext.restore(previous);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(EventSubscriber<? super T> subscriber) {
+        delegate.subscribe(subscriber);
+    }
+
+    @Override
+    public <U extends T> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber) {
+        delegate.subscribe(eventType, subscriber);
+    }
+
+    @Override
+    public <U extends T> void subscribe(Class<U> eventType, EventFilter<? super U> filter,
+                                        EventSubscriber<? super U> subscriber) {
+        delegate.subscribe(eventType, filter, subscriber);
+    }
+
+    @Override
+    public <U extends T> Subscription subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber,
+                                                SubscriptionStrength strength) {
+        return delegate.subscribe(eventType, subscriber, strength);
+    }
+
+    @Override
+    public void reset() {
+        for (Window<T> window : pending.values()) {
+            window.cancel();
+        }
+        pending.clear();
+        delegate.reset();
+    }
+
+    /**
+     * Flush all pending events, then shutdown the delegate. The windows
+     * closed after shutdown will be dropped. The scheduler and executor may
+     * be shared, so they will not be shutdown.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        flush();
+        delegate.shutdown();
+    }
+
+    private static Object coalescingKey(Event event) {
+        return event instanceof Coalescible ? ((Coalescible) event).coalescingKey() : null;
+    }
+
+    /**
+     * The daemon scheduler shared by all coalescing dispatchers, be created
+     * on first use.
+     */
+    private static final class SharedScheduler {
+
+        private static final ScheduledExecutorService INSTANCE =
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "coalescing-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * The window of a coalescing key, the pending event, and the trace
+     * context of it's last submitter.
+     */
+    private static final class Window<T> {
+
+        private volatile T event;
+        private volatile TraceContext context;
+        private volatile ScheduledFuture<?> future;
+
+        private Window(T event, TraceContext context) {
+            this.event = event;
+            this.context = context;
+        }
+
+        /**
+         * Be called within the compute of the map, so it's atomic with the
+         * removing of window.
+         */
+        private void merge(T event, TraceContext context) {
+            this.event = event;
+            this.context = context;
+        }
+
+        private void cancel() {
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The coalescing key, with the event type.
+     */
+    private static final class Key {
+
+        private final Class<?> type;
+        private final Object key;
+
+        private Key(Class<?> type, Object key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return type == that.type && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.validation.Validation;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Holds the dispatchers obtained from a {@link DispatcherProvider},
+ * according to it's {@link DispatcherLifecycle}.
+ * <p>
+ * The subscriptions made by {@link #subscribe(Class, EventSubscriber)} will
+ * be recorded, and be applied to every held dispatcher, include the
+ * dispatchers will be obtained later. So no subscription will be lost, even
+ * if there are many dispatchers.
+ *
+ * @param <T> the type of held dispatcher
+ * @author hanpengfei
+ * @since 1.0
+ */
+abstract class DispatcherHolder<T extends EventDispatcher<?>> {
+
+    private final DispatcherProvider<? extends T> provider;
+
+    /**
+     * The dispatchers had been obtained, and the threads own them (null if
+     * the dispatcher isn't owned by a thread), guarded by this.
+     * <p>
+     * The owners are referenced weakly, the dispatchers of the dead threads
+     * will be removed and be shutdown, when next dispatcher be obtained.
+     */
+    private final Map<T, WeakReference<Thread>> instances = new IdentityHashMap<>();
+
+    /**
+     * The subscriptions had been made, guarded by this.
+     */
+    private final List<Consumer<EventDispatcher<?>>> subscriptions = new ArrayList<>();
+
+    private volatile boolean shutdown = false;
+
+    private DispatcherHolder(DispatcherProvider<? extends T> provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Create a holder by the lifecycle of specified provider.
+     *
+     * @param provider the provider to provide dispatchers
+     * @param <T>      the type of provided dispatcher
+     * @return a new holder
+     * @throws NullPointerException     specified provider is null
+     * @throws IllegalArgumentException the pool size of pooled provider less than 1
+     */
+    static <T extends EventDispatcher<?>> DispatcherHolder<T> of(DispatcherProvider<? extends T> provider) {
+        Validation.requireNonNull(provider, "Must specified a provider.");
+
+        DispatcherLifecycle lifecycle = provider.lifecycle();
+        if (lifecycle == null) {
+            lifecycle = DispatcherLifecycle.SINGLETON;
+        }
+        switch (lifecycle) {
+            case THREAD_LOCAL:
+                return new ThreadLocalHolder<>(provider);
+            case POOLED:
+                return new PooledHolder<>(provider);
+            default:
+                return new SingletonHolder<>(provider);
+        }
+    }
+
+    /**
+     * Returns the provider of this holder.
+     *
+     * @return the provider of this holder
+     */
+    DispatcherProvider<? extends T> provider() {
+        return provider;
+    }
+
+    /**
+     * Returns a dispatcher be appropriate to current thread.
+     *
+     * @return a dispatcher
+     * @throws IllegalStateException this holder already be shutdown
+     */
+    T get() {
+        if (shutdown) {
+            throw new IllegalStateException("Dispatchers of " + provider + " already be shutdown.");
+        }
+        return doGet();
+    }
+
+    /**
+     * Subscribe the specified subscriber to all dispatchers of this holder.
+     *
+     * @param eventType  the type token to subscribe
+     * @param subscriber the subscriber
+     * @param <U>        the type of type token
+     */
+    <U extends Event> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber) {
+        // Type safe, the holder only be registered by the event type, what
+        // can be dispatched by the dispatchers of the holder
+        @SuppressWarnings({"unchecked", "rawtypes"}) Consumer<EventDispatcher<?>> subscription =
+                dispatcher -> ((EventDispatcher) dispatcher).subscribe(eventType, subscriber);
+        record(subscription);
+    }
+
+    /**
+     * Subscribe the specified subscriber with filter to all dispatchers of
+     * this holder.
+     *
+     * @param eventType  the type token to subscribe
+     * @param filter     the filter of events
+     * @param subscriber the subscriber
+     * @param <U>        the type of type token
+     */
+    <U extends Event> void subscribe(Class<U> eventType, EventFilter<? super U> filter,
+                                     EventSubscriber<? super U> subscriber) {
+        // Type safe, same as the subscribing without filter
+        @SuppressWarnings({"unchecked", "rawtypes"}) Consumer<EventDispatcher<?>> subscription =
+                dispatcher -> ((EventDispatcher) dispatcher).subscribe(eventType, filter, subscriber);
+        record(subscription);
+    }
+
+    /**
+     * Subscribe the specified subscriber by specified strength to all
+     * dispatchers of this holder. The returned subscription will
+     * unsubscribe from all dispatchers, and stop the subscribing of the
+     * dispatchers obtained later.
+     *
+     * @param eventType  the type token to subscribe
+     * @param subscriber the subscriber
+     * @param strength   the strength of reference to the subscriber
+     * @param <U>        the type of type token
+     * @return the subscription of all dispatchers
+     */
+    <U extends Event> Subscription subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber,
+                                             SubscriptionStrength strength) {
+        HolderSubscription subscription = new HolderSubscription(eventType, subscriber, strength);
+        record(subscription);
+        return subscription;
+    }
+
+    /**
+     * Apply the subscription to the held dispatchers, and record it after
+     * succeed. So a subscription the dispatchers refused, will not break
+     * the dispatchers obtained later.
+     */
+    private void record(Consumer<EventDispatcher<?>> subscription) {
+        synchronized (this) {
+            try {
+                for (T instance : instances.keySet()) {
+                    subscription.accept(instance);
+                }
+            } catch (RuntimeException e) {
+                if (subscription instanceof Subscription) {
+                    // undo the subscriptions of the dispatchers already accepted
+                    ((Subscription) subscription).unsubscribe();
+                }
+                throw e;
+            }
+            subscriptions.add(subscription);
+        }
+    }
+
+    /**
+     * Shutdown all dispatchers of this holder.
+     */
+    void shutdown() {
+        List<T> toShutdown;
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            toShutdown = new ArrayList<>(instances.keySet());
+            instances.clear();
+            subscriptions.clear();
+        }
+        for (T instance : toShutdown) {
+            instance.shutdown();
+        }
+    }
+
+    /**
+     * Obtain a new dispatcher form the provider, and apply all recorded
+     * subscriptions to it.
+     *
+     * @return a new dispatcher
+     * @throws IllegalStateException the provider provided null
+     */
+    final T newInstance() {
+        return newInstance(null);
+    }
+
+    /**
+     * Obtain a new dispatcher owned by specified thread, and apply all
+     * recorded subscriptions to it. The dispatchers of the dead threads will
+     * be removed and be shutdown.
+     *
+     * @param owner the thread owns the new dispatcher, or null
+     * @return a new dispatcher
+     * @throws IllegalStateException the provider provided null
+     */
+    final T newInstance(Thread owner) {
+        T instance = provider.get();
+        if (instance == null) {
+            throw new IllegalStateException(provider + " provided null dispatcher.");
+        }
+        List<T> stale;
+        synchronized (this) {
+            for (Consumer<EventDispatcher<?>> subscription : subscriptions) {
+                subscription.accept(instance);
+            }
+            instances.put(instance, owner == null ? null : new WeakReference<>(owner));
+            stale = removeStale();
+        }
+        for (T dispatcher : stale) {
+            dispatcher.shutdown();
+        }
+        return instance;
+    }
+
+    /**
+     * Remove the dispatchers, what owned by the dead threads.
+     *
+     * @return the removed dispatchers
+     */
+    private List<T> removeStale() {
+        assert Thread.holdsLock(this);
+        List<T> stale = new ArrayList<>();
+        Iterator<Map.Entry<T, WeakReference<Thread>>> iterator = instances.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<T, WeakReference<Thread>> entry = iterator.next();
+            WeakReference<Thread> reference = entry.getValue();
+            if (reference == null) {
+                continue;
+            }
+            Thread owner = reference.get();
+            if (owner == null || !owner.isAlive()) {
+                stale.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Returns the count of the dispatchers held by this holder.
+     *
+     * @return the count of held dispatchers
+     */
+    synchronized int size() {
+        return instances.size();
+    }
+
+    abstract T doGet();
+
+    /**
+     * The subscription of all dispatchers of this holder.
+     */
+    private final class HolderSubscription implements Subscription, Consumer<EventDispatcher<?>> {
+
+        private final Class<? extends Event> eventType;
+        private final SubscriptionStrength strength;
+
+        /**
+         * The subscriber, if the strength is strong, otherwise null.
+         */
+        private final EventSubscriber<?> subscriber;
+
+        /**
+         * The reference to subscriber, if the strength isn't strong. So
+         * this holder will not keep the subscriber alive.
+         */
+        private final Reference<EventSubscriber<?>> reference;
+
+        /**
+         * The subscriptions of the dispatchers, guarded by holder.
+         */
+        private final List<Subscription> subscriptions = new ArrayList<>();
+
+        private volatile boolean active = true;
+
+        private HolderSubscription(Class<? extends Event> eventType, EventSubscriber<?> subscriber,
+                                   SubscriptionStrength strength) {
+            Validation.requireNonNull(subscriber, "Must specified subscriber.");
+            Validation.requireNonNull(strength, "Must specified strength.");
+            this.eventType = eventType;
+            this.strength = strength;
+            if (strength == SubscriptionStrength.STRONG) {
+                this.subscriber = subscriber;
+                this.reference = null;
+            } else {
+                this.subscriber = null;
+                this.reference = SubscriptionReaper.reference(subscriber, strength, this::unsubscribe);
+            }
+        }
+
+        private EventSubscriber<?> subscriber() {
+            return reference == null ? subscriber : reference.get();
+        }
+
+        @Override
+        public void accept(EventDispatcher<?> dispatcher) {
+            EventSubscriber<?> subscriberToUse = subscriber();
+            if (active && subscriberToUse != null) {
+                // Type safe, same as the subscribing without strength
+                @SuppressWarnings({"unchecked", "rawtypes"}) Subscription subscription =
+                        ((EventDispatcher) dispatcher).subscribe(eventType, subscriberToUse, strength);
+                subscriptions.add(subscription);
+            }
+        }
+
+        @Override
+        public void unsubscribe() {
+            List<Subscription> toUnsubscribe;
+            synchronized (DispatcherHolder.this) {
+                if (!active) {
+                    return;
+                }
+                active = false;
+                DispatcherHolder.this.subscriptions.remove(this);
+                toUnsubscribe = new ArrayList<>(subscriptions);
+                subscriptions.clear();
+            }
+            for (Subscription subscription : toUnsubscribe) {
+                subscription.unsubscribe();
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return active && subscriber() != null;
+        }
+    }
+
+    private static final class SingletonHolder<T extends EventDispatcher<?>> extends DispatcherHolder<T> {
+
+        private final T instance;
+
+        private SingletonHolder(DispatcherProvider<? extends T> provider) {
+            super(provider);
+            instance = newInstance();
+        }
+
+        @Override
+        T doGet() {
+            return instance;
+        }
+    }
+
+    private static final class ThreadLocalHolder<T extends EventDispatcher<?>> extends DispatcherHolder<T> {
+
+        private final ThreadLocal<T> local = ThreadLocal.withInitial(() -> newInstance(Thread.currentThread()));
+
+        private ThreadLocalHolder(DispatcherProvider<? extends T> provider) {
+            super(provider);
+        }
+
+        @Override
+        T doGet() {
+            return local.get();
+        }
+    }
+
+    private static final class PooledHolder<T extends EventDispatcher<?>> extends DispatcherHolder<T> {
+
+        private final EventDispatcher<?>[] pool;
+
+        private PooledHolder(DispatcherProvider<? extends T> provider) {
+            super(provider);
+            int size = provider.poolSize();
+            Validation.requireTrue(size > 0, "Pool size of %s must greater than 0.", provider);
+
+            pool = new EventDispatcher<?>[size];
+            for (int i = 0; i < size; i++) {
+                pool[i] = newInstance();
+            }
+        }
+
+        @Override
+        T doGet() {
+            // always use the same dispatcher in one thread, without contention
+            int idx = (int) (Thread.currentThread().getId() % pool.length);
+            // Type safe, the pool only contains the instances of T
+            @SuppressWarnings("unchecked") T instance = (T) pool[idx];
+            return instance;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * The lifecycle of the {@code EventDispatcher}s provided by a
+ * {@link DispatcherProvider}. The {@link EventBus} keeps the dispatchers
+ * it obtained according to this lifecycle, so the provider will not be
+ * asked for a dispatcher on every submit.
+ *
+ * @author hanpengfei
+ * @see DispatcherProvider#lifecycle()
+ * @since 1.0
+ */
+public enum DispatcherLifecycle {
+
+    /**
+     * Only one dispatcher be provided, and it be shared by all threads.
+     */
+    SINGLETON,
+
+    /**
+     * Each thread use it's own dispatcher, the dispatcher will be provided
+     * at the first time the thread need it.
+     */
+    THREAD_LOCAL,
+
+    /**
+     * A fixed number of dispatchers be provided at once, and every thread
+     * always use the same one of them.
+     *
+     * @see DispatcherProvider#poolSize()
+     */
+    POOLED
+}
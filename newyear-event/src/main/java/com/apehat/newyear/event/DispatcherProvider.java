@@ -26,9 +26,35 @@ public interface DispatcherProvider<T extends EventDispatcher<?>> extends Suppli
 
     /**
      * Returns a {@code EventDispatcher}.
+     * <p>
+     * This method will be called by {@link EventBus} as few times as the
+     * {@link #lifecycle()} allowed, i.e. once for {@code SINGLETON}, once
+     * per thread for {@code THREAD_LOCAL}, and {@link #poolSize()} times
+     * for {@code POOLED}.
      *
      * @return a {@code EventDispatcher}
      */
     @Override
     T get();
+
+    /**
+     * Returns the lifecycle of the provided dispatchers. Default is
+     * {@link DispatcherLifecycle#SINGLETON}.
+     *
+     * @return the lifecycle of the provided dispatchers
+     */
+    default DispatcherLifecycle lifecycle() {
+        return DispatcherLifecycle.SINGLETON;
+    }
+
+    /**
+     * Returns the number of dispatchers should be provided, if the
+     * {@link #lifecycle()} is {@link DispatcherLifecycle#POOLED}. Default
+     * is the number of available processors.
+     *
+     * @return the size of dispatcher pool
+     */
+    default int poolSize() {
+        return Runtime.getRuntime().availableProcessors();
+    }
 }
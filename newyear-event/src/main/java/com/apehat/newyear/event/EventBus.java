@@ -18,14 +18,26 @@ package com.apehat.newyear.event;
 
 import com.apehat.newyear.util.ClassUtils;
 import com.apehat.newyear.util.GenericUtils;
+import com.apehat.newyear.util.StringUtils;
 import com.apehat.newyear.validation.Validation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * The event bus. Every bus has a name, and has it's own providers, dispatch
+ * policy, executor and metrics. So the events of different buses (e.g. per
+ * bounded context, or per tenant) never compete for the same dispatchers
+ * or threads.
+ * <p>
+ * The {@link #getInstance()} returns the default bus, the named buses can be
+ * got by {@link #getInstance(String)}. The default bus is the bus named
+ * {@link #DEFAULT_NAME}, it be created on first use, and be recreated after
+ * shutdown, same as the other named buses.
+ *
  * @author hanpengfei
  * @since 1.0
  */
@@ -34,100 +46,340 @@ public final class EventBus implements EventDispatcher<Event> {
     private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
 
     /**
-     * The single instance of class {@code EventBus}
+     * The name of default bus: "default"
      */
-    private static final EventBus INSTANCE = new EventBus();
+    public static final String DEFAULT_NAME = "default";
 
     /**
-     * The policy lock.
+     * The policy be used, if hadn't specified policy.
      */
-    private static final Object LOCK = new Object();
+    private static final EventBusDispatchPolicy DEFAULT_POLICY = new DefaultPolicy();
 
     /**
-     * The REPOSITORY be used to storeCustom {@code DispatcherProvider}
+     * All alive buses, by name.
      */
-    private static final Repository REPOSITORY = new Repository();
+    private static final ConcurrentMap<String, EventBus> BUSES = new ConcurrentHashMap<>();
+
+    /**
+     * The name of this bus.
+     */
+    private final String name;
+
+    /**
+     * The repository be used to store {@code DispatcherProvider}
+     */
+    private final Repository repository = new Repository();
+
+    private final EventBusMetrics metrics = new EventBusMetrics();
 
     /**
      * The dispatch policy be use to decision the Event.class and it's implementors
      * class. This is required, for method {@link #getDispatcher(Class)}.
      */
-    private static EventBusDispatchPolicy dispatchPolicy;
+    private volatile EventBusDispatchPolicy dispatchPolicy;
 
-    static {
-        /*
-         * Initialize the REPOSITORY by configured custom.  These custom，
-         * as default implementation， support the even module running.
-         * The configuration file at resources directory
-         * "/META-INF/service/com.apehat.newyear.event.DispatcherProvider"
-         */
-        ServiceLoader<DispatcherProvider> providers =
-                ServiceLoader.load(DispatcherProvider.class);
-        for (DispatcherProvider provider : providers) {
-            getInstance().getRepository().storeBuildIn(provider);
+    /**
+     * The executor be used to dispatch events, or null if dispatch on the
+     * submitting thread.
+     */
+    private volatile Executor executor;
+
+    /**
+     * The sink to receive shed events, or null if just drop them.
+     */
+    private volatile ShedEventSink shedSink;
+
+    /**
+     * The tracer of event chains, or null if not traced.
+     */
+    private volatile EventTracer tracer;
+
+    /**
+     * Be count down after the build in providers be loaded.
+     */
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /**
+     * The thread is loading the build in providers, or null.
+     */
+    private volatile Thread loading;
+
+    /**
+     * Construct a {@code EventBus} instance.
+     *
+     * @param name the name of bus
+     */
+    private EventBus(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Load the build in providers. The bus already be published, so the
+     * providers can get this bus at loading.
+     */
+    private void loadProviders() {
+        loading = Thread.currentThread();
+        try {
+            /*
+             * Initialize the repository by configured custom.  These custom，
+             * as default implementation， support the even module running.
+             * The configuration file at resources directory
+             * "/META-INF/service/com.apehat.newyear.event.DispatcherProvider"
+             *
+             * Every bus load it's own providers, so don't share dispatchers.
+             */
+            ServiceLoader<DispatcherProvider> providers =
+                    ServiceLoader.load(DispatcherProvider.class);
+            for (DispatcherProvider provider : providers) {
+                repository.storeBuildIn(provider);
+            }
+        } catch (RuntimeException | Error e) {
+            BUSES.remove(name, this);
+            throw e;
+        } finally {
+            loading = null;
+            loaded.countDown();
         }
     }
 
     /**
-     * Construct a {@code EventBus} instance.
+     * Wait until the build in providers be loaded, except the providers
+     * are loading by current thread.
      *
-     * @throws AssertionError already have a instance.
+     * @return this
      */
-    private EventBus() {
-        if (INSTANCE != null) {
-            throw new AssertionError("Reflection unsupported.");
+    private EventBus awaitLoaded() {
+        if (loaded.getCount() == 0 || loading == Thread.currentThread()) {
+            return this;
+        }
+        boolean interrupted = false;
+        for (; ; ) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return this;
     }
 
     /**
-     * Returns the {@code EventBus} instance.
+     * Returns the default {@code EventBus} instance, i.e. the bus named
+     * {@link #DEFAULT_NAME}.
      *
      * @return the instance.
      */
     public static EventBus getInstance() {
-        return INSTANCE;
+        return getInstance(DEFAULT_NAME);
     }
 
     /**
-     * Sets an application's {@code EventBusDispatchPolicy}.
-     * This method can be called at most once in a given Java Virtual Machine.
+     * Returns the {@code EventBus} instance of specified name. If the bus of
+     * the name doesn't exists, will create it.
+     *
+     * @param name the name of bus
+     * @return the instance of the name
+     * @throws NullPointerException     specified name is null
+     * @throws IllegalArgumentException specified name is empty
+     */
+    public static EventBus getInstance(String name) {
+        Objects.requireNonNull(name, "Must specific the name of bus.");
+        Validation.requireTrue(StringUtils.hasLength(name), "The name of bus cannot be empty.");
+
+        EventBus bus = BUSES.get(name);
+        if (bus == null) {
+            // publish the bus before loading providers, so the providers can
+            // get it at loading, without creating it again
+            EventBus created = new EventBus(name);
+            bus = BUSES.putIfAbsent(name, created);
+            if (bus == null) {
+                created.loadProviders();
+                return created;
+            }
+            // the created bus never loaded providers, just discard it
+        }
+        return bus.awaitLoaded();
+    }
+
+    /**
+     * Sets an application's {@code EventBusDispatchPolicy} to the default bus.
+     * This method can be called at most once for a default bus, i.e. once
+     * again after the default bus be shutdown and recreated.
      * <p>
      * The {@code EventBusDispatchComparator} instance is used to
      * find a event dispatcher provider from a type token.
      *
      * @param policy a desired policy
-     * @throws Error event bus dispatch policy
+     * @throws NullPointerException specified policy is null
+     * @throws Error                event bus dispatch policy
+     * @see #useDispatchPolicy(EventBusDispatchPolicy)
      */
     public static void setDispatchPolicy(EventBusDispatchPolicy policy) {
-        Objects.requireNonNull(dispatchPolicy, "Must specific a dispatch policy.");
-        synchronized (LOCK) {
-            if (EventBus.dispatchPolicy != null) {
+        getInstance().useDispatchPolicy(policy);
+    }
+
+    /**
+     * Returns the name of this bus.
+     *
+     * @return the name of this bus
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the metrics of this bus.
+     *
+     * @return the metrics of this bus
+     */
+    public EventBusMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the {@code EventBusDispatchPolicy} of this bus. This method can
+     * be called at most once for a bus.
+     *
+     * @param policy a desired policy
+     * @return this
+     * @throws NullPointerException specified policy is null
+     * @throws Error                the policy already defined
+     */
+    public EventBus useDispatchPolicy(EventBusDispatchPolicy policy) {
+        Objects.requireNonNull(policy, "Must specific a dispatch policy.");
+        synchronized (this) {
+            if (dispatchPolicy != null) {
                 throw new Error("Policy already defined.");
             }
-            EventBus.dispatchPolicy = policy;
+            dispatchPolicy = policy;
+        }
+        // the providers had resolved by old policy is invalid
+        repository.refresh();
+        return this;
+    }
+
+    /**
+     * Sets the executor of this bus. After set, the events will be dispatched
+     * by the executor, instead of the submitting thread. This method can be
+     * called at most once for a bus.
+     * <p>
+     * The executor will be owned by this bus, if it is an
+     * {@link ExecutorService}, it will be shutdown with this bus. So the
+     * executor shouldn't be shared with other buses.
+     *
+     * @param executor the executor to dispatch events
+     * @return this
+     * @throws NullPointerException  specified executor is null
+     * @throws IllegalStateException the executor already defined
+     */
+    public EventBus useExecutor(Executor executor) {
+        Objects.requireNonNull(executor, "Must specific an executor.");
+        synchronized (this) {
+            if (this.executor != null) {
+                throw new IllegalStateException("Executor of " + this + " already defined.");
+            }
+            this.executor = executor;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the tracer of this bus, to trace the event chains. The context
+     * of the event be dispatching, will be propagated to the events
+     * submitted by the subscribers, include the dispatching on executor.
+     * This method can be called at most once for a bus.
+     *
+     * @param tracer the tracer to trace events
+     * @return this
+     * @throws NullPointerException  specified tracer is null
+     * @throws IllegalStateException the tracer already defined
+     * @see TraceContext#current()
+     */
+    public EventBus useTracer(EventTracer tracer) {
+        Objects.requireNonNull(tracer, "Must specific a tracer.");
+        synchronized (this) {
+            if (this.tracer != null) {
+                throw new IllegalStateException("Tracer of " + this + " already defined.");
+            }
+            this.tracer = tracer;
+        }
+        return this;
+    }
+
+    /**
+     * Limit the events of specified type, and it's subtypes, what haven't
+     * their own limits. If the type already has a limit, the limit will be
+     * replaced.
+     *
+     * @param eventType the type to limit
+     * @param limit     the limit of the type
+     * @param <T>       the type of type token
+     * @return this
+     * @throws NullPointerException specified event type or limit is null
+     * @see EventLimit
+     */
+    public <T extends Event> EventBus limit(Class<T> eventType, EventLimit limit) {
+        Objects.requireNonNull(eventType, "Must specific type token - eventType");
+        Objects.requireNonNull(limit, "Must specific limit.");
+
+        getRepository().storeLimit(eventType, new LimitGate(limit));
+        return this;
+    }
+
+    /**
+     * Sets the sink of this bus, to receive the shed events. This method can
+     * be called at most once for a bus.
+     *
+     * @param sink the sink to receive the shed events
+     * @return this
+     * @throws NullPointerException  specified sink is null
+     * @throws IllegalStateException the sink already defined
+     * @see #limit(Class, EventLimit)
+     */
+    public EventBus useShedSink(ShedEventSink sink) {
+        Objects.requireNonNull(sink, "Must specific a sink.");
+        synchronized (this) {
+            if (shedSink != null) {
+                throw new IllegalStateException("Shed sink of " + this + " already defined.");
+            }
+            shedSink = sink;
         }
+        return this;
     }
 
     /**
      * The method {@link EventDispatcher#submit(Event)} proxy.
      * <p>
      * This implemention by invoke {@link #getDispatcher(Class)} get a event
-     * dispatcher, then use it to submit.
+     * dispatcher, then use it to submit. If this bus has an executor, the
+     * dispatcher will be used on the executor.
+     * <p>
+     * If the type of event had be limited, the event may be shed, instead of
+     * be dispatched. The shed event will be sent to the shed sink.
      *
      * @param event the event
      * @see EventDispatcher#submit(Event)
      * @see #getDispatcher(Class)
+     * @see #useExecutor(Executor)
+     * @see #limit(Class, EventLimit)
      */
     @Override
     public void submit(Event event) {
+        Objects.requireNonNull(event, "Must specific an event.");
+        metrics.onSubmitted();
         submitHelper(event);
     }
 
     /**
      * The method {@link EventDispatcher#submit(Event)} proxy.
      * <p>
-     * This implemention by invoke {@link #getDispatcher(Class)} get a event
-     * dispatcher, then use it to submit.
+     * This implemention subscribe the subscriber to all dispatchers, what
+     * be provided by the provider of specified event type. The dispatchers
+     * will be provided later, will also be subscribed.
      *
      * @param eventType  the event type
      * @param subscriber the subscriber
@@ -138,7 +390,47 @@ public final class EventBus implements EventDispatcher<Event> {
     @Override
     public <U extends Event> void subscribe(Class<U> eventType,
                                             EventSubscriber<? super U> subscriber) {
-        getDispatcher(eventType).subscribe(eventType, subscriber);
+        findRoute(eventType, getDispatchPolicy()).<U>holder().subscribe(eventType, subscriber);
+    }
+
+    /**
+     * The method {@link EventDispatcher#subscribe(Class, EventFilter, EventSubscriber)}
+     * proxy, subscribe the subscriber with filter to all dispatchers, same
+     * as {@link #subscribe(Class, EventSubscriber)}.
+     *
+     * @param eventType  the event type
+     * @param filter     the filter of events
+     * @param subscriber the subscriber
+     * @param <U>        the type token
+     * @throws NullPointerException specified filter is null
+     * @see EventDispatcher#subscribe(Class, EventFilter, EventSubscriber)
+     */
+    @Override
+    public <U extends Event> void subscribe(Class<U> eventType, EventFilter<? super U> filter,
+                                            EventSubscriber<? super U> subscriber) {
+        Objects.requireNonNull(filter, "Must specified filter.");
+        findRoute(eventType, getDispatchPolicy()).<U>holder().subscribe(eventType, filter, subscriber);
+    }
+
+    /**
+     * The method {@link EventDispatcher#subscribe(Class, EventSubscriber, SubscriptionStrength)}
+     * proxy, subscribe the subscriber to all dispatchers, same as
+     * {@link #subscribe(Class, EventSubscriber)}. The returned subscription
+     * will unsubscribe from all of them.
+     *
+     * @param eventType  the event type
+     * @param subscriber the subscriber
+     * @param strength   the strength of reference to the subscriber
+     * @param <U>        the type token
+     * @return the subscription of the subscriber
+     * @throws UnsupportedOperationException the dispatchers of the event
+     *                                       type does not support unsubscribe
+     * @see EventDispatcher#subscribe(Class, EventSubscriber, SubscriptionStrength)
+     */
+    @Override
+    public <U extends Event> Subscription subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber,
+                                                    SubscriptionStrength strength) {
+        return findRoute(eventType, getDispatchPolicy()).<U>holder().subscribe(eventType, subscriber, strength);
     }
 
     /**
@@ -159,6 +451,24 @@ public final class EventBus implements EventDispatcher<Event> {
         throw new UnsupportedOperationException(getClass() + " does not support to reset.");
     }
 
+    /**
+     * Shutdown all dispatchers had be provided by registered providers, and
+     * the executor of this bus. After shutdown, the bus (include the default
+     * bus) will be removed, the next {@link #getInstance(String)} will create
+     * a new bus, with the build in providers only. The registered providers,
+     * subscribers, policy and executor of this bus will not be inherited.
+     */
+    @Override
+    public void shutdown() {
+        BUSES.remove(name, this);
+        getRepository().shutdown();
+
+        Executor executorToUse = executor;
+        if (executorToUse instanceof ExecutorService) {
+            ((ExecutorService) executorToUse).shutdown();
+        }
+    }
+
     /**
      * Register provider by {@code Event.class} as default provider. The provider
      * must can provide a {@code EventDispatcher}, that can dispatch all
@@ -198,13 +508,8 @@ public final class EventBus implements EventDispatcher<Event> {
         Objects.requireNonNull(eventType, "Must specific type token - eventType");
         Objects.requireNonNull(provider, "Must specific provider.");
 
-        synchronized (LOCK) {
-            DispatcherProvider<? extends EventDispatcher<? super T>> rp =
-                    getRepository().find(eventType);
-            Validation.requireFalse(rp == null || getRepository().isBuildIn(rp),
-                    "Already registered a provider [%s], by [%s]", rp, eventType);
-        }
-        getRepository().storeCustom(eventType, provider);
+        DispatcherHolder<?> absent = getRepository().storeCustom(eventType, provider, false);
+        assert absent == null;
         return this;
     }
 
@@ -228,7 +533,11 @@ public final class EventBus implements EventDispatcher<Event> {
         Objects.requireNonNull(eventType, "Must specific type token - eventType");
         Objects.requireNonNull(provider, "Must specific provider.");
 
-        getRepository().storeCustom(eventType, provider);
+        DispatcherHolder<?> replaced = getRepository().storeCustom(eventType, provider, true);
+        if (replaced != null) {
+            // the subscriptions of replaced provider are lost with it
+            replaced.shutdown();
+        }
         return this;
     }
 
@@ -246,7 +555,7 @@ public final class EventBus implements EventDispatcher<Event> {
      * @see #registerDefaultProvider(DispatcherProvider)
      */
     public <T extends Event> EventDispatcher<? super T> getDispatcher(Class<T> eventType) {
-        return getDispatcher(eventType, new DefaultPolicy());
+        return getDispatcher(eventType, getDispatchPolicy());
     }
 
     /**
@@ -267,61 +576,202 @@ public final class EventBus implements EventDispatcher<Event> {
      */
     public <T extends Event> EventDispatcher<? super T> getDispatcher(
             Class<T> eventType, EventBusDispatchPolicy policy) {
+        return findRoute(eventType, policy).<T>holder().get();
+    }
+
+    /**
+     * Returns the route of specified {@code eventType} by policy, i.e. the
+     * holder of the appropriate provider, and the limit gate of the type.
+     *
+     * @param eventType the type toke, to find route
+     * @param policy    the dispatch policy, to find appropriate provider
+     * @return the found route
+     * @throws NullPointerException  specified event type of policy is null
+     * @throws IllegalStateException cannot found appropriate provider.
+     */
+    private Route findRoute(Class<? extends Event> eventType, EventBusDispatchPolicy policy) {
         Objects.requireNonNull(eventType, "Cannot find provider by null");
         Objects.requireNonNull(policy, "Must specified a policy.");
 
-        DispatcherProvider<? extends EventDispatcher<? super T>> provider =
-                getRepository().find(eventType);
+        // all lookups must see the same providers
+        Snapshot snapshot = getRepository().snapshot();
 
-        if (provider == null) {
-            if (logger.isDebugEnabled()) {
-                logger.debug("No provider of [{}].", eventType);
+        // only the resolution by the policy of this bus can be reused
+        boolean cacheable = policy == getDispatchPolicy();
+        if (cacheable) {
+            Route route = snapshot.findRoute(eventType);
+            if (route != null) {
+                return route;
             }
+        }
 
-            // find all superclasses and interfaces
-            Set<Class<Event>> supers = ClassUtils.getClassesWithinBounds(eventType, Event.class);
-            // supers positive sorting
-            Collection<Class<Event>> sortedSupers = ClassUtils.sort(supers, policy);
+        Route route = snapshot.resolve(eventType, policy);
+        if (cacheable) {
+            snapshot.storeRoute(eventType, route);
+        }
+        return route;
+    }
 
-            for (Class<Event> superType : sortedSupers) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Try to find the provider by [{}]", superType);
-                }
+    /**
+     * The help method of {@link #submit(Event)} method. Use Java Language
+     * Generic mechanism recognition the specified {@code event}, in order to
+     * cut back {@code uncheck} warning.
+     *
+     * @param event the event to subscribe.
+     * @param <T>   the type of event.
+     */
+    private <T extends Event> void submitHelper(T event) {
+        Route route = findRoute(event.getClass(), getDispatchPolicy());
+        DispatcherHolder<? extends EventDispatcher<? super T>> holder = route.holder();
 
-                provider = getRepository().find(superType);
-                if (provider != null) {
-                    break;
+        LimitGate gate = route.gate;
+        if (gate != null && !gate.tryAcquire(System.nanoTime())) {
+            shed(event, ShedEventSink.Reason.RATE_LIMITED);
+            return;
+        }
+
+        // the context must be began by the submitting thread, to find parent
+        EventTracer tracerToUse = tracer;
+        TraceContext context = tracerToUse == null ? null : tracerToUse.begin();
+
+        Executor executorToUse = executor;
+        if (executorToUse == null) {
+            dispatch(holder, event, tracerToUse, context);
+            return;
+        }
+
+        // only measure the queue delay, if it be needed
+        long queuedAt = gate != null && gate.limit().hasShedding() ? System.nanoTime() : 0;
+        try {
+            executorToUse.execute(() -> {
+                try {
+                    if (queuedAt != 0) {
+                        long now = System.nanoTime();
+                        if (gate.shouldShed(now - queuedAt, now)) {
+                            shed(event, ShedEventSink.Reason.OVERLOADED);
+                            return;
+                        }
+                    }
+                    dispatch(holder, event, tracerToUse, context);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to dispatch [{}] on bus [{}].", event, name, e);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.onRejected();
+            throw e;
+        }
+    }
+
+    /**
+     * Dispatch the event within the trace context, and record the span, if
+     * the context be sampled.
+     *
+     * @param holder  the holder of dispatchers
+     * @param event   the event to dispatch
+     * @param tracer  the tracer of this bus, or null
+     * @param context the context of event, or null if not traced
+     * @param <T>     the type of event
+     */
+    private <T extends Event> void dispatch(DispatcherHolder<? extends EventDispatcher<? super T>> holder, T event,
+                                            EventTracer tracer, TraceContext context) {
+        if (context == null) {
+            dispatch(holder, event);
+            return;
+        }
+
+        TraceContext previous = context.attach();
+        long start = System.nanoTime();
+        try {
+            dispatch(holder, event);
+        } finally {
+            TraceContext.restore(previous);
+            if (context.isSampled()) {
+                tracer.record(context, event.getClass(), name, start, System.nanoTime() - start);
             }
         }
+    }
+
+    /**
+     * Dispatch the event by the dispatcher, what be appropriate to current
+     * thread, of the specified holder.
+     *
+     * @param holder the holder of dispatchers
+     * @param event  the event to dispatch
+     * @param <T>    the type of event
+     */
+    private <T extends Event> void dispatch(DispatcherHolder<? extends EventDispatcher<? super T>> holder, T event) {
+        EventDispatcher<? super T> dispatcher = obtain(holder, event);
+        assert dispatcher != null;
+        try {
+            dispatcher.submit(event);
+        } catch (RuntimeException e) {
+            metrics.onFailed();
+            throw e;
+        }
+        metrics.onDispatched();
+    }
 
-        // cannot found provider - try to find default provider
-        if (provider == null) {
-            provider = getRepository().find(Event.class);
+    /**
+     * Returns the dispatcher of specified holder, for current thread. The
+     * holder may be retired by {@link #replcaeProvider(Class, DispatcherProvider)},
+     * after the route of event be resolved (e.g. the event is queued by the
+     * executor), then the route will be resolved again, by the current
+     * providers.
+     *
+     * @param holder the holder of the resolved route
+     * @param event  the event to dispatch
+     * @param <T>    the type of event
+     * @return the dispatcher
+     * @throws IllegalStateException this bus already be shutdown
+     */
+    private <T extends Event> EventDispatcher<? super T> obtain(
+            DispatcherHolder<? extends EventDispatcher<? super T>> holder, T event) {
+        DispatcherHolder<? extends EventDispatcher<? super T>> current = holder;
+        for (; ; ) {
+            try {
+                return current.get();
+            } catch (IllegalStateException e) {
+                DispatcherHolder<? extends EventDispatcher<? super T>> resolved =
+                        findRoute(event.getClass(), getDispatchPolicy()).holder();
+                if (resolved == current) {
+                    throw e;
+                }
+                current = resolved;
+            }
         }
+    }
 
-        // don't have default provider - throw exception.
-        if (provider == null) {
-            throw new IllegalStateException("No provider of: " + eventType);
+    /**
+     * Shed the specified event, and send it to the sink, if this bus has.
+     *
+     * @param event  the event to shed
+     * @param reason the reason of shedding
+     */
+    private void shed(Event event, ShedEventSink.Reason reason) {
+        metrics.onShed();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Shed [{}] on bus [{}], because {}.", event, name, reason);
         }
 
-        return provider.get();
+        ShedEventSink sink = shedSink;
+        if (sink != null) {
+            try {
+                sink.shed(event, reason);
+            } catch (RuntimeException e) {
+                logger.warn("Shed event sink [{}] failed on [{}].", sink, event, e);
+            }
+        }
     }
 
     /**
-     * The help method of {@link #submit(Event)} method. Use Java Language
-     * Generic mechanism recognition the specified {@code event}, in order to
-     * cut back {@code uncheck} warning.
+     * Returns the dispatch policy of this bus.
      *
-     * @param event the event to subscribe.
-     * @param <T>   the type of event.
+     * @return the specified policy, or the default policy if hadn't specified
      */
-    private <T extends Event> void submitHelper(T event) {
-        // Type safe, method limit is <T extends Event>
-        @SuppressWarnings("unchecked") Class<T> aClass = (Class<T>) event.getClass();
-        EventDispatcher<? super T> dispatcher = getDispatcher(aClass);
-        assert dispatcher != null;
-        dispatcher.submit(event);
+    private EventBusDispatchPolicy getDispatchPolicy() {
+        EventBusDispatchPolicy policy = dispatchPolicy;
+        return policy == null ? DEFAULT_POLICY : policy;
     }
 
     /**
@@ -330,7 +780,12 @@ public final class EventBus implements EventDispatcher<Event> {
      * @return the subscriber repository of this.
      */
     private Repository getRepository() {
-        return REPOSITORY;
+        return repository;
+    }
+
+    @Override
+    public String toString() {
+        return "EventBus[" + name + "]";
     }
 
     private static class DefaultPolicy implements EventBusDispatchPolicy {
@@ -353,14 +808,27 @@ public final class EventBus implements EventDispatcher<Event> {
     }
 
     /**
-     * The providers repository, to store build in providers and custom providers
+     * The providers repository, to store build in providers and custom providers.
+     * Each provider be stored with a {@link DispatcherHolder}, to hold the
+     * dispatchers it provided.
+     * <p>
+     * The providers be stored in an immutable {@link Snapshot}. Every
+     * registration creates a new snapshot, and swap it by CAS. So the readers
+     * can get a consistent view by one volatile read, and the registrations
+     * needn't any lock.
      */
     private static class Repository {
 
-        private final Map<Class<? extends Event>, DispatcherProvider> builtIn =
-                new ConcurrentHashMap<>(16);
-        private final Map<Class<? extends Event>, DispatcherProvider> custom =
-                new ConcurrentHashMap<>();
+        private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+
+        /**
+         * Returns the current snapshot.
+         *
+         * @return the current snapshot
+         */
+        private Snapshot snapshot() {
+            return current.get();
+        }
 
         /**
          * Store a build in provider. This method only should be called at initialization.
@@ -370,7 +838,9 @@ public final class EventBus implements EventDispatcher<Event> {
         private void storeBuildIn(DispatcherProvider<?> provider) {
             assert provider != null;
 
-            EventDispatcher<?> dispatcher = provider.get();
+            // the dispatcher be used to determine the type, will also be held
+            DispatcherHolder<?> holder = DispatcherHolder.of(provider);
+            EventDispatcher<?> dispatcher = holder.get();
             assert dispatcher != null;
             Class<? extends EventDispatcher> aClass = dispatcher.getClass();
 
@@ -381,7 +851,12 @@ public final class EventBus implements EventDispatcher<Event> {
 
             assert parameterType != null;
 
-            builtIn.put(parameterType, provider);
+            Snapshot prev;
+            Snapshot next;
+            do {
+                prev = current.get();
+                next = prev.withBuildIn(parameterType, holder);
+            } while (!current.compareAndSet(prev, next));
         }
 
         /**
@@ -390,38 +865,232 @@ public final class EventBus implements EventDispatcher<Event> {
          * @param eventType a type token, as key. It's instance had extended of {@code Event}
          * @param provider  the provider, as value. Can provide a {@code EventDispatcher} to
          *                  handle {@code eventType} instance
+         * @param replace   whether to replace the custom provider already registered
          * @param <T>       the type token
+         * @return the holder of replaced provider, or null if no provider be replaced
+         * @throws IllegalArgumentException not allowed to replace, but a custom
+         *                                  provider already registered
          */
-        private <T extends Event> void storeCustom(
+        private <T extends Event> DispatcherHolder<?> storeCustom(
                 Class<? extends T> eventType,
-                DispatcherProvider<? extends EventDispatcher<? super T>> provider) {
+                DispatcherProvider<? extends EventDispatcher<? super T>> provider,
+                boolean replace) {
             assert eventType != null;
             assert provider != null;
 
-            DispatcherProvider absent = custom.put(eventType, provider);
+            DispatcherHolder<?> holder = DispatcherHolder.of(provider);
+
+            Snapshot prev;
+            Snapshot next;
+            DispatcherHolder<?> replaced;
+            do {
+                prev = current.get();
+                replaced = prev.custom.get(eventType);
+                if (replaced != null && !replace) {
+                    holder.shutdown();
+                    throw new IllegalArgumentException(String.format(
+                            "Already registered a provider [%s], by [%s]", replaced.provider(), eventType));
+                }
+                next = prev.withCustom(eventType, holder);
+            } while (!current.compareAndSet(prev, next));
 
-            assert absent == null;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Registered provider [{}] by [{}], version {}.", provider, eventType, next.version);
+            }
+            return replaced;
         }
 
-        private <T extends Event> DispatcherProvider<? extends EventDispatcher<? super T>> find(Class<T> eventType) {
+        /**
+         * Store the limit gate of specified event type.
+         *
+         * @param eventType the limited type
+         * @param gate      the gate of limit
+         */
+        private void storeLimit(Class<? extends Event> eventType, LimitGate gate) {
             assert eventType != null;
-            DispatcherProvider provider = custom.get(eventType);
-            if (provider == null) {
-                provider = builtIn.get(eventType);
+            assert gate != null;
+
+            Snapshot prev;
+            do {
+                prev = current.get();
+            } while (!current.compareAndSet(prev, prev.withLimit(eventType, gate)));
+        }
+
+        /**
+         * Swap a new snapshot with same providers, to discard the resolved
+         * providers of current snapshot.
+         */
+        private void refresh() {
+            Snapshot prev;
+            do {
+                prev = current.get();
+            } while (!current.compareAndSet(prev, prev.copy()));
+        }
+
+        /**
+         * Shutdown all held dispatchers.
+         */
+        private void shutdown() {
+            Snapshot snapshot = current.get();
+            for (DispatcherHolder<?> holder : snapshot.custom.values()) {
+                holder.shutdown();
+            }
+            for (DispatcherHolder<?> holder : snapshot.builtIn.values()) {
+                holder.shutdown();
             }
-            // type safe, can ensure by method put
-            @SuppressWarnings("unchecked") DispatcherProvider<? extends EventDispatcher<? super T>> providerToUse = provider;
-            return providerToUse;
         }
+    }
+
+    /**
+     * An immutable view of registered providers and limits, with a version
+     * number. The providers had be merged, so the provider of a type can be
+     * found by one lookup.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(0,
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final long version;
+
+        private final Map<Class<? extends Event>, DispatcherHolder<?>> builtIn;
+        private final Map<Class<? extends Event>, DispatcherHolder<?>> custom;
+        private final Map<Class<? extends Event>, LimitGate> limits;
 
         /**
-         * Determine whether the provider is belong to build in providers.
+         * The merged providers, custom provider override build in provider.
+         */
+        private final Map<Class<? extends Event>, DispatcherHolder<?>> merged;
+
+        /**
+         * The resolved routes of the types, by the policy of bus. Only valid
+         * for this version.
+         */
+        private final Map<Class<? extends Event>, Route> routes = new ConcurrentHashMap<>();
+
+        private Snapshot(long version,
+                         Map<Class<? extends Event>, DispatcherHolder<?>> builtIn,
+                         Map<Class<? extends Event>, DispatcherHolder<?>> custom,
+                         Map<Class<? extends Event>, LimitGate> limits) {
+            this.version = version;
+            this.builtIn = builtIn;
+            this.custom = custom;
+            this.limits = limits;
+
+            Map<Class<? extends Event>, DispatcherHolder<?>> merged = new HashMap<>(builtIn);
+            merged.putAll(custom);
+            this.merged = merged;
+        }
+
+        private Snapshot copy() {
+            return new Snapshot(version + 1, builtIn, custom, limits);
+        }
+
+        private Snapshot withBuildIn(Class<? extends Event> eventType, DispatcherHolder<?> holder) {
+            return new Snapshot(version + 1, with(builtIn, eventType, holder), custom, limits);
+        }
+
+        private Snapshot withCustom(Class<? extends Event> eventType, DispatcherHolder<?> holder) {
+            return new Snapshot(version + 1, builtIn, with(custom, eventType, holder), limits);
+        }
+
+        private Snapshot withLimit(Class<? extends Event> eventType, LimitGate gate) {
+            return new Snapshot(version + 1, builtIn, custom, with(limits, eventType, gate));
+        }
+
+        private Route findRoute(Class<? extends Event> eventType) {
+            return routes.get(eventType);
+        }
+
+        private void storeRoute(Class<? extends Event> eventType, Route route) {
+            routes.putIfAbsent(eventType, route);
+        }
+
+        /**
+         * Resolve the route of specified event type. If the type hasn't
+         * provider (or limit) itself, will find by it's superclasses and
+         * interfaces, in the order of specified policy.
          *
-         * @param provider the provider to check
-         * @return true, if the provider is build in provider, otherwise, false.
+         * @param eventType the type to resolve
+         * @param policy    the policy to sort supertypes
+         * @return the resolved route
+         * @throws IllegalStateException cannot found appropriate provider.
          */
-        private boolean isBuildIn(DispatcherProvider<?> provider) {
-            return builtIn.containsValue(provider);
+        private Route resolve(Class<? extends Event> eventType, EventBusDispatchPolicy policy) {
+            DispatcherHolder<?> holder = merged.get(eventType);
+            LimitGate gate = limits.get(eventType);
+
+            if (holder == null || (gate == null && !limits.isEmpty())) {
+                if (holder == null && logger.isDebugEnabled()) {
+                    logger.debug("No provider of [{}].", eventType);
+                }
+
+                // find all superclasses and interfaces
+                Set<Class<Event>> supers = ClassUtils.getClassesWithinBounds(eventType, Event.class);
+                // supers positive sorting
+                Collection<Class<Event>> sortedSupers = ClassUtils.sort(supers, policy);
+
+                for (Class<Event> superType : sortedSupers) {
+                    if (holder == null) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Try to find the provider by [{}]", superType);
+                        }
+                        holder = merged.get(superType);
+                    }
+                    if (gate == null) {
+                        gate = limits.get(superType);
+                    }
+                    if (holder != null && gate != null) {
+                        break;
+                    }
+                }
+            }
+
+            // cannot found provider - try to find default provider
+            if (holder == null) {
+                holder = merged.get(Event.class);
+            }
+            if (gate == null) {
+                gate = limits.get(Event.class);
+            }
+
+            // don't have default provider - throw exception.
+            if (holder == null) {
+                throw new IllegalStateException("No provider of: " + eventType);
+            }
+            return new Route(holder, gate);
+        }
+
+        private static <V> Map<Class<? extends Event>, V> with(
+                Map<Class<? extends Event>, V> map, Class<? extends Event> key, V value) {
+            Map<Class<? extends Event>, V> copy = new HashMap<>(map);
+            copy.put(key, value);
+            return Collections.unmodifiableMap(copy);
+        }
+    }
+
+    /**
+     * The resolved route of an event type.
+     */
+    private static final class Route {
+
+        private final DispatcherHolder<?> holder;
+
+        /**
+         * The limit gate, or null if the type isn't limited.
+         */
+        private final LimitGate gate;
+
+        private Route(DispatcherHolder<?> holder, LimitGate gate) {
+            this.holder = holder;
+            this.gate = gate;
+        }
+
+        private <T extends Event> DispatcherHolder<? extends EventDispatcher<? super T>> holder() {
+            // type safe, the holder had be resolved by the type or it's supertypes
+            @SuppressWarnings("unchecked") DispatcherHolder<? extends EventDispatcher<? super T>> holderToUse =
+                    (DispatcherHolder<? extends EventDispatcher<? super T>>) holder;
+            return holderToUse;
         }
     }
 }
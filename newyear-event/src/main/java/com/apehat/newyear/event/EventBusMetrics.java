@@ -0,0 +1,113 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of an {@link EventBus}. Every bus has it's own metrics.
+ * <p>
+ * The counters are {@link LongAdder}s, so they can be updated by many
+ * threads without contention.
+ *
+ * @author hanpengfei
+ * @see EventBus#getMetrics()
+ * @since 1.0
+ */
+public final class EventBusMetrics {
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    EventBusMetrics() {
+    }
+
+    /**
+     * Returns the number of events had be submitted to the bus.
+     *
+     * @return the number of submitted events
+     */
+    public long submitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Returns the number of events had be dispatched successfully.
+     *
+     * @return the number of dispatched events
+     */
+    public long dispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Returns the number of events, what dispatch failed.
+     *
+     * @return the number of failed events
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the number of events be rejected by the executor of the bus.
+     *
+     * @return the number of rejected events
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of events be shed, because of the limits.
+     *
+     * @return the number of shed events
+     * @see EventBus#limit(Class, EventLimit)
+     */
+    public long shed() {
+        return shed.sum();
+    }
+
+    void onSubmitted() {
+        submitted.increment();
+    }
+
+    void onDispatched() {
+        dispatched.increment();
+    }
+
+    void onFailed() {
+        failed.increment();
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    void onShed() {
+        shed.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "EventBusMetrics{submitted=" + submitted() + ", dispatched=" + dispatched()
+                + ", failed=" + failed() + ", rejected=" + rejected() + ", shed=" + shed() + '}';
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.apehat.newyear.event;
 
+import java.util.Objects;
+
 /**
  * @author hanpengfei
  * @since 1.0
@@ -28,5 +30,59 @@ public interface EventDispatcher<T extends Event> {
 
     <U extends T> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber);
 
+    /**
+     * Subscribe the specified subscriber, what only receive the events of
+     * specified type and matched specified filter.
+     * <p>
+     * Default wrap the subscriber, to test the filter before handle. The
+     * implementations should compile the filters into an index, so the
+     * subscribers don't match will never be called.
+     *
+     * @param eventType  the type token to subscribe
+     * @param filter     the filter of events
+     * @param subscriber the subscriber
+     * @param <U>        the type of type token
+     * @throws NullPointerException specified filter is null
+     * @see IndexedDispatcher
+     */
+    default <U extends T> void subscribe(Class<U> eventType, EventFilter<? super U> filter,
+                                         EventSubscriber<? super U> subscriber) {
+        Objects.requireNonNull(filter, "Must specified filter.");
+        subscribe(eventType, new FilteredSubscriber<>(filter, subscriber));
+    }
+
+    /**
+     * Subscribe the specified subscriber by specified strength, and returns
+     * a subscription to unsubscribe it.
+     * <p>
+     * If the strength is weak or soft, the subscriber will be unsubscribed
+     * automatically, after it be garbage collected. So the short-lived
+     * subscribers will not be leaked.
+     * <p>
+     * Default throw {@code UnsupportedOperationException}.
+     *
+     * @param eventType  the type token to subscribe
+     * @param subscriber the subscriber
+     * @param strength   the strength of reference to the subscriber
+     * @param <U>        the type of type token
+     * @return the subscription of the subscriber
+     * @throws UnsupportedOperationException this dispatcher does not
+     *                                       support unsubscribe
+     * @see IndexedDispatcher
+     */
+    default <U extends T> Subscription subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber,
+                                                 SubscriptionStrength strength) {
+        throw new UnsupportedOperationException(getClass() + " does not support unsubscribe.");
+    }
+
     void reset();
+
+    /**
+     * Release the resources (e.g. threads) held by this dispatcher. After
+     * shutdown, the dispatcher shouldn't be used any more.
+     * <p>
+     * Default do nothing.
+     */
+    default void shutdown() {
+    }
 }
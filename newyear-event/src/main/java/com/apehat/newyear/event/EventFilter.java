@@ -0,0 +1,188 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A declarative filter of events, what is a conjunction of conditions. A
+ * condition requires an attribute of event, what be extracted by the
+ * extractor of the attribute, equals to an expected value.
+ * <p>
+ * The conditions are declarative, so the dispatcher can compile the filters
+ * of all subscribers into a shared index (e.g. {@link IndexedDispatcher}),
+ * then each attribute will be extracted once per event, and the subscribers
+ * don't match will never be called.
+ * <p>
+ * In a filter, the attribute name identifies the extractor. So the
+ * conditions on the same attribute name, must use the same extractor. An
+ * index shares the extraction of the conditions with same name and same
+ * extractor instance, so reuse the extractor to share the extraction.
+ *
+ * @param <T> the type of filtered event
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class EventFilter<T extends Event> {
+
+    public static final String SCOPE = "scope";
+    public static final String VERSION = "version";
+
+    private final Map<String, Condition<T>> conditions;
+
+    private EventFilter(Map<String, Condition<T>> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Returns a filter, what requires the scope of event equals to
+     * specified scope.
+     *
+     * @param scope the expected scope
+     * @param <T>   the type of filtered event
+     * @return a new filter
+     * @see Event#scope()
+     */
+    public static <T extends Event> EventFilter<T> scope(String scope) {
+        return attribute(SCOPE, Event::scope, scope);
+    }
+
+    /**
+     * Returns a filter, what requires the version of event equals to
+     * specified version.
+     *
+     * @param version the expected version
+     * @param <T>     the type of filtered event
+     * @return a new filter
+     * @see Event#version()
+     */
+    public static <T extends Event> EventFilter<T> version(int version) {
+        return attribute(VERSION, Event::version, version);
+    }
+
+    /**
+     * Returns a filter, what requires the attribute of event, extracted by
+     * specified extractor, equals to specified expected value.
+     *
+     * @param name      the name of attribute
+     * @param extractor the extractor of attribute
+     * @param expected  the expected value, may be null
+     * @param <T>       the type of filtered event
+     * @return a new filter
+     * @throws NullPointerException specified name or extractor is null
+     */
+    public static <T extends Event> EventFilter<T> attribute(
+            String name, Function<? super T, ?> extractor, Object expected) {
+        Map<String, Condition<T>> conditions = new LinkedHashMap<>();
+        conditions.put(Objects.requireNonNull(name, "Must specified attribute name."),
+                new Condition<>(extractor, expected));
+        return new EventFilter<>(Collections.unmodifiableMap(conditions));
+    }
+
+    /**
+     * Returns a filter, what requires both this and specified filter.
+     *
+     * @param other the other filter
+     * @return a new filter
+     * @throws NullPointerException     specified filter is null
+     * @throws IllegalArgumentException the filters require the same
+     *                                  attribute equals to different values
+     */
+    public EventFilter<T> and(EventFilter<? super T> other) {
+        Objects.requireNonNull(other, "Must specified other filter.");
+
+        Map<String, Condition<T>> merged = new LinkedHashMap<>(conditions);
+        // type safe, the conditions of other only consume the super type of T
+        @SuppressWarnings("unchecked") Map<String, Condition<T>> others =
+                (Map<String, Condition<T>>) (Map<String, ?>) other.conditions;
+        for (Map.Entry<String, Condition<T>> entry : others.entrySet()) {
+            Condition<T> exists = merged.putIfAbsent(entry.getKey(), entry.getValue());
+            if (exists != null && !Objects.equals(exists.expected(), entry.getValue().expected())) {
+                throw new IllegalArgumentException("Attribute " + entry.getKey()
+                        + " cannot equals to both " + exists.expected() + " and " + entry.getValue().expected());
+            }
+        }
+        return new EventFilter<>(Collections.unmodifiableMap(merged));
+    }
+
+    /**
+     * Test the specified event matches this filter, or not.
+     *
+     * @param event the event to test
+     * @return true, if all conditions matched
+     */
+    public boolean test(T event) {
+        for (Condition<T> condition : conditions.values()) {
+            if (!condition.test(event)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the conditions of this filter, key by attribute name.
+     *
+     * @return the unmodifiable conditions of this filter
+     */
+    Map<String, Condition<T>> conditions() {
+        return conditions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("EventFilter{");
+        String separator = "";
+        for (Map.Entry<String, Condition<T>> entry : conditions.entrySet()) {
+            builder.append(separator).append(entry.getKey()).append('=').append(entry.getValue().expected());
+            separator = ", ";
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * A condition on an attribute of event.
+     *
+     * @param <T> the type of filtered event
+     */
+    static final class Condition<T extends Event> {
+
+        private final Function<? super T, ?> extractor;
+        private final Object expected;
+
+        private Condition(Function<? super T, ?> extractor, Object expected) {
+            this.extractor = Objects.requireNonNull(extractor, "Must specified attribute extractor.");
+            this.expected = expected;
+        }
+
+        Function<? super T, ?> extractor() {
+            return extractor;
+        }
+
+        Object expected() {
+            return expected;
+        }
+
+        boolean test(T event) {
+            return Objects.equals(expected, extractor.apply(event));
+        }
+    }
+}
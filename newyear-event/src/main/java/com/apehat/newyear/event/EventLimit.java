@@ -0,0 +1,176 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.validation.Validation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The declarative limit of an event type, be registered by
+ * {@link EventBus#limit(Class, EventLimit)}. A limit can have a rate, or
+ * a queue delay shedding, or both of them.
+ * <ul>
+ * <li>The rate is a token bucket. The events exceed the rate (and burst)
+ * will be shed on submit.</li>
+ * <li>The queue delay shedding is in the CoDel style. If the events had
+ * waited in the queue of bus executor longer than target, for at least an
+ * interval, the events will be shed before dispatch, and the shedding will
+ * become faster until the delay come back below the target. It only works
+ * for the bus, what has an executor.</li>
+ * </ul>
+ * This class is immutable.
+ *
+ * @author hanpengfei
+ * @see EventBus#limit(Class, EventLimit)
+ * @see ShedEventSink
+ * @since 1.0
+ */
+public final class EventLimit {
+
+    private static final EventLimit NONE = new EventLimit(0, 0, 0, 0);
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long targetDelayNanos;
+    private final long intervalNanos;
+
+    private EventLimit(double permitsPerSecond, int burst, long targetDelayNanos, long intervalNanos) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.targetDelayNanos = targetDelayNanos;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Returns a limit, what only limit the rate.
+     *
+     * @param permitsPerSecond the events allowed per second
+     * @param burst            the events allowed to submit at once
+     * @return a rate limit
+     * @throws IllegalArgumentException the rate or burst isn't positive
+     * @see #withRate(double, int)
+     */
+    public static EventLimit rate(double permitsPerSecond, int burst) {
+        return NONE.withRate(permitsPerSecond, burst);
+    }
+
+    /**
+     * Returns a limit, what only shed events by queue delay.
+     *
+     * @param targetDelay the acceptable queue delay
+     * @param interval    the time of delay can above target, before shedding
+     * @param unit        the time unit of delay and interval
+     * @return a queue delay limit
+     * @throws IllegalArgumentException the delay or interval isn't positive
+     * @see #withShedding(long, long, TimeUnit)
+     */
+    public static EventLimit shedding(long targetDelay, long interval, TimeUnit unit) {
+        return NONE.withShedding(targetDelay, interval, unit);
+    }
+
+    /**
+     * Returns a copy of this limit, with specified rate.
+     *
+     * @param permitsPerSecond the events allowed per second
+     * @param burst            the events allowed to submit at once
+     * @return a new limit
+     * @throws IllegalArgumentException the rate or burst isn't positive
+     */
+    public EventLimit withRate(double permitsPerSecond, int burst) {
+        Validation.requireTrue(permitsPerSecond > 0, "The rate must be positive, but was %s", permitsPerSecond);
+        Validation.requireTrue(burst > 0, "The burst must be positive, but was %s", burst);
+        return new EventLimit(permitsPerSecond, burst, targetDelayNanos, intervalNanos);
+    }
+
+    /**
+     * Returns a copy of this limit, with specified queue delay shedding.
+     *
+     * @param targetDelay the acceptable queue delay
+     * @param interval    the time of delay can above target, before shedding
+     * @param unit        the time unit of delay and interval
+     * @return a new limit
+     * @throws IllegalArgumentException the delay or interval isn't positive
+     * @throws NullPointerException     the unit is null
+     */
+    public EventLimit withShedding(long targetDelay, long interval, TimeUnit unit) {
+        Validation.requireNonNull(unit, "Must specified time unit.");
+        Validation.requireTrue(targetDelay > 0, "The target delay must be positive, but was %s", targetDelay);
+        Validation.requireTrue(interval > 0, "The interval must be positive, but was %s", interval);
+        return new EventLimit(permitsPerSecond, burst, unit.toNanos(targetDelay), unit.toNanos(interval));
+    }
+
+    /**
+     * Determine whether this limit has a rate.
+     *
+     * @return true, if this limit has a rate; otherwise, false.
+     */
+    public boolean hasRate() {
+        return permitsPerSecond > 0;
+    }
+
+    /**
+     * Determine whether this limit shed events by queue delay.
+     *
+     * @return true, if this limit shed events by queue delay; otherwise, false.
+     */
+    public boolean hasShedding() {
+        return targetDelayNanos > 0;
+    }
+
+    /**
+     * Returns the events allowed per second, or 0 if no rate.
+     *
+     * @return the events allowed per second, or 0 if no rate
+     */
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * Returns the events allowed to submit at once, or 0 if no rate.
+     *
+     * @return the events allowed to submit at once, or 0 if no rate
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Returns the acceptable queue delay in nanos, or 0 if no shedding.
+     *
+     * @return the acceptable queue delay in nanos, or 0 if no shedding
+     */
+    public long getTargetDelayNanos() {
+        return targetDelayNanos;
+    }
+
+    /**
+     * Returns the interval of shedding in nanos, or 0 if no shedding.
+     *
+     * @return the interval of shedding in nanos, or 0 if no shedding
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLimit{permitsPerSecond=" + permitsPerSecond + ", burst=" + burst
+                + ", targetDelayNanos=" + targetDelayNanos + ", intervalNanos=" + intervalNanos + '}';
+    }
+}
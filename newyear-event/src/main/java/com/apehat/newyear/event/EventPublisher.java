@@ -36,8 +36,20 @@ public interface EventPublisher<T extends Event> {
      * @see EventBus#registerProvider(Class, DispatcherProvider)
      * @see EventBus#registerDefaultProvider(DispatcherProvider)
      * @see EventBus#submit(Event)
+     * @see #eventBus()
      */
     default <E extends T> void publish(E event) {
-        EventBus.getInstance().submit(event);
+        eventBus().submit(event);
+    }
+
+    /**
+     * Returns the bus, what the events will be published to. Default is
+     * the default bus.
+     *
+     * @return the bus to publish events
+     * @see EventBus#getInstance(String)
+     */
+    default EventBus eventBus() {
+        return EventBus.getInstance();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.util.Sequence;
+import com.apehat.newyear.validation.Validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Trace the event chains on the buses, by sampling.
+ * <p>
+ * The original events (i.e. submitted outside any dispatching) be sampled
+ * by the sample rate, the events caused by them follow the decision. The
+ * dispatchings of the sampled events be recorded as {@link Span}s, into a
+ * fixed size ring buffer, the newest spans overwrite the oldest spans. So
+ * the tracing costs a constant memory, and almost nothing for the
+ * unsampled events.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see EventBus#useTracer(EventTracer)
+ */
+public final class EventTracer {
+
+    private final double sampleRate;
+
+    private final AtomicReferenceArray<Span> spans;
+    private final int mask;
+
+    /**
+     * The count of recorded spans, the next slot is count & mask.
+     */
+    private final Sequence recorded = new Sequence();
+
+    private final Sequence sequence = new Sequence();
+
+    /**
+     * Create a tracer.
+     *
+     * @param sampleRate the rate of event chains be sampled, in [0, 1]
+     * @param capacity   the capacity of span buffer, will be round up to
+     *                   power of 2
+     * @throws IllegalArgumentException sample rate not in [0, 1], or the
+     *                                  capacity isn't positive
+     */
+    public EventTracer(double sampleRate, int capacity) {
+        Validation.requireTrue(sampleRate >= 0 && sampleRate <= 1,
+                "Sample rate must in [0, 1], but %s", sampleRate);
+        Validation.requireTrue(capacity > 0 && capacity <= 1 << 30,
+                "Capacity must in (0, 2^30], but %s", capacity);
+        this.sampleRate = sampleRate;
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.spans = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Begin the context of an event, what submitted by current thread.
+     *
+     * @return the context of event
+     */
+    TraceContext begin() {
+        TraceContext parent = TraceContext.current();
+        if (parent == null) {
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return TraceContext.UNSAMPLED;
+            }
+            long seq = sequence.incrementAndGet();
+            return new TraceContext(ThreadLocalRandom.current().nextLong(), seq, 0, 0, true);
+        }
+        if (!parent.isSampled()) {
+            return parent;
+        }
+        return new TraceContext(parent.getTraceId(), sequence.incrementAndGet(),
+                parent.getSequence(), parent.getDepth() + 1, true);
+    }
+
+    /**
+     * Record a span of a sampled event.
+     *
+     * @param context       the context of the event
+     * @param eventType     the type of the event
+     * @param bus           the name of bus
+     * @param startNanos    the start nanos of dispatching
+     * @param durationNanos the duration nanos of dispatching
+     */
+    void record(TraceContext context, Class<? extends Event> eventType, String bus,
+                long startNanos, long durationNanos) {
+        Span span = new Span(context, eventType, bus, startNanos, durationNanos);
+        spans.set((int) (recorded.getAndIncrement() & mask), span);
+    }
+
+    /**
+     * Returns the spans in the buffer, from oldest to newest. The spans
+     * recorded when dumping, may be lost or included.
+     *
+     * @return the recorded spans
+     */
+    public List<Span> dump() {
+        long end = recorded.get();
+        long start = Math.max(0, end - spans.length());
+        List<Span> dumped = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Span span = spans.get((int) (i & mask));
+            if (span != null) {
+                dumped.add(span);
+            }
+        }
+        return dumped;
+    }
+
+    /**
+     * Returns the count of recorded spans, include the overwritten spans.
+     *
+     * @return the count of recorded spans
+     */
+    public long recorded() {
+        return recorded.get();
+    }
+
+    /**
+     * Returns the sample rate of this tracer.
+     *
+     * @return the sample rate
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import java.util.Objects;
+
+/**
+ * The subscriber only handle the events matched the filter.
+ *
+ * @param <T> the type of subscribed event
+ * @author hanpengfei
+ * @since 1.0
+ */
+final class FilteredSubscriber<T extends Event> implements EventSubscriber<T> {
+
+    private final EventFilter<? super T> filter;
+    private final EventSubscriber<? super T> subscriber;
+
+    FilteredSubscriber(EventFilter<? super T> filter, EventSubscriber<? super T> subscriber) {
+        this.filter = Objects.requireNonNull(filter, "Must specified filter.");
+        this.subscriber = Objects.requireNonNull(subscriber, "Must specified subscriber.");
+    }
+
+    @Override
+    public String within() {
+        return subscriber.within();
+    }
+
+    @Override
+    public void handle(T content) {
+        if (filter.test(content)) {
+            subscriber.handle(content);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return subscriber + " with " + filter;
+    }
+}
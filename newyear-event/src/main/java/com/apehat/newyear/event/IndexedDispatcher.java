@@ -0,0 +1,359 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A synchronous dispatcher, what compile the subscriptions (include the
+ * {@link EventFilter filters}) into an index.
+ * <p>
+ * Each subscription has a dense id, the index holds a bitset of matched
+ * subscriptions for each event type, and for each value of each filtered
+ * attribute. So dispatch an event only extract each filtered attribute
+ * once (and only if there are subscriptions may still match), and just
+ * call the subscribers matched all conditions. If an attribute cannot be
+ * extracted, the subscriptions constrained by it don't match the event.
+ * <p>
+ * The index is copy on write - the subscribing will rebuild it, and the
+ * dispatching never be locked.
+ * <p>
+ * The weak and soft subscriptions will be removed from the index on a
+ * background thread, after their subscribers be garbage collected.
+ *
+ * @param <T> the type of event can be dispatched
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class IndexedDispatcher<T extends Event> implements EventDispatcher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexedDispatcher.class);
+
+    /**
+     * The current index, only be replaced under lock of this.
+     */
+    private volatile Index index = Index.EMPTY;
+
+    @Override
+    public void submit(T event) {
+        Objects.requireNonNull(event, "Cannot submit null");
+
+        Index current = index;
+        BitSet matched = current.match(event);
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            EventSubscriber<Event> subscriber = current.entries[i].subscriber();
+            if (subscriber == null) {
+                // had be collected, will be purged by reaper
+                continue;
+            }
+            try {
+                subscriber.handle(event);
+            } catch (RuntimeException e) {
+                logger.error("Subscriber [{}] handle [{}] failed.", subscriber, event, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(EventSubscriber<? super T> subscriber) {
+        add(Event.class, null, subscriber, SubscriptionStrength.STRONG);
+    }
+
+    @Override
+    public <U extends T> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber) {
+        Objects.requireNonNull(eventType, "Must specific type token - eventType");
+        add(eventType, null, subscriber, SubscriptionStrength.STRONG);
+    }
+
+    @Override
+    public <U extends T> void subscribe(Class<U> eventType, EventFilter<? super U> filter,
+                                        EventSubscriber<? super U> subscriber) {
+        Objects.requireNonNull(eventType, "Must specific type token - eventType");
+        Objects.requireNonNull(filter, "Must specified filter.");
+        add(eventType, filter, subscriber, SubscriptionStrength.STRONG);
+    }
+
+    @Override
+    public <U extends T> Subscription subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber,
+                                                SubscriptionStrength strength) {
+        Objects.requireNonNull(eventType, "Must specific type token - eventType");
+        Objects.requireNonNull(strength, "Must specified strength.");
+        return add(eventType, null, subscriber, strength);
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (Entry entry : index.entries) {
+            entry.active = false;
+        }
+        index = Index.EMPTY;
+    }
+
+    private synchronized Entry add(Class<?> eventType, EventFilter<?> filter,
+                                   EventSubscriber<?> subscriber, SubscriptionStrength strength) {
+        Objects.requireNonNull(subscriber, "Must specified subscriber.");
+
+        Entry entry = new Entry(this, eventType, filter, subscriber, strength);
+        Entry[] entries = Arrays.copyOf(index.entries, index.entries.length + 1);
+        entries[entries.length - 1] = entry;
+        index = new Index(entries);
+        return entry;
+    }
+
+    private synchronized void remove(Entry entry) {
+        if (!entry.active) {
+            return;
+        }
+        entry.active = false;
+
+        Entry[] entries = new Entry[index.entries.length - 1];
+        int i = 0;
+        for (Entry exist : index.entries) {
+            if (exist != entry) {
+                entries[i++] = exist;
+            }
+        }
+        index = new Index(entries);
+    }
+
+    private static final class Entry implements Subscription {
+
+        private final IndexedDispatcher<?> dispatcher;
+        private final Class<?> eventType;
+        private final Map<String, ? extends EventFilter.Condition<?>> conditions;
+
+        /**
+         * The subscriber, if the strength is strong, otherwise null.
+         */
+        private final EventSubscriber<Event> subscriber;
+
+        /**
+         * The reference to subscriber, if the strength isn't strong.
+         */
+        private final Reference<EventSubscriber<Event>> reference;
+
+        /**
+         * Guarded by dispatcher.
+         */
+        private volatile boolean active = true;
+
+        private Entry(IndexedDispatcher<?> dispatcher, Class<?> eventType, EventFilter<?> filter,
+                      EventSubscriber<?> subscriber, SubscriptionStrength strength) {
+            this.dispatcher = dispatcher;
+            this.eventType = eventType;
+            this.conditions = filter == null ? Collections.emptyMap() : filter.conditions();
+            // type safe, only the events of eventType will be handled
+            @SuppressWarnings("unchecked") EventSubscriber<Event> subscriberToUse =
+                    (EventSubscriber<Event>) subscriber;
+            if (strength == SubscriptionStrength.STRONG) {
+                this.subscriber = subscriberToUse;
+                this.reference = null;
+            } else {
+                this.subscriber = null;
+                this.reference = SubscriptionReaper.reference(subscriberToUse, strength, this::unsubscribe);
+            }
+        }
+
+        private EventSubscriber<Event> subscriber() {
+            return reference == null ? subscriber : reference.get();
+        }
+
+        @Override
+        public void unsubscribe() {
+            dispatcher.remove(this);
+        }
+
+        @Override
+        public boolean isActive() {
+            return active && subscriber() != null;
+        }
+    }
+
+    /**
+     * The condition index of an attribute.
+     */
+    private static final class Attribute {
+
+        private final Function<Object, ?> extractor;
+
+        /**
+         * The subscriptions have condition on this attribute.
+         */
+        private final BitSet constrained = new BitSet();
+
+        /**
+         * The subscriptions have condition on this attribute, but don't
+         * accept the value of key. Be computed when the index built, so the
+         * dispatching needn't copy the bitsets.
+         */
+        private final Map<Object, BitSet> rejected = new HashMap<>();
+
+        private Attribute(Function<Object, ?> extractor) {
+            this.extractor = extractor;
+        }
+
+        private void accept(Object expected, int i) {
+            constrained.set(i);
+            rejected.computeIfAbsent(expected, k -> new BitSet()).set(i);
+        }
+
+        /**
+         * Invert the accepted subscriptions of each value, after all
+         * conditions be {@link #accept(Object, int) accepted}.
+         */
+        private void build() {
+            for (Map.Entry<Object, BitSet> entry : rejected.entrySet()) {
+                BitSet rejectedOfValue = (BitSet) constrained.clone();
+                rejectedOfValue.andNot(entry.getValue());
+                entry.setValue(rejectedOfValue);
+            }
+        }
+
+        /**
+         * Returns the subscriptions rejected the specified event.
+         *
+         * @param event the event to extract
+         * @return the rejected subscriptions, cannot be modified
+         */
+        private BitSet reject(Event event) {
+            Object value;
+            try {
+                value = extractor.apply(event);
+            } catch (RuntimeException e) {
+                logger.error("Cannot extract attribute of [{}], the subscriptions constrained by it are skipped.",
+                        event, e);
+                return constrained;
+            }
+            BitSet rejectedOfValue = rejected.get(value);
+            return rejectedOfValue == null ? constrained : rejectedOfValue;
+        }
+    }
+
+    /**
+     * The identity of an attribute, i.e. the name and the extractor (by
+     * reference equality).
+     */
+    private static final class AttributeKey {
+
+        private final String name;
+        private final Function<?, ?> extractor;
+
+        private AttributeKey(String name, Function<?, ?> extractor) {
+            this.name = name;
+            this.extractor = extractor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AttributeKey)) {
+                return false;
+            }
+            AttributeKey that = (AttributeKey) o;
+            return name.equals(that.name) && extractor == that.extractor;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + System.identityHashCode(extractor);
+        }
+    }
+
+    private static final class Index {
+
+        private static final Index EMPTY = new Index(new Entry[0]);
+
+        private final Entry[] entries;
+        private final Attribute[] attributes;
+
+        /**
+         * The subscriptions of the types, computed on demand.
+         */
+        private final Map<Class<?>, BitSet> types = new ConcurrentHashMap<>();
+
+        private Index(Entry[] entries) {
+            this.entries = entries;
+
+            // the attributes be identified by name and extractor, the subscriptions of different
+            // types may use the same name, but their extractors cannot be applied to each other
+            Map<AttributeKey, Attribute> attributes = new LinkedHashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                for (Map.Entry<String, ? extends EventFilter.Condition<?>> entry
+                        : entries[i].conditions.entrySet()) {
+                    EventFilter.Condition<?> condition = entry.getValue();
+                    // type safe, the extractor only be applied, if a subscription constrained by it matches
+                    // the type of event, and the subscription accepts the events can be extracted
+                    @SuppressWarnings("unchecked") Function<Object, ?> extractor =
+                            (Function<Object, ?>) condition.extractor();
+                    Attribute attribute = attributes.computeIfAbsent(
+                            new AttributeKey(entry.getKey(), extractor), k -> new Attribute(extractor));
+                    attribute.accept(condition.expected(), i);
+                }
+            }
+            for (Attribute attribute : attributes.values()) {
+                attribute.build();
+            }
+            this.attributes = attributes.values().toArray(new Attribute[0]);
+        }
+
+        /**
+         * Returns the subscriptions matched the specified event.
+         *
+         * @param event the event to match
+         * @return the bitset of matched subscriptions, can be modified
+         */
+        private BitSet match(Event event) {
+            // the only copy of dispatching, it cannot be reused by thread,
+            // because the subscribers may submit events reentrantly
+            BitSet candidates = (BitSet) types.computeIfAbsent(event.getClass(), this::matchType).clone();
+            for (Attribute attribute : attributes) {
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                if (!candidates.intersects(attribute.constrained)) {
+                    continue;
+                }
+                candidates.andNot(attribute.reject(event));
+            }
+            return candidates;
+        }
+
+        private BitSet matchType(Class<?> type) {
+            BitSet matched = new BitSet(entries.length);
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].eventType.isAssignableFrom(type)) {
+                    matched.set(i);
+                }
+            }
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.util.Sequence;
+
+/**
+ * The runtime state of an {@link EventLimit}.
+ * <p>
+ * The rate be implemented as GCRA (the token bucket in virtual scheduling
+ * form), so one CAS is enough to take a permit. The queue delay shedding
+ * follows CoDel: after the delay stay above target for an interval, shed
+ * one event, and the next shedding will be after {@code interval / sqrt(count)}.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+final class LimitGate {
+
+    private final EventLimit limit;
+
+    /**
+     * The nanos between two permits.
+     */
+    private final long emissionNanos;
+
+    /**
+     * The nanos of permits can be taken ahead.
+     */
+    private final long toleranceNanos;
+
+    /**
+     * The theoretical arrival time of next permit.
+     */
+    private final Sequence arrival;
+
+    /* CoDel state, guarded by this */
+    private long firstAboveTime;
+    private long dropNext;
+    private int count;
+    private boolean dropping;
+
+    LimitGate(EventLimit limit) {
+        this.limit = limit;
+        if (limit.hasRate()) {
+            emissionNanos = Math.max(1, (long) (1_000_000_000L / limit.getPermitsPerSecond()));
+            toleranceNanos = emissionNanos * (limit.getBurst() - 1);
+        } else {
+            emissionNanos = 0;
+            toleranceNanos = 0;
+        }
+        arrival = new Sequence(System.nanoTime());
+    }
+
+    EventLimit limit() {
+        return limit;
+    }
+
+    /**
+     * Try to take a permit of the rate.
+     *
+     * @param now the current nanos
+     * @return true, if the event can be submitted; otherwise, false
+     */
+    boolean tryAcquire(long now) {
+        if (emissionNanos == 0) {
+            return true;
+        }
+        for (; ; ) {
+            long tat = arrival.get();
+            long base = Math.max(tat, now);
+            if (base - now > toleranceNanos) {
+                return false;
+            }
+            if (arrival.compareAndSet(tat, base + emissionNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Determine whether the event waited for specified nanos should be shed.
+     *
+     * @param queuedNanos the nanos of event waited in queue
+     * @param now         the current nanos
+     * @return true, if the event should be shed; otherwise, false
+     */
+    synchronized boolean shouldShed(long queuedNanos, long now) {
+        if (!limit.hasShedding()) {
+            return false;
+        }
+
+        long interval = limit.getIntervalNanos();
+        if (queuedNanos < limit.getTargetDelayNanos()) {
+            // delay back below target - leave dropping state
+            firstAboveTime = 0;
+            dropping = false;
+            return false;
+        }
+        if (firstAboveTime == 0) {
+            firstAboveTime = now + interval;
+            return false;
+        }
+        if (now - firstAboveTime < 0) {
+            return false;
+        }
+
+        if (!dropping) {
+            dropping = true;
+            // dropped recently - resume from the previous drop rate
+            count = (count > 2 && now - dropNext < 16 * interval) ? count - 2 : 1;
+            dropNext = now + controlLaw(interval);
+            return true;
+        }
+        if (now - dropNext >= 0) {
+            count++;
+            dropNext += controlLaw(interval);
+            return true;
+        }
+        return false;
+    }
+
+    private long controlLaw(long interval) {
+        return (long) (interval / Math.sqrt(count));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * Receives the events be shed by {@link EventBus}, because of the
+ * {@link EventLimit} of their types.
+ * <p>
+ * The sink will be called on the submitting thread, or the executor
+ * thread of the bus, so it should return quickly.
+ *
+ * @author hanpengfei
+ * @see EventBus#useShedSink(ShedEventSink)
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface ShedEventSink {
+
+    /**
+     * Receive a shed event.
+     *
+     * @param event  the shed event
+     * @param reason the reason of shedding
+     */
+    void shed(Event event, Reason reason);
+
+    /**
+     * The reason of shedding.
+     */
+    enum Reason {
+
+        /**
+         * The event exceed the rate of it's type.
+         */
+        RATE_LIMITED,
+
+        /**
+         * The event had waited in the queue too long.
+         */
+        OVERLOADED
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A dispatching of an event, recorded by {@link EventTracer}.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public final class Span {
+
+    private final long traceId;
+    private final long sequence;
+    private final long parentSequence;
+    private final int depth;
+    private final Class<? extends Event> eventType;
+    private final String bus;
+    private final String thread;
+    private final long startNanos;
+    private final long durationNanos;
+
+    Span(TraceContext context, Class<? extends Event> eventType, String bus,
+         long startNanos, long durationNanos) {
+        this.traceId = context.getTraceId();
+        this.sequence = context.getSequence();
+        this.parentSequence = context.getParentSequence();
+        this.depth = context.getDepth();
+        this.eventType = eventType;
+        this.bus = bus;
+        this.thread = Thread.currentThread().getName();
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence of the event, what caused the event of this.
+     *
+     * @return the parent sequence, or 0 if the event is original
+     */
+    public long getParentSequence() {
+        return parentSequence;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Class<? extends Event> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the name of the bus dispatched the event.
+     *
+     * @return the name of the bus
+     */
+    public String getBus() {
+        return bus;
+    }
+
+    /**
+     * Returns the name of the thread dispatched the event.
+     *
+     * @return the name of thread
+     */
+    public String getThread() {
+        return thread;
+    }
+
+    /**
+     * Returns the start time of the dispatching, by {@link System#nanoTime()}.
+     *
+     * @return the start time nanos
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the duration of the dispatching, include all subscribers.
+     *
+     * @return the duration nanos
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Span{traceId=" + Long.toHexString(traceId) + ", sequence=" + sequence
+                + ", parentSequence=" + parentSequence + ", depth=" + depth
+                + ", eventType=" + eventType.getName() + ", bus=" + bus + ", thread=" + thread
+                + ", duration=" + TimeUnit.NANOSECONDS.toMicros(durationNanos) + "us}";
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * A handle of a subscribing, can be used to unsubscribe.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see EventDispatcher#subscribe(Class, EventSubscriber, SubscriptionStrength)
+ */
+public interface Subscription {
+
+    /**
+     * Unsubscribe the subscriber of this subscription. After unsubscribe,
+     * the subscriber will not receive any events. Call this method more
+     * than once has no effect.
+     */
+    void unsubscribe();
+
+    /**
+     * Returns whether the subscriber of this subscription still receives
+     * events, i.e. it wasn't unsubscribed, and wasn't be garbage collected.
+     *
+     * @return true, if this subscription still be active
+     */
+    boolean isActive();
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * Create the references of the weak and soft subscriptions, and run the
+ * cleanups of them on a background daemon thread, after the referents be
+ * garbage collected. So the cleared subscriptions will be purged, without
+ * any work on the dispatching.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+final class SubscriptionReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionReaper.class);
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    static {
+        Thread reaper = new Thread(SubscriptionReaper::reap, "subscription-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    private SubscriptionReaper() {
+    }
+
+    /**
+     * Create a reference of specified referent, by specified strength. The
+     * cleanup will be run, after the referent be garbage collected.
+     *
+     * @param referent the referent
+     * @param strength the strength of reference, can't be STRONG
+     * @param cleanup  the cleanup to run after referent be collected
+     * @param <T>      the type of referent
+     * @return a new reference
+     * @throws IllegalArgumentException the strength is STRONG
+     */
+    static <T> Reference<T> reference(T referent, SubscriptionStrength strength, Runnable cleanup) {
+        Objects.requireNonNull(cleanup, "Must specified cleanup.");
+        switch (strength) {
+            case WEAK:
+                return new WeakCleanable<>(referent, cleanup);
+            case SOFT:
+                return new SoftCleanable<>(referent, cleanup);
+            default:
+                throw new IllegalArgumentException("Cannot reference by " + strength);
+        }
+    }
+
+    private static void reap() {
+        while (true) {
+            try {
+                ((Cleanable) QUEUE.remove()).clean();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Purge subscription failed.", e);
+            }
+        }
+    }
+
+    private interface Cleanable {
+        void clean();
+    }
+
+    private static final class WeakCleanable<T> extends WeakReference<T> implements Cleanable {
+
+        private final Runnable cleanup;
+
+        private WeakCleanable(T referent, Runnable cleanup) {
+            super(referent, QUEUE);
+            this.cleanup = cleanup;
+        }
+
+        @Override
+        public void clean() {
+            cleanup.run();
+        }
+    }
+
+    private static final class SoftCleanable<T> extends SoftReference<T> implements Cleanable {
+
+        private final Runnable cleanup;
+
+        private SoftCleanable(T referent, Runnable cleanup) {
+            super(referent, QUEUE);
+            this.cleanup = cleanup;
+        }
+
+        @Override
+        public void clean() {
+            cleanup.run();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * The strength of the reference from a dispatcher to a subscriber.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see EventDispatcher#subscribe(Class, EventSubscriber, SubscriptionStrength)
+ */
+public enum SubscriptionStrength {
+
+    /**
+     * The subscriber be held until unsubscribe.
+     */
+    STRONG,
+
+    /**
+     * The subscriber be held weakly, the subscription will be removed after
+     * the subscriber be garbage collected.
+     *
+     * @see java.lang.ref.WeakReference
+     */
+    WEAK,
+
+    /**
+     * The subscriber be held softly, the subscription will be removed after
+     * the subscriber be garbage collected, in response to memory demand.
+     *
+     * @see java.lang.ref.SoftReference
+     */
+    SOFT
+}
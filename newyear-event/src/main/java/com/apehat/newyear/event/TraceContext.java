@@ -0,0 +1,142 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+/**
+ * The trace context of the event chain, what is propagated through
+ * {@link EventBus#submit(Event)}, include the dispatcher threads. So the
+ * events submitted by the subscribers, can be traced to the original event.
+ * <p>
+ * The context is immutable, and be bound to the thread handling event.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ * @see EventTracer
+ */
+public final class TraceContext {
+
+    /**
+     * The context of the event chain, what isn't sampled. All events of
+     * the chain share it, so the unsampled chain doesn't allocate context.
+     */
+    static final TraceContext UNSAMPLED = new TraceContext(0, 0, 0, 0, false);
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+    private final long traceId;
+    private final long sequence;
+    private final long parentSequence;
+    private final int depth;
+    private final boolean sampled;
+
+    TraceContext(long traceId, long sequence, long parentSequence, int depth, boolean sampled) {
+        this.traceId = traceId;
+        this.sequence = sequence;
+        this.parentSequence = parentSequence;
+        this.depth = depth;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Returns the context of the event be handled by current thread.
+     *
+     * @return the context of current thread, or null if current thread
+     * isn't handling a traced event
+     */
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind this to current thread.
+     *
+     * @return the context bound previously, to restore
+     */
+    TraceContext attach() {
+        TraceContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    /**
+     * Restore the context of current thread.
+     *
+     * @param previous the context returned by {@link #attach()}
+     */
+    static void restore(TraceContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Returns the id of the event chain, all events caused by same original
+     * event have same trace id.
+     *
+     * @return the trace id
+     */
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Returns the sequence of the event, what is unique in the tracer.
+     *
+     * @return the sequence of the event
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence of the event, what caused this event.
+     *
+     * @return the parent sequence, or 0 if this is the original event
+     */
+    public long getParentSequence() {
+        return parentSequence;
+    }
+
+    /**
+     * Returns the depth of the event in the chain, the original event is 0.
+     *
+     * @return the depth of the event
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns whether the event chain be sampled.
+     *
+     * @return true, if the event chain be sampled
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String toString() {
+        if (!sampled) {
+            return "TraceContext{unsampled}";
+        }
+        return "TraceContext{traceId=" + Long.toHexString(traceId) + ", sequence=" + sequence
+                + ", parentSequence=" + parentSequence + ", depth=" + depth + '}';
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.event.mock.MockDispatcher;
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockProvider;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import com.apehat.newyear.event.mock.PriceEvent;
+import org.testng.annotations.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class CoalescingDispatcherTest {
+
+    @Test
+    public void testLatestValueWins() {
+        MockDispatcher delegate = new MockDispatcher();
+        MockSubscriber subscriber = new MockSubscriber();
+        CoalescingDispatcher<Event> dispatcher = new CoalescingDispatcher<>(delegate, 1, TimeUnit.HOURS);
+        dispatcher.subscribe(MockEvent.class, subscriber);
+
+        PriceEvent first = new PriceEvent("foo");
+        PriceEvent last = new PriceEvent("foo");
+        PriceEvent other = new PriceEvent("bar");
+        dispatcher.submit(first);
+        dispatcher.submit(other);
+        dispatcher.submit(last);
+        assert subscriber.getHandled().isEmpty();
+
+        dispatcher.flush();
+        assert subscriber.getHandled().size() == 2;
+        assert subscriber.getHandled().contains(last);
+        assert subscriber.getHandled().contains(other);
+        assert !subscriber.getHandled().contains(first);
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSubmitWithoutKey() {
+        MockDispatcher delegate = new MockDispatcher();
+        MockSubscriber subscriber = new MockSubscriber();
+        CoalescingDispatcher<Event> dispatcher = new CoalescingDispatcher<>(delegate, 1, TimeUnit.HOURS);
+        dispatcher.subscribe(MockEvent.class, subscriber);
+
+        dispatcher.submit(new MockEvent());
+        assert subscriber.getHandled().size() == 1;
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testCloseWindow() throws InterruptedException {
+        MockDispatcher delegate = new MockDispatcher();
+        MockSubscriber subscriber = new MockSubscriber();
+        CoalescingDispatcher<Event> dispatcher = new CoalescingDispatcher<>(delegate, 10, TimeUnit.MILLISECONDS);
+        dispatcher.subscribe(MockEvent.class, subscriber);
+
+        dispatcher.submit(new PriceEvent("foo"));
+        dispatcher.submit(new PriceEvent("foo"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscriber.getHandled().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assert subscriber.getHandled().size() == 1;
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testProviderShareScheduler() throws InterruptedException {
+        AtomicInteger threads = new AtomicInteger();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+            threads.incrementAndGet();
+            return new Thread(runnable);
+        });
+        MockProvider delegates = new MockProvider(DispatcherLifecycle.POOLED);
+        DispatcherHolder<CoalescingDispatcher<Event>> holder = DispatcherHolder.of(CoalescingDispatcher.provider(
+                delegates, event -> ((PriceEvent) event).getSymbol(), (older, newer) -> older,
+                10, TimeUnit.MILLISECONDS, scheduler, null));
+        try {
+            MockSubscriber subscriber = new MockSubscriber();
+            holder.subscribe(PriceEvent.class, subscriber);
+
+            PriceEvent first = new PriceEvent("foo");
+            CoalescingDispatcher<Event> dispatcher = holder.get();
+            dispatcher.submit(first);
+            dispatcher.submit(new PriceEvent("foo"));
+            Thread other = new Thread(() -> holder.get().submit(new PriceEvent("bar")));
+            other.start();
+            other.join();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (subscriber.getHandled().size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assert subscriber.getHandled().size() == 2;
+            // the merger keeps the first event
+            assert subscriber.getHandled().contains(first);
+            assert delegates.getProvided().size() == MockProvider.POOL_SIZE;
+            assert threads.get() == 1;
+        } finally {
+            holder.shutdown();
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseWindowOnExecutor() throws InterruptedException {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        MockDispatcher delegate = new MockDispatcher();
+        CoalescingDispatcher<Event> dispatcher = new CoalescingDispatcher<>(delegate,
+                CoalescingDispatcherTest::symbol, (older, newer) -> newer, 10, TimeUnit.MILLISECONDS,
+                null, tasks::add);
+        AtomicReference<TraceContext> handledContext = new AtomicReference<>();
+        AtomicReference<Thread> handledThread = new AtomicReference<>();
+        dispatcher.subscribe(PriceEvent.class, new EventSubscriber<PriceEvent>() {
+            @Override
+            public String within() {
+                return MockEvent.SCOPE;
+            }
+
+            @Override
+            public void handle(PriceEvent content) {
+                handledContext.set(TraceContext.current());
+                handledThread.set(Thread.currentThread());
+            }
+        });
+
+        TraceContext context = new TraceContext(1, 1, 0, 0, true);
+        TraceContext previous = context.attach();
+        try {
+            dispatcher.submit(new PriceEvent("foo"));
+        } finally {
+            TraceContext.restore(previous);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (tasks.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // the scheduler only hands off the event
+        assert tasks.size() == 1;
+        assert handledThread.get() == null;
+
+        tasks.poll().run();
+        assert handledThread.get() == Thread.currentThread();
+        assert handledContext.get() == context;
+        assert TraceContext.current() == null;
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testShutdownDropLateWindows() throws InterruptedException {
+        MockDispatcher delegate = new MockDispatcher();
+        MockSubscriber subscriber = new MockSubscriber();
+        CoalescingDispatcher<Event> dispatcher = new CoalescingDispatcher<>(delegate, 10, TimeUnit.MILLISECONDS);
+        dispatcher.subscribe(MockEvent.class, subscriber);
+
+        dispatcher.submit(new PriceEvent("foo"));
+        dispatcher.shutdown();
+        // the pending event be flushed before the delegate shutdown
+        assert subscriber.getHandled().size() == 1;
+        assert delegate.isShutdown();
+
+        Thread.sleep(50);
+        assert subscriber.getHandled().size() == 1;
+        try {
+            dispatcher.submit(new PriceEvent("foo"));
+            assert false;
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static Object symbol(Event event) {
+        return ((PriceEvent) event).getSymbol();
+    }
+}
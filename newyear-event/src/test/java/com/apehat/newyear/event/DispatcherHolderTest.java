@@ -0,0 +1,119 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.event.mock.MockDispatcher;
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockProvider;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import org.testng.annotations.Test;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class DispatcherHolderTest {
+
+    @Test
+    public void testSingletonProvideOnce() {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.SINGLETON);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+
+        assert holder.get() == holder.get();
+        assert provider.getProvided().size() == 1;
+    }
+
+    @Test
+    public void testPooledProvidePoolSize() {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.POOLED);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+
+        assert holder.get() == holder.get();
+        assert provider.getProvided().size() == MockProvider.POOL_SIZE;
+    }
+
+    @Test
+    public void testThreadLocalReplaySubscriptions() throws InterruptedException {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.THREAD_LOCAL);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+
+        MockDispatcher current = holder.get();
+        holder.subscribe(MockEvent.class, new MockSubscriber());
+        assert current.getSubscriberCount() == 1;
+
+        MockDispatcher other = obtainInNewThread(holder);
+
+        assert current != other;
+        assert other.getSubscriberCount() == 1;
+        assert provider.getProvided().size() == 2;
+    }
+
+    @Test
+    public void testThreadLocalRemoveDeadThreads() throws InterruptedException {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.THREAD_LOCAL);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+
+        MockDispatcher dead = obtainInNewThread(holder);
+        assert !dead.isShutdown();
+        assert holder.size() == 1;
+
+        MockDispatcher alive = holder.get();
+        assert dead.isShutdown();
+        assert !alive.isShutdown();
+        assert holder.size() == 1;
+    }
+
+    private static MockDispatcher obtainInNewThread(DispatcherHolder<MockDispatcher> holder)
+            throws InterruptedException {
+        MockDispatcher[] obtained = new MockDispatcher[1];
+        Thread thread = new Thread(() -> obtained[0] = holder.get());
+        thread.start();
+        thread.join();
+        return obtained[0];
+    }
+
+    @Test
+    public void testRefusedSubscriptionNotRecorded() throws InterruptedException {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.THREAD_LOCAL);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+        holder.get();
+
+        try {
+            // the mock dispatcher doesn't support unsubscribe
+            holder.subscribe(MockEvent.class, new MockSubscriber(), SubscriptionStrength.WEAK);
+            assert false;
+        } catch (UnsupportedOperationException ignore) {
+        }
+
+        holder.subscribe(MockEvent.class, new MockSubscriber());
+        MockDispatcher other = obtainInNewThread(holder);
+        assert other.getSubscriberCount() == 1;
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testShutdown() {
+        MockProvider provider = new MockProvider(DispatcherLifecycle.POOLED);
+        DispatcherHolder<MockDispatcher> holder = DispatcherHolder.of(provider);
+        MockDispatcher dispatcher = holder.get();
+
+        holder.shutdown();
+
+        assert dispatcher.isShutdown();
+        // shutdown holder shouldn't provide dispatcher
+        holder.get();
+    }
+}
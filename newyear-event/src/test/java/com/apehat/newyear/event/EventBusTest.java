@@ -0,0 +1,173 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.event.mock.MockDispatcher;
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockProvider;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import com.apehat.newyear.event.mock.ReentrantProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class EventBusTest {
+
+    @Test
+    public void testDefaultInstance() {
+        assert EventBus.getInstance(EventBus.DEFAULT_NAME) == EventBus.getInstance();
+    }
+
+    @Test
+    public void testRecreateDefaultInstance() {
+        EventBus shutdown = EventBus.getInstance();
+        shutdown.shutdown();
+
+        EventBus bus = EventBus.getInstance();
+        assert bus != shutdown;
+        assert bus.getName().equals(EventBus.DEFAULT_NAME);
+        assert bus.getDispatcher(ReentrantProvider.ReentrantEvent.class) != null;
+    }
+
+    @Test
+    public void testGetBusWhenLoadingProviders() {
+        EventBus bus = EventBus.getInstance("reentrant");
+        try {
+            // getInstance() and getInstance(DEFAULT_NAME) in pairs, the default
+            // bus may be recreated by other tests
+            List<EventBus> observed = ReentrantProvider.getObserved();
+            assert !observed.isEmpty();
+            for (int i = 0; i < observed.size(); i += 2) {
+                assert observed.get(i).getName().equals(EventBus.DEFAULT_NAME);
+                assert observed.get(i) == observed.get(i + 1);
+            }
+            assert bus.getDispatcher(ReentrantProvider.ReentrantEvent.class) != null;
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testNamedInstancesAreIsolated() {
+        EventBus foo = EventBus.getInstance("foo");
+        EventBus bar = EventBus.getInstance("bar");
+        try {
+            assert EventBus.getInstance("foo") == foo;
+            assert foo != bar;
+
+            foo.registerDefaultProvider(MockDispatcher::new);
+            bar.registerDefaultProvider(MockDispatcher::new);
+            assert foo.getDispatcher(MockEvent.class) != bar.getDispatcher(MockEvent.class);
+
+            MockSubscriber subscriber = new MockSubscriber();
+            foo.subscribe(MockEvent.class, subscriber);
+            foo.submit(new MockEvent());
+            bar.submit(new MockEvent());
+
+            assert subscriber.getHandled().size() == 1;
+            assert foo.getMetrics().dispatched() == 1;
+            assert bar.getMetrics().dispatched() == 1;
+        } finally {
+            foo.shutdown();
+            bar.shutdown();
+        }
+        assert foo != EventBus.getInstance("foo");
+        EventBus.getInstance("foo").shutdown();
+    }
+
+    @Test
+    public void testDispatchByExecutor() throws InterruptedException {
+        EventBus bus = EventBus.getInstance("async");
+        try {
+            bus.useExecutor(Executors.newSingleThreadExecutor());
+            bus.registerDefaultProvider(MockDispatcher::new);
+
+            CountDownLatch latch = new CountDownLatch(1);
+            bus.subscribe(MockEvent.class, new MockSubscriber() {
+                @Override
+                public void handle(MockEvent content) {
+                    super.handle(content);
+                    latch.countDown();
+                }
+            });
+            bus.submit(new MockEvent());
+
+            assert latch.await(5, TimeUnit.SECONDS);
+            assert bus.getMetrics().submitted() == 1;
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testReplaceProviderWithQueuedEvents() {
+        EventBus bus = EventBus.getInstance("replaced");
+        try {
+            Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+            bus.useExecutor(tasks::add);
+            MockProvider replaced = new MockProvider(DispatcherLifecycle.SINGLETON);
+            bus.registerProvider(MockEvent.class, replaced);
+            bus.submit(new MockEvent());
+
+            // the route of queued event be resolved, before the replacing
+            MockSubscriber subscriber = new MockSubscriber();
+            bus.replcaeProvider(MockEvent.class, MockDispatcher::new);
+            bus.subscribe(MockEvent.class, subscriber);
+            tasks.poll().run();
+
+            assert subscriber.getHandled().size() == 1;
+            assert bus.getMetrics().dispatched() == 1;
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testRateLimit() {
+        EventBus bus = EventBus.getInstance("limited");
+        try {
+            List<Event> shed = new CopyOnWriteArrayList<>();
+            bus.registerDefaultProvider(MockDispatcher::new);
+            bus.limit(MockEvent.class, EventLimit.rate(0.001, 2)).useShedSink((event, reason) -> {
+                assert reason == ShedEventSink.Reason.RATE_LIMITED;
+                shed.add(event);
+            });
+
+            MockSubscriber subscriber = new MockSubscriber();
+            bus.subscribe(MockEvent.class, subscriber);
+            for (int i = 0; i < 5; i++) {
+                bus.submit(new MockEvent());
+            }
+
+            assert subscriber.getHandled().size() == 2;
+            assert shed.size() == 3;
+            assert bus.getMetrics().shed() == 3;
+        } finally {
+            bus.shutdown();
+        }
+    }
+}
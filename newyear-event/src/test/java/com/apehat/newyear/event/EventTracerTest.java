@@ -0,0 +1,83 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import com.apehat.newyear.event.mock.PriceEvent;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class EventTracerTest {
+
+    @Test
+    public void testTraceEventChain() {
+        EventBus bus = EventBus.getInstance("traced");
+        try {
+            EventTracer tracer = new EventTracer(1, 4);
+            bus.useTracer(tracer).registerDefaultProvider(IndexedDispatcher::new);
+            bus.subscribe(MockEvent.class, new MockSubscriber() {
+                @Override
+                public void handle(MockEvent content) {
+                    super.handle(content);
+                    if (!(content instanceof PriceEvent)) {
+                        bus.submit(new PriceEvent("foo"));
+                    }
+                }
+            });
+            bus.submit(new MockEvent());
+            assert TraceContext.current() == null;
+
+            List<Span> spans = tracer.dump();
+            assert spans.size() == 2;
+            // the child completed first
+            Span child = spans.get(0);
+            Span root = spans.get(1);
+            assert child.getTraceId() == root.getTraceId();
+            assert child.getParentSequence() == root.getSequence();
+            assert root.getDepth() == 0;
+            assert child.getDepth() == 1;
+            assert child.getEventType() == PriceEvent.class;
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testRingBuffer() {
+        EventTracer tracer = new EventTracer(1, 3);
+        for (int i = 0; i < 10; i++) {
+            tracer.record(tracer.begin(), MockEvent.class, "test", 0, i);
+        }
+        List<Span> spans = tracer.dump();
+        assert spans.size() == 4;
+        assert spans.get(0).getDurationNanos() == 6;
+        assert spans.get(3).getDurationNanos() == 9;
+        assert tracer.recorded() == 10;
+    }
+
+    @Test
+    public void testUnsampled() {
+        EventTracer tracer = new EventTracer(0, 4);
+        assert !tracer.begin().isSampled();
+    }
+}
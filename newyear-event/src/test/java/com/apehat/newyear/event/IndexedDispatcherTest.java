@@ -0,0 +1,179 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event;
+
+import com.apehat.newyear.event.mock.MockDispatcher;
+import com.apehat.newyear.event.mock.MockEvent;
+import com.apehat.newyear.event.mock.MockSubscriber;
+import com.apehat.newyear.event.mock.PriceEvent;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class IndexedDispatcherTest {
+
+    @Test
+    public void testFilteredSubscribe() {
+        AtomicInteger extracted = new AtomicInteger();
+        Function<PriceEvent, Object> symbol = event -> {
+            extracted.incrementAndGet();
+            return event.coalescingKey();
+        };
+
+        IndexedDispatcher<Event> dispatcher = new IndexedDispatcher<>();
+        MockSubscriber all = new MockSubscriber();
+        MockSubscriber foo = new MockSubscriber();
+        MockSubscriber fooInScope = new MockSubscriber();
+        MockSubscriber bar = new MockSubscriber();
+        dispatcher.subscribe(MockEvent.class, all);
+        dispatcher.subscribe(PriceEvent.class,
+                EventFilter.attribute("symbol", symbol, "foo"), foo);
+        dispatcher.subscribe(PriceEvent.class,
+                EventFilter.<PriceEvent>scope("application:test")
+                        .and(EventFilter.attribute("symbol", symbol, "foo")), fooInScope);
+        dispatcher.subscribe(PriceEvent.class,
+                EventFilter.attribute("symbol", symbol, "bar"), bar);
+
+        dispatcher.submit(new PriceEvent("foo"));
+        assert extracted.get() == 1;
+        assert all.getHandled().size() == 1;
+        assert foo.getHandled().size() == 1;
+        assert fooInScope.getHandled().size() == 1;
+        assert bar.getHandled().isEmpty();
+
+        dispatcher.submit(new MockEvent());
+        assert extracted.get() == 1;
+        assert all.getHandled().size() == 2;
+        assert foo.getHandled().size() == 1;
+    }
+
+    @Test
+    public void testExtractAttributeFailure() {
+        Function<PriceEvent, Object> failure = event -> {
+            throw new IllegalStateException("extract failure");
+        };
+
+        IndexedDispatcher<Event> dispatcher = new IndexedDispatcher<>();
+        MockSubscriber failed = new MockSubscriber();
+        MockSubscriber foo = new MockSubscriber();
+        MockSubscriber all = new MockSubscriber();
+        dispatcher.subscribe(PriceEvent.class, EventFilter.attribute("failure", failure, "foo"), failed);
+        dispatcher.subscribe(PriceEvent.class, EventFilter.attribute("symbol", PriceEvent::getSymbol, "foo"), foo);
+        dispatcher.subscribe(PriceEvent.class, all);
+
+        dispatcher.submit(new PriceEvent("foo"));
+        assert failed.getHandled().isEmpty();
+        assert foo.getHandled().size() == 1;
+        assert all.getHandled().size() == 1;
+    }
+
+    @Test
+    public void testSameAttributeNameOfDifferentTypes() {
+        IndexedDispatcher<Event> dispatcher = new IndexedDispatcher<>();
+        MockSubscriber price = new MockSubscriber();
+        MockSubscriber other = new MockSubscriber();
+        dispatcher.subscribe(PriceEvent.class, EventFilter.attribute("id", PriceEvent::getSymbol, "foo"), price);
+        dispatcher.subscribe(OtherEvent.class, EventFilter.attribute("id", OtherEvent::getId, 1), other);
+
+        dispatcher.submit(new OtherEvent(1));
+        dispatcher.submit(new PriceEvent("foo"));
+        dispatcher.submit(new OtherEvent(2));
+        assert price.getHandled().size() == 1;
+        assert other.getHandled().size() == 1;
+    }
+
+    @Test
+    public void testDefaultFilteredSubscribe() {
+        MockDispatcher dispatcher = new MockDispatcher();
+        MockSubscriber subscriber = new MockSubscriber();
+        dispatcher.subscribe(MockEvent.class, EventFilter.version(2), subscriber);
+
+        dispatcher.submit(new MockEvent());
+        assert subscriber.getHandled().isEmpty();
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        IndexedDispatcher<Event> dispatcher = new IndexedDispatcher<>();
+        MockSubscriber subscriber = new MockSubscriber();
+        Subscription subscription = dispatcher.subscribe(
+                MockEvent.class, subscriber, SubscriptionStrength.STRONG);
+        dispatcher.submit(new MockEvent());
+        assert subscription.isActive();
+
+        subscription.unsubscribe();
+        dispatcher.submit(new MockEvent());
+        assert !subscription.isActive();
+        assert subscriber.getHandled().size() == 1;
+    }
+
+    @Test
+    public void testWeakSubscription() throws InterruptedException {
+        IndexedDispatcher<Event> dispatcher = new IndexedDispatcher<>();
+        Subscription subscription = dispatcher.subscribe(
+                MockEvent.class, new MockSubscriber(), SubscriptionStrength.WEAK);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscription.isActive() && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assert !subscription.isActive();
+    }
+
+    @Test
+    public void testUnsubscribeFromBus() {
+        EventBus bus = EventBus.getInstance("unsubscribe");
+        try {
+            bus.registerDefaultProvider(IndexedDispatcher::new);
+            MockSubscriber subscriber = new MockSubscriber();
+            Subscription subscription = bus.subscribe(
+                    MockEvent.class, subscriber, SubscriptionStrength.STRONG);
+            bus.submit(new MockEvent());
+
+            subscription.unsubscribe();
+            bus.submit(new MockEvent());
+            assert subscriber.getHandled().size() == 1;
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConflictFilter() {
+        EventFilter.scope("foo").and(EventFilter.scope("bar"));
+    }
+
+    private static class OtherEvent extends MockEvent {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+
+        private OtherEvent(int id) {
+            this.id = id;
+        }
+
+        private int getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.Event;
+import com.apehat.newyear.event.EventDispatcher;
+import com.apehat.newyear.event.EventSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The dispatcher dispatches events to subscribers synchronously, and does
+ * not support unsubscribe.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class MockDispatcher implements EventDispatcher<Event> {
+
+    private final List<Consumer<Event>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean shutdown;
+
+    @Override
+    public void submit(Event event) {
+        for (Consumer<Event> subscriber : subscribers) {
+            subscriber.accept(event);
+        }
+    }
+
+    @Override
+    public void subscribe(EventSubscriber<? super Event> subscriber) {
+        subscribers.add(subscriber::handle);
+    }
+
+    @Override
+    public <U extends Event> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber) {
+        subscribers.add(event -> {
+            if (eventType.isInstance(event)) {
+                subscriber.handle(eventType.cast(event));
+            }
+        });
+    }
+
+    @Override
+    public void reset() {
+        subscribers.clear();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.AbstractEvent;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class MockEvent extends AbstractEvent {
+
+    public static final String SCOPE = "application:test";
+
+    private static final long serialVersionUID = -3290233624381553036L;
+
+    @Override
+    public String scope() {
+        return SCOPE;
+    }
+}
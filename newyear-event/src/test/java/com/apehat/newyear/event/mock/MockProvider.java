@@ -0,0 +1,60 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.DispatcherLifecycle;
+import com.apehat.newyear.event.DispatcherProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class MockProvider implements DispatcherProvider<MockDispatcher> {
+
+    public static final int POOL_SIZE = 2;
+
+    private final List<MockDispatcher> provided = new CopyOnWriteArrayList<>();
+    private final DispatcherLifecycle lifecycle;
+
+    public MockProvider(DispatcherLifecycle lifecycle) {
+        this.lifecycle = lifecycle;
+    }
+
+    @Override
+    public MockDispatcher get() {
+        MockDispatcher dispatcher = new MockDispatcher();
+        provided.add(dispatcher);
+        return dispatcher;
+    }
+
+    @Override
+    public DispatcherLifecycle lifecycle() {
+        return lifecycle;
+    }
+
+    @Override
+    public int poolSize() {
+        return POOL_SIZE;
+    }
+
+    public List<MockDispatcher> getProvided() {
+        return provided;
+    }
+}
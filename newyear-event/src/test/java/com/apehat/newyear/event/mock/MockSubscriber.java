@@ -0,0 +1,45 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.EventSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class MockSubscriber implements EventSubscriber<MockEvent> {
+
+    private final List<MockEvent> handled = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String within() {
+        return MockEvent.SCOPE;
+    }
+
+    @Override
+    public void handle(MockEvent content) {
+        handled.add(content);
+    }
+
+    public List<MockEvent> getHandled() {
+        return handled;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.Coalescible;
+
+/**
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class PriceEvent extends MockEvent implements Coalescible {
+
+    private static final long serialVersionUID = 4043506453436462170L;
+
+    private final String symbol;
+
+    public PriceEvent(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public Object coalescingKey() {
+        return symbol;
+    }
+}
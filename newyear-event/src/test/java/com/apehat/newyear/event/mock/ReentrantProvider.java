@@ -0,0 +1,93 @@
+/*
+ * Copyright ApeHat.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apehat.newyear.event.mock;
+
+import com.apehat.newyear.event.AbstractEvent;
+import com.apehat.newyear.event.DispatcherProvider;
+import com.apehat.newyear.event.EventBus;
+import com.apehat.newyear.event.EventDispatcher;
+import com.apehat.newyear.event.EventSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The build in provider (registered by service loader), what gets the
+ * default bus when it be loading.
+ *
+ * @author hanpengfei
+ * @since 1.0
+ */
+public class ReentrantProvider implements DispatcherProvider<ReentrantProvider.ReentrantDispatcher> {
+
+    private static final List<EventBus> OBSERVED = new CopyOnWriteArrayList<>();
+
+    public ReentrantProvider() {
+        OBSERVED.add(nonNull(EventBus.getInstance()));
+        OBSERVED.add(nonNull(EventBus.getInstance(EventBus.DEFAULT_NAME)));
+    }
+
+    private static EventBus nonNull(EventBus bus) {
+        if (bus == null) {
+            throw new IllegalStateException("Cannot get default bus at loading.");
+        }
+        return bus;
+    }
+
+    /**
+     * Returns the buses be got at loading.
+     *
+     * @return the buses be got at loading
+     */
+    public static List<EventBus> getObserved() {
+        return OBSERVED;
+    }
+
+    @Override
+    public ReentrantDispatcher get() {
+        return new ReentrantDispatcher();
+    }
+
+    public static class ReentrantEvent extends AbstractEvent {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String scope() {
+            return MockEvent.SCOPE;
+        }
+    }
+
+    public static class ReentrantDispatcher implements EventDispatcher<ReentrantEvent> {
+
+        @Override
+        public void submit(ReentrantEvent event) {
+        }
+
+        @Override
+        public void subscribe(EventSubscriber<? super ReentrantEvent> subscriber) {
+        }
+
+        @Override
+        public <U extends ReentrantEvent> void subscribe(Class<U> eventType, EventSubscriber<? super U> subscriber) {
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+}